@@ -1,15 +1,14 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.List;
 
 public class AgentBookingManagementWindow extends JFrame {
-    private BookingSystem bookingSystem;
+    private AsyncBookingService bookingService;
     private JTable bookingTable;
-    private DefaultTableModel bookingTableModel;
+    private PagedTableModel<BookingDetails> bookingTableModel;
+    private JLabel statusLabel;
 
-    public AgentBookingManagementWindow(BookingSystem system) {
-        this.bookingSystem = system;
+    public AgentBookingManagementWindow(AsyncBookingService bookingService) {
+        this.bookingService = bookingService;
         setTitle("Agent - Manage Bookings");
         setSize(700, 500);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -18,22 +17,33 @@ public class AgentBookingManagementWindow extends JFrame {
         setLayout(new BorderLayout());
 
         // Booking Table
-        String[] bookingColumns = {"Booking ID", "User ID", "Flight ID", "Seats", "Date", "Status"};
-        bookingTableModel = new DefaultTableModel(bookingColumns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        String[] bookingColumns = {"Booking ID", "User ID", "Flight", "Seats", "Date", "Status"};
+        // Bookings are joined with flights in one query and fetched a page at a time as the table scrolls
+        bookingTableModel = new PagedTableModel<>(bookingService, bookingColumns,
+            (after, limit) -> bookingService.getBookingSystem()
+                .getBookingDetailsPage(after == null ? 0 : after.getBookingId(), limit),
+            (booking, column) -> {
+                switch (column) {
+                    case 0: return booking.getBookingId();
+                    case 1: return booking.getUserId();
+                    case 2: return booking.hasFlight() ? booking.getFlightNumber() : "Unknown (ID: " + booking.getFlightId() + ")";
+                    case 3: return booking.getNumSeats();
+                    case 4: return booking.getBookingDate();
+                    default: return booking.getStatus();
+                }
+            });
         bookingTable = new JTable(bookingTableModel);
         JScrollPane scrollPane = new JScrollPane(bookingTable);
+        bookingTableModel.attachTo(scrollPane);
         add(scrollPane, BorderLayout.CENTER);
 
         // Control Panel
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         JButton markAsPaidButton = new JButton("Mark as Paid");
         JButton refreshButton = new JButton("Refresh");
+        statusLabel = new JLabel(" ");
 
+        controlPanel.add(statusLabel);
         controlPanel.add(markAsPaidButton);
         controlPanel.add(refreshButton);
         add(controlPanel, BorderLayout.SOUTH);
@@ -42,23 +52,32 @@ public class AgentBookingManagementWindow extends JFrame {
         markAsPaidButton.addActionListener(e -> markSelectedBookingAsPaid());
         refreshButton.addActionListener(e -> loadBookings());
 
+        // Pages load in the background; a refresh drops whatever is still loading
+        bookingTableModel.setBusyIndicator(busy -> {
+            statusLabel.setText(busy ? "Loading bookings..." : loadedStatus());
+            refreshButton.setEnabled(!busy);
+        });
+        bookingTableModel.setErrorHandler(error -> FlightSystemGUI.showAsyncError(this, "Failed to load bookings", error));
+
         // Initial data load
         loadBookings();
     }
 
     private void loadBookings() {
-        bookingTableModel.setRowCount(0);
-        List<Booking> bookings = bookingSystem.getAllBookings(); // Need a method to get all bookings in BookingSystem/DatabaseManager
-        for (Booking booking : bookings) {
-            bookingTableModel.addRow(new Object[]{
-                booking.getBookingId(),
-                booking.getUserId(),
-                booking.getFlightId(),
-                booking.getNumSeats(),
-                booking.getBookingDate(),
-                booking.getStatus()
-            });
-        }
+        bookingTableModel.reload();
+    }
+
+    private String loadedStatus() {
+        int loaded = bookingTableModel.getRowCount();
+        return bookingTableModel.hasMore()
+            ? loaded + " bookings loaded (scroll for more)"
+            : loaded + " bookings";
+    }
+
+    @Override
+    public void dispose() {
+        bookingTableModel.cancel(); // Don't fill a table that is going away
+        super.dispose();
     }
 
     private void markSelectedBookingAsPaid() {
@@ -68,10 +87,10 @@ public class AgentBookingManagementWindow extends JFrame {
             return;
         }
 
-        int bookingId = (int) bookingTableModel.getValueAt(selectedRow, 0);
-        String currentStatus = (String) bookingTableModel.getValueAt(selectedRow, 5);
+        BookingDetails booking = bookingTableModel.getRow(bookingTable.convertRowIndexToModel(selectedRow));
+        int bookingId = booking.getBookingId();
 
-        if ("Paid".equals(currentStatus)) {
+        if ("Paid".equals(booking.getStatus())) {
             JOptionPane.showMessageDialog(this, "This booking is already marked as Paid.", "Status Info", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
@@ -82,14 +101,20 @@ public class AgentBookingManagementWindow extends JFrame {
             JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            boolean success = bookingSystem.processPayment(bookingId); // Reuse the processPayment method
-
-            if (success) {
-                JOptionPane.showMessageDialog(this, "Booking status updated to Paid!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadBookings(); // Refresh table
-            } else {
-                JOptionPane.showMessageDialog(this, "Failed to update booking status.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            // Reuse the processPayment method
+            AsyncBookingService.onEdt(bookingService.processPayment(bookingId), success -> {
+                if (success) {
+                    JOptionPane.showMessageDialog(this, "Booking status updated to Paid!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    // Update the row in place rather than reloading every page the agent has scrolled through
+                    booking.setStatus("Paid");
+                    int row = bookingTableModel.indexOf(booking);
+                    if (row >= 0) {
+                        bookingTableModel.fireTableRowsUpdated(row, row);
+                    }
+                } else {
+                    JOptionPane.showMessageDialog(this, "Failed to update booking status.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, error -> FlightSystemGUI.showAsyncError(this, "Failed to update booking status", error));
         }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,226 @@
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous facade over BookingSystem for the GUI.
+ * Every call runs on a dedicated executor and returns a CompletableFuture, so
+ * database work (including executeWithRetry's back-off sleeps) never blocks the
+ * Swing event thread. Use onEdt or LatestRequest to get results back onto the EDT.
+ */
+public class AsyncBookingService {
+    // Worker threads for database calls; override with -Dflight.async.threads=N
+    private static final int DEFAULT_THREADS = Integer.getInteger("flight.async.threads", 4);
+
+    private final BookingSystem system;
+    private final ExecutorService executor;
+
+    public AsyncBookingService(BookingSystem system) {
+        this(system, DEFAULT_THREADS);
+    }
+
+    public AsyncBookingService(BookingSystem system, int threads) {
+        this.system = system;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "booking-io-" + threadCount.incrementAndGet());
+            thread.setDaemon(true); // Never keep the JVM alive after the GUI exits
+            return thread;
+        });
+    }
+
+    public BookingSystem getBookingSystem() {
+        return system;
+    }
+
+    /**
+     * Runs any BookingSystem work on the booking executor
+     * @param task The work to run
+     * @return Future completed with the task's result
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    // --- Reads ---
+
+    public CompletableFuture<ArrayList<Flight>> getAllFlights() {
+        return submit(system::getAllFlights);
+    }
+
+    public CompletableFuture<List<Flight>> searchFlights(FlightSearchCriteria criteria, int limit) {
+        return submit(() -> system.searchFlights(criteria, limit));
+    }
+
+    public CompletableFuture<List<Itinerary>> findConnections(String origin, String destination, int maxStops, int seats,
+                                                            ConnectionFinder.RankBy rankBy, int maxResults) {
+        return submit(() -> system.findConnections(origin, destination, maxStops, seats, rankBy, maxResults));
+    }
+
+    public CompletableFuture<List<BookingDetails>> getUserBookingDetails(User user) {
+        return submit(() -> system.getUserBookingDetails(user));
+    }
+
+    public CompletableFuture<List<BookingDetails>> getAllBookingDetails() {
+        return submit(system::getAllBookingDetails);
+    }
+
+    public CompletableFuture<List<User>> getAllUsers() {
+        return submit(() -> system.getUserService().getAllUsers());
+    }
+
+    public CompletableFuture<User> getUserById(int userId) {
+        return submit(() -> system.getUserService().getUserById(userId));
+    }
+
+    public CompletableFuture<User> authenticateUser(String username, String password) {
+        return submit(() -> system.getUserService().authenticateUser(username, password));
+    }
+
+    // --- Mutations ---
+
+    public CompletableFuture<ReservationResult> reserveBooking(User user, int flightId, int numSeats) {
+        return submit(() -> system.reserveBooking(user, flightId, numSeats));
+    }
+
+    public CompletableFuture<Boolean> processPayment(int bookingId) {
+        return submit(() -> system.processPayment(bookingId));
+    }
+
+    public CompletableFuture<int[]> cancelAndReleaseSeats(User user, int bookingId, int numSeatsToCancel) {
+        return submit(() -> system.cancelAndReleaseSeats(user, bookingId, numSeatsToCancel));
+    }
+
+    public CompletableFuture<Boolean> cancelBooking(int bookingId) {
+        return submit(() -> system.cancelBooking(bookingId));
+    }
+
+    public CompletableFuture<CancellationResult> cancelBookings(Collection<Integer> bookingIds) {
+        return submit(() -> system.cancelBookings(bookingIds));
+    }
+
+    public CompletableFuture<Boolean> modifyBooking(int bookingId, int newNumSeats) {
+        return submit(() -> system.modifyBooking(bookingId, newNumSeats));
+    }
+
+    public CompletableFuture<Boolean> addFlight(Flight flight) {
+        return submit(() -> system.addFlight(flight));
+    }
+
+    public CompletableFuture<Boolean> updateFlight(Flight flight) {
+        return submit(() -> system.updateFlight(flight));
+    }
+
+    public CompletableFuture<Boolean> deleteFlight(String flightNumber) {
+        return submit(() -> system.deleteFlight(flightNumber));
+    }
+
+    public CompletableFuture<Boolean> deleteUser(int userId) {
+        return submit(() -> system.getUserService().deleteUser(userId));
+    }
+
+    public CompletableFuture<Boolean> updateUserRole(int userId, String newRole) {
+        return submit(() -> system.getUserService().updateUserRole(userId, newRole));
+    }
+
+    public CompletableFuture<Long> registerUser(String username, String password, String email,
+                                                String phoneNumber, String userId, String role) {
+        return submit(() -> system.getDbManager().registerUser(username, password, email, phoneNumber, userId, role));
+    }
+
+    /**
+     * Stops accepting work and waits briefly for in-flight calls to finish
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Delivers a future's outcome on the Swing event thread. Cancelled futures are ignored.
+     * @param future The pending call
+     * @param onSuccess Runs on the EDT with the result
+     * @param onError Runs on the EDT with the underlying failure
+     */
+    public static <T> void onEdt(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        future.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            if (cause != null) {
+                onError.accept(cause);
+            } else {
+                onSuccess.accept(result);
+            }
+        }));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Tracks the latest load of one kind of data (e.g. a window's table refresh).
+     * Starting a new load cancels the previous one, and results from a load that
+     * has been superseded are dropped instead of overwriting newer data.
+     * Must be used from the Swing event thread.
+     */
+    public static class LatestRequest<T> {
+        private final Consumer<Boolean> busyIndicator;
+        private CompletableFuture<T> pending;
+
+        /**
+         * @param busyIndicator Called with true when a load starts and false when the latest one finishes
+         */
+        public LatestRequest(Consumer<Boolean> busyIndicator) {
+            this.busyIndicator = busyIndicator;
+        }
+
+        public void load(CompletableFuture<T> future, Consumer<T> onLoaded, Consumer<Throwable> onError) {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            pending = future;
+            busyIndicator.accept(true);
+            onEdt(future, result -> {
+                if (future == pending) {
+                    pending = null;
+                    busyIndicator.accept(false);
+                    onLoaded.accept(result);
+                }
+            }, error -> {
+                if (future == pending) {
+                    pending = null;
+                    busyIndicator.accept(false);
+                    onError.accept(error);
+                }
+            });
+        }
+
+        public void cancel() {
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+                busyIndicator.accept(false);
+            }
+        }
+    }
+}
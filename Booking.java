@@ -5,6 +5,8 @@ public class Booking {
     private int numSeats;
     private String bookingDate;
     private String status;
+    private int version; // Bumped on every change to the row, for compare-and-set updates
+    private double fare = -1; // Per-seat fare quoted when the booking was made, -1 if not recorded
 
     public Booking(int userId, int flightId, int numSeats) {
         this.userId = userId;
@@ -30,6 +32,9 @@ public class Booking {
     public int getNumSeats() { return numSeats; }
     public String getBookingDate() { return bookingDate; }
     public String getStatus() { return status; }
+    public int getVersion() { return version; }
+    public double getFare() { return fare; }
+    public boolean hasFare() { return fare >= 0; }
 
     // Setters
     public void setBookingId(int bookingId) { this.bookingId = bookingId; }
@@ -38,6 +43,8 @@ public class Booking {
     public void setNumSeats(int numSeats) { this.numSeats = numSeats; }
     public void setBookingDate(String bookingDate) { this.bookingDate = bookingDate; }
     public void setStatus(String status) { this.status = status; }
+    public void setVersion(int version) { this.version = version; }
+    public void setFare(double fare) { this.fare = fare; }
 
     @Override
     public String toString() {
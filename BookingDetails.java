@@ -0,0 +1,51 @@
+/**
+ * A booking together with the flight fields the booking screens display.
+ * Loaded with a single joined query so the GUIs do not have to look up
+ * the flight separately for every row.
+ */
+public class BookingDetails extends Booking {
+    private String flightNumber;
+    private String origin;
+    private String destination;
+    // Per-seat fare charged: the one recorded at booking time, else the flight's base fare
+    private double price;
+
+    public BookingDetails(int bookingId, int userId, int flightId, int numSeats, String bookingDate, String status,
+                          String flightNumber, String origin, String destination, double price) {
+        super(bookingId, userId, flightId, numSeats, bookingDate, status);
+        this.flightNumber = flightNumber;
+        this.origin = origin;
+        this.destination = destination;
+        this.price = price;
+    }
+
+    /**
+     * @return false if the booking points at a flight that no longer exists
+     */
+    public boolean hasFlight() {
+        return flightNumber != null;
+    }
+
+    /**
+     * @return Amount due: the per-seat fare multiplied by the number of booked seats
+     */
+    public double getTotalPrice() {
+        return price * getNumSeats();
+    }
+
+    // Getters
+    public String getFlightNumber() { return flightNumber; }
+    public String getOrigin() { return origin; }
+    public String getDestination() { return destination; }
+    public double getPrice() { return price; }
+
+    @Override
+    public String toString() {
+        if (!hasFlight()) {
+            return String.format("Booking ID: %d - Flight (Unknown - ID: %d) - Seats: %d - Status: %s",
+                getBookingId(), getFlightId(), getNumSeats(), getStatus());
+        }
+        return String.format("Booking ID: %d - Flight %s (%s to %s) - Seats: %d - Status: %s",
+            getBookingId(), flightNumber, origin, destination, getNumSeats(), getStatus());
+    }
+}
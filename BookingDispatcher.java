@@ -0,0 +1,155 @@
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs booking, cancellation and payment requests concurrently against one BookingSystem.
+ *
+ * Each request gets its own task: a virtual thread when the JDK provides them,
+ * otherwise a pooled platform thread (-Dflight.dispatch.threads, default 64).
+ * Writes are admitted through a fair semaphore sized to the group commit batch
+ * (GroupCommitWriter.MAX_BATCH), so a full batch of writes can be queued for
+ * one commit. Requests beyond that queue here, in arrival order and without
+ * a timeout. They do not pile up inside the writer, where they would hold
+ * threads and eventually time out. Blocking in the JDBC driver pins a virtual
+ * thread to its carrier, so the semaphore also bounds how many carriers a burst
+ * of writes can tie up.
+ */
+public class BookingDispatcher {
+    private static final int FALLBACK_THREADS = Integer.getInteger("flight.dispatch.threads", 64);
+
+    private final BookingSystem system;
+    private final ExecutorService executor;
+    private final Semaphore writePermits;
+
+    // Metrics
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong permitWaitNanos = new AtomicLong();
+
+    public BookingDispatcher(BookingSystem system) {
+        this(system, newRequestExecutor("booking-dispatch-", FALLBACK_THREADS));
+    }
+
+    /**
+     * @param executor Runs the requests; shut down by shutdown()
+     */
+    public BookingDispatcher(BookingSystem system, ExecutorService executor) {
+        this.system = system;
+        this.executor = executor;
+        // Writes go through the group commit queue, not straight to the single writer
+        // connection; one permit per batch slot lets concurrent writes share a commit
+        this.writePermits = new Semaphore(GroupCommitWriter.MAX_BATCH, true);
+    }
+
+    /**
+     * One virtual thread per task on JDK 21+, or a fixed pool of platform threads otherwise.
+     * Looked up reflectively so the project still builds on older JDKs.
+     * @param threadNamePrefix Name prefix for the fallback pool's threads
+     * @param fallbackThreads Size of the fallback pool
+     */
+    public static ExecutorService newRequestExecutor(String threadNamePrefix, int fallbackThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newFixedThreadPool(fallbackThreads, runnable -> {
+                Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // --- Requests ---
+
+    public CompletableFuture<ReservationResult> reserveBooking(User user, int flightId, int numSeats) {
+        return submitWrite(() -> system.reserveBooking(user, flightId, numSeats));
+    }
+
+    public CompletableFuture<int[]> cancelAndReleaseSeats(User user, int bookingId, int numSeatsToCancel) {
+        return submitWrite(() -> system.cancelAndReleaseSeats(user, bookingId, numSeatsToCancel));
+    }
+
+    public CompletableFuture<Boolean> cancelBooking(int bookingId) {
+        return submitWrite(() -> system.cancelBooking(bookingId));
+    }
+
+    public CompletableFuture<CancellationResult> cancelBookings(Collection<Integer> bookingIds) {
+        return submitWrite(() -> system.cancelBookings(bookingIds));
+    }
+
+    public CompletableFuture<Boolean> processPayment(int bookingId) {
+        return submitWrite(() -> system.processPayment(bookingId));
+    }
+
+    /**
+     * Runs a write on its own task once a writer permit is free
+     */
+    public <T> CompletableFuture<T> submitWrite(Supplier<T> write) {
+        return CompletableFuture.supplyAsync(() -> withWritePermit(write), executor);
+    }
+
+    /**
+     * Runs a write on the calling thread once a writer permit is free.
+     * For callers that already have a thread per request, such as the HTTP server.
+     */
+    public <T> T withWritePermit(Supplier<T> write) {
+        long start = System.nanoTime();
+        try {
+            writePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedCount.incrementAndGet();
+            throw new CompletionException("Interrupted while waiting to write", e);
+        }
+        permitWaitNanos.addAndGet(System.nanoTime() - start);
+        try {
+            T result = write.get();
+            completedCount.incrementAndGet();
+            return result;
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            throw e;
+        } finally {
+            writePermits.release();
+        }
+    }
+
+    /**
+     * Stops accepting requests and waits for queued ones to finish
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Metrics getters
+    public long getCompletedCount() { return completedCount.get(); }
+    public long getFailedCount() { return failedCount.get(); }
+    public int getQueuedWrites() { return writePermits.getQueueLength(); }
+
+    public double getAveragePermitWaitMicros() {
+        long writes = completedCount.get() + failedCount.get();
+        return writes == 0 ? 0 : permitWaitNanos.get() / 1000.0 / writes;
+    }
+
+    public String getMetricsSummary() {
+        return String.format("BookingDispatcher[completed=%d, failed=%d, queued=%d, avgPermitWait=%.1fus]",
+            getCompletedCount(), getFailedCount(), getQueuedWrites(), getAveragePermitWaitMicros());
+    }
+}
@@ -0,0 +1,371 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless HTTP front end for BookingSystem, for running bookings on server
+ * nodes without AWT. Built on the JDK's com.sun.net.httpserver, so it needs no
+ * extra libraries. Parameters come from the query string or a form-encoded
+ * body; responses are JSON.
+ *
+ *   GET  /flights/search?from=&to=&minPrice=&maxPrice=&seats=&limit=
+ *   POST /bookings              userId, flightId, seats
+ *   POST /bookings/{id}/cancel
+ *   POST /bookings/cancel       ids (comma-separated; all-or-nothing, e.g. for a cancelled flight:
+ *                               if any booking does not exist, none are cancelled)
+ *   POST /bookings/{id}/pay
+ *
+ * A database failure while booking, cancelling or paying is reported as 503, since
+ * retrying later may succeed; bad parameters are 400.
+ *
+ * There is no authentication, so it binds to localhost unless
+ * -Dflight.http.host says otherwise. Start it with: java BookingHttpServer
+ */
+public class BookingHttpServer {
+    private static final String HOST = System.getProperty("flight.http.host", "127.0.0.1");
+    private static final int PORT = Integer.getInteger("flight.http.port", 8080);
+    // Worker threads when virtual threads are not available
+    private static final int THREADS = Integer.getInteger("flight.http.threads", 32);
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+    private static final int MAX_SEARCH_LIMIT = 500;
+
+    private final BookingSystem system;
+    private final BookingDispatcher dispatcher;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public BookingHttpServer(BookingSystem system, InetSocketAddress address) throws IOException {
+        this.system = system;
+        this.server = HttpServer.create(address, 0);
+        this.executor = BookingDispatcher.newRequestExecutor("booking-http-", THREADS);
+        // Requests already have their own thread here; the dispatcher only meters the writes
+        this.dispatcher = new BookingDispatcher(system, executor);
+        server.setExecutor(executor);
+        server.createContext("/flights/search", exchange -> handle(exchange, "GET", this::searchFlights));
+        server.createContext("/bookings", exchange -> handle(exchange, "POST", this::bookingAction));
+    }
+
+    public static void main(String[] args) throws IOException {
+        BookingSystem system;
+        try {
+            system = new BookingSystem();
+        } catch (DatabaseUnavailableException e) {
+            System.err.println(e.getReason().getTitle() + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        BookingHttpServer server = new BookingHttpServer(system, new InetSocketAddress(HOST, PORT));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            system.getDbManager().close();
+        }));
+        server.start();
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("Booking HTTP server listening on " + server.getAddress());
+    }
+
+    /**
+     * Stops accepting requests and gives in-flight ones a moment to finish
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // --- Handlers ---
+
+    private interface Handler {
+        Response handle(HttpExchange exchange, Map<String, String> params) throws IOException;
+    }
+
+    // Status code plus JSON body
+    private static final class Response {
+        final int status;
+        final String json;
+
+        Response(int status, String json) {
+            this.status = status;
+            this.json = json;
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        Response response;
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                response = error(405, "Use " + method);
+            } else {
+                response = handler.handle(exchange, readParams(exchange));
+            }
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            response = error(500, "Internal error");
+        }
+
+        byte[] body = response.json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private Response searchFlights(HttpExchange exchange, Map<String, String> params) {
+        if (!"/flights/search".equals(exchange.getRequestURI().getPath())) {
+            return error(404, "Not found");
+        }
+        FlightSearchCriteria criteria = new FlightSearchCriteria(
+            params.get("from"),
+            params.get("to"),
+            doubleParam(params, "minPrice", 0),
+            doubleParam(params, "maxPrice", FlightSearchCriteria.ANY_MAX_PRICE),
+            intParam(params, "seats", 0));
+        int limit = Math.max(0, Math.min(MAX_SEARCH_LIMIT, intParam(params, "limit", DEFAULT_SEARCH_LIMIT)));
+        List<Flight> flights = system.searchFlights(criteria, limit);
+
+        StringBuilder json = new StringBuilder("{\"flights\":[");
+        for (int i = 0; i < flights.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendFlight(json, flights.get(i));
+        }
+        return new Response(200, json.append("]}").toString());
+    }
+
+    // POST /bookings creates; POST /bookings/{id}/cancel and /bookings/{id}/pay act on one booking
+    private Response bookingAction(HttpExchange exchange, Map<String, String> params) {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        if (path.length < 2 || !"bookings".equals(path[1])) {
+            return error(404, "Not found");
+        }
+        if (path.length == 2) {
+            return createBooking(params);
+        }
+        if (path.length == 3 && "cancel".equals(path[2])) {
+            return cancelBookings(params);
+        }
+        if (path.length != 4) {
+            return error(404, "Not found");
+        }
+        int bookingId = parseInt("booking id", path[2]);
+        switch (path[3]) {
+            case "cancel":
+                CancellationResult cancellation =
+                    dispatcher.withWritePermit(() -> system.cancelBookings(Collections.singletonList(bookingId)));
+                if (cancellation == null) {
+                    return error(503, "Cancellation failed; booking " + bookingId + " was not changed");
+                }
+                return cancellation.isCancelled(bookingId)
+                    ? new Response(200, "{\"bookingId\":" + bookingId + ",\"status\":\"Cancelled\"}")
+                    : error(404, "Booking " + bookingId + " not found");
+            case "pay":
+                switch (dispatcher.withWritePermit(() -> system.payBooking(bookingId))) {
+                    case UPDATED:
+                        return new Response(200, "{\"bookingId\":" + bookingId + ",\"status\":\"Paid\"}");
+                    case REJECTED:
+                        return error(404, "Booking " + bookingId + " not found");
+                    default:
+                        return error(503, "Payment could not be recorded; booking " + bookingId + " was not changed");
+                }
+            default:
+                return error(404, "Not found");
+        }
+    }
+
+    private Response createBooking(Map<String, String> params) {
+        int userId = requiredInt(params, "userId");
+        int flightId = requiredInt(params, "flightId");
+        int seats = requiredInt(params, "seats");
+        if (seats <= 0) {
+            throw new IllegalArgumentException("seats must be positive");
+        }
+        User user = system.getUserService().getUserById(userId);
+        if (user == null) {
+            return error(404, "User " + userId + " not found");
+        }
+
+        ReservationResult result = dispatcher.withWritePermit(() -> system.reserveBooking(user, flightId, seats));
+        switch (result.getStatus()) {
+            case RESERVED:
+                StringBuilder json = new StringBuilder();
+                appendBooking(json, result.getBooking());
+                return new Response(201, json.toString());
+            case SOLD_OUT:
+                return error(409, result.getMessage());
+            case FLIGHT_NOT_FOUND:
+                return error(404, result.getMessage());
+            default:
+                // The reservation transaction failed and booked nothing
+                return error(503, result.getMessage());
+        }
+    }
+
+    private Response cancelBookings(Map<String, String> params) {
+        String ids = params.get("ids");
+        if (ids == null || ids.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter: ids");
+        }
+        Set<Integer> bookingIds = new LinkedHashSet<>();
+        for (String id : ids.split(",")) {
+            bookingIds.add(parseInt("booking id", id.trim()));
+        }
+
+        CancellationResult result = dispatcher.withWritePermit(() -> system.cancelBookings(bookingIds, true));
+        if (result == null) {
+            return error(503, "Cancellation failed; no bookings were changed");
+        }
+        if (result.getCancelledCount() < bookingIds.size()) {
+            return error(404, "Not every booking exists; no bookings were changed");
+        }
+        StringBuilder json = new StringBuilder("{\"cancelled\":[");
+        List<Integer> cancelled = result.getCancelledBookingIds();
+        for (int i = 0; i < cancelled.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(cancelled.get(i));
+        }
+        return new Response(200, json.append("],\"seatsReleased\":").append(result.getTotalSeatsReleased()).append('}').toString());
+    }
+
+    // --- Request parsing ---
+
+    // Query string parameters, plus form fields from the body of a POST
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            try (InputStream in = exchange.getRequestBody()) {
+                parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+
+    private static void parseForm(String encoded, Map<String, String> params) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static int requiredInt(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return parseInt(name, value);
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        return value == null || value.isEmpty() ? defaultValue : parseInt(name, value);
+    }
+
+    private static double doubleParam(Map<String, String> params, String name, double defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+    }
+
+    // --- JSON ---
+
+    private static Response error(int status, String message) {
+        return new Response(status, "{\"error\":" + quote(message) + "}");
+    }
+
+    private static void appendFlight(StringBuilder json, Flight flight) {
+        json.append("{\"id\":").append(flight.getId())
+            .append(",\"flightNumber\":").append(quote(flight.getFlightNumber()))
+            .append(",\"origin\":").append(quote(flight.getDeparture()))
+            .append(",\"destination\":").append(quote(flight.getDestination()))
+            .append(",\"capacity\":").append(flight.getCapacity())
+            .append(",\"availableSeats\":").append(flight.getAvailableSeats())
+            .append(",\"price\":").append(flight.getPrice())
+            .append('}');
+    }
+
+    private static void appendBooking(StringBuilder json, Booking booking) {
+        json.append("{\"bookingId\":").append(booking.getBookingId())
+            .append(",\"userId\":").append(booking.getUserId())
+            .append(",\"flightId\":").append(booking.getFlightId())
+            .append(",\"seats\":").append(booking.getNumSeats())
+            .append(",\"bookingDate\":").append(quote(booking.getBookingDate()))
+            .append(",\"status\":").append(quote(booking.getStatus()));
+        if (booking.hasFare()) {
+            json.append(",\"fare\":").append(booking.getFare());
+        }
+        json.append('}');
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
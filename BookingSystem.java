@@ -1,15 +1,31 @@
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class BookingSystem {
-    private ArrayList<Flight> flights;
+    private FlightInventory inventory;
+    private ConnectionFinder connectionFinder; // Cached route graph; invalidated whenever a flight changes
     private DatabaseManager dbManager;
+    // Per-flight locks: seat changes share a flight, absolute writes to it are exclusive
+    private final FlightLocks flightLocks = new FlightLocks();
     private PassengerService passengerService;
     private UserService userService;
+    // Attempts for a compare-and-set update before giving up on a busy row
+    private static final int MAX_UPDATE_ATTEMPTS = Integer.getInteger("flight.update.maxAttempts", 5);
 
     public BookingSystem() {
-        flights = new ArrayList<>();
-        dbManager = new DatabaseManager();
+        this(new DatabaseManager());
+    }
+
+    // Runs against the given database (e.g. a temporary one for benchmarks)
+    public BookingSystem(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        inventory = new FlightInventory(dbManager.getPricingEngine());
+        connectionFinder = new ConnectionFinder(inventory, dbManager);
         passengerService = new PassengerService(dbManager);
         userService = new UserService(dbManager);
         dbManager.loadFlights(this);
@@ -17,45 +33,94 @@ public class BookingSystem {
 
     // This method is for adding a loaded flight during initialization
     public void addFlightLoaded(Flight flight) {
-        flights.add(flight);
+        inventory.put(flight);
+        connectionFinder.invalidate();
     }
 
     // This method is for adding a *new* flight created by the user/system
     public void addNewFlight(Flight flight) {
-        flights.add(flight);
         dbManager.saveFlight(flight);
+        inventory.put(flight);
+        connectionFinder.invalidate();
     }
 
+    // O(1) lookup in the in-memory inventory
     public Flight findFlight(String flightNumber) {
-        for (Flight flight : flights) {
-            if (flight.getFlightNumber().equals(flightNumber)) {
-                return flight;
-            }
-        }
-        return null;
+        return inventory.findByNumber(flightNumber);
     }
 
+    // Served from the in-memory inventory, which is kept in sync on every write path
     public ArrayList<Flight> getAllFlights() {
-        // Fetch flights directly from the database
-        return dbManager.getAllFlightsFromDB();
+        return inventory.getAll();
+    }
+
+    // One page of flights ordered by ID, continuing after afterFlightId (in memory)
+    public List<Flight> getFlightsPage(int afterFlightId, int limit) {
+        return inventory.getPage(afterFlightId, limit);
+    }
+
+    /**
+     * Searches flights by route, price range and free seats, cheapest first.
+     * Served from the in-memory search index; falls back to SQL if the inventory is not loaded.
+     * @param criteria The search filters
+     * @param limit Maximum number of flights to return
+     * @return Matching flights
+     */
+    public List<Flight> searchFlights(FlightSearchCriteria criteria, int limit) {
+        if (inventory.isEmpty()) {
+            return dbManager.searchFlights(criteria, limit);
+        }
+        return inventory.search(criteria, limit);
+    }
+
+    /**
+     * Finds direct and connecting itineraries between two cities, best first
+     * @param maxStops Maximum number of connections; 0 for direct flights only
+     * @param seats Seats needed on every leg
+     * @param rankBy Rank by total price or total distance
+     * @param maxResults Maximum number of itineraries to return
+     */
+    public List<Itinerary> findConnections(String origin, String destination, int maxStops, int seats,
+                                           ConnectionFinder.RankBy rankBy, int maxResults) {
+        return connectionFinder.findConnections(origin, destination, maxStops, seats, rankBy, maxResults);
+    }
+
+    // Rebuilds the in-memory inventory from the database (e.g. after external changes).
+    // Seat changes are held off from the snapshot until the swap; a booking committed in
+    // between would otherwise be missing from the new Flight objects.
+    public void reloadFlights() {
+        flightLocks.withAllExclusive(() -> {
+            inventory.load(dbManager.getAllFlightsFromDB());
+            return null;
+        });
+        connectionFinder.invalidate();
     }
 
     public void displayAllFlights() {
-        if (flights.isEmpty()) {
+        if (inventory.isEmpty()) {
             System.out.println("No flights available.");
             return;
         }
-        for (Flight flight : flights) {
+        for (Flight flight : inventory.getAll()) {
             System.out.println(flight);
         }
     }
 
     public void updateFlightInDatabase(Flight flight) {
-        dbManager.updateFlightSeats(flight.getFlightNumber(), flight.getBookedSeats());
+        flightLocks.withExclusive(flight.getId(), () -> {
+            dbManager.updateFlightSeats(flight.getFlightNumber(), flight.getBookedSeats());
+            Flight indexed = inventory.findByNumber(flight.getFlightNumber());
+            if (indexed != null && indexed != flight) {
+                indexed.setBookedSeats(flight.getBookedSeats());
+                inventory.reindexPrice(indexed);
+            }
+            return null;
+        });
     }
 
+    // O(1) lookup in the in-memory inventory
     public Flight findFlightById(int flightId) {
-        return dbManager.getFlightById(flightId);
+        return inventory.findById(flightId);
     }
 
     // Getter for the DatabaseManager instance
@@ -63,52 +128,73 @@ public class BookingSystem {
         return dbManager;
     }
 
-    // Method to handle creating a booking for a user
-    public boolean createBooking(User user, int flightId, int numSeats) {
+    // Method to handle creating a booking for a user.
+    // Returns the new booking with its generated ID, or null if nothing was booked.
+    public Booking createBooking(User user, int flightId, int numSeats) {
+        return reserveBooking(user, flightId, numSeats).getBooking();
+    }
+
+    // Reserves seats and creates the booking atomically. The seat check, the seat
+    // increment and the booking insert all happen in one database transaction, so
+    // concurrent bookings cannot oversell a flight.
+    public ReservationResult reserveBooking(User user, int flightId, int numSeats) {
+        return reserveBooking(user, flightId, numSeats, Collections.emptyList());
+    }
+
+    // Same as reserveBooking, but the passengers are saved in the same transaction as the
+    // seats and the booking: if any of them cannot be saved, nothing is booked.
+    public ReservationResult reserveBooking(User user, int flightId, int numSeats, List<Passenger> passengers) {
         if (user == null) {
             System.err.println("Cannot create booking: User is null.");
-            return false;
+            return ReservationResult.failed("User is null");
+        }
+        for (Passenger passenger : passengers) {
+            if (!passengerService.validatePassengerInfo(passenger.getName(), passenger.getPassportNumber(),
+                    passenger.getDateOfBirth())) {
+                System.err.println("Cannot create booking: invalid passenger details.");
+                return ReservationResult.failed("Invalid passenger details");
+            }
         }
-         // Get the flight to validate availability before creating the booking record
-         Flight flight = dbManager.getFlightById(flightId);
-         if (flight == null) {
-             System.err.println("Cannot create booking: Flight not found with ID " + flightId);
-             return false;
-         }
-
-         if (flight.getAvailableSeats() < numSeats) {
-             System.err.println("Cannot create booking: Not enough seats available on flight " + flight.getFlightNumber());
-             return false;
-         }
 
-        // Create the booking object with default "Pending" status
+        // Create the booking object with default "Pending" status.
+        // Seats are held as soon as the booking exists (even if pending).
         Booking booking = new Booking(user.getId(), flightId, numSeats);
-        // Save the booking to the database
-        boolean success = dbManager.saveBooking(booking);
-
-        if (success) {
-            // For now, flight seats are updated immediately upon booking creation (even if pending)
-            // In a more complex system, this update might happen upon payment confirmation.
-            // Let's keep it simple and update seats now.
-            flight.setBookedSeats(flight.getBookedSeats() + numSeats);
-            dbManager.updateFlightSeats(flight.getFlightNumber(), flight.getBookedSeats());
+        ReservationResult result = flightLocks.withSeatChange(flightId, () -> {
+            // Record the live fare the customer was quoted; payment charges this, not a later fare
+            Flight flight = inventory.findById(flightId);
+            if (flight != null) {
+                booking.setFare(flight.getPrice());
+            }
+            ReservationResult reservation = dbManager.reserveSeats(booking, passengers);
+            if (reservation.isReserved()) {
+                inventory.adjustBookedSeats(flightId, numSeats);
+            }
+            return reservation;
+        });
+        if (!result.isReserved()) {
+            System.err.println("Cannot create booking: " + result.getMessage());
         }
-
-        return success;
+        return result;
     }
 
     // New method to update booking status (called after successful payment)
     public boolean processPayment(int bookingId) {
+        return payBooking(bookingId) == DatabaseManager.UpdateStatus.UPDATED;
+    }
+
+    // Marks a booking paid. Returns UPDATED, REJECTED if the booking does not exist,
+    // or FAILED on a database error, so callers can tell a missing booking from an outage.
+    public DatabaseManager.UpdateStatus payBooking(int bookingId) {
         // In a real system, this would involve payment gateway integration.
         // Here, we'll just update the booking status to "Paid".
         System.out.println("Processing payment for booking ID: " + bookingId);
-        boolean success = dbManager.updateBookingStatus(bookingId, "Paid");
-        if (success) {
+        DatabaseManager.UpdateStatus status = dbManager.setBookingStatus(bookingId, "Paid");
+        if (status == DatabaseManager.UpdateStatus.UPDATED) {
              System.out.println("Payment successful for booking ID: " + bookingId + ". Status updated to Paid.");
         } else {
              System.out.println("Payment processing failed for booking ID: " + bookingId + ". Status not updated.");
         }
-        return success;
+        return status;
     }
 
     // Method to get bookings for a specific user
@@ -120,14 +206,35 @@ public class BookingSystem {
         return dbManager.getUserBookings(user.getId());
     }
 
-    // Method to handle cancelling seats from a booking for a user
-    public int[] cancelBookingSeats(User user, int bookingId, int numSeatsToCancel) {
+    // Bookings for a user joined with flight number, route and price (one query)
+    public List<BookingDetails> getUserBookingDetails(User user) {
          if (user == null) {
-             System.err.println("Cannot cancel booking seats: User is null.");
-             return null;
+             System.err.println("Cannot get user bookings: User is null.");
+             return new ArrayList<>();
          }
-        // The dbManager.cancelBooking method already verifies user ownership
-        return dbManager.cancelBooking(bookingId, user.getId(), numSeatsToCancel);
+        return dbManager.getUserBookingDetails(user.getId());
+    }
+
+    // Cancels seats from a user's booking and releases them on the flight, in one
+    // database transaction that also checks the booking belongs to the user.
+    // Returns {flightId, seatsCancelled}, or null if nothing was cancelled.
+    public int[] cancelAndReleaseSeats(User user, int bookingId, int numSeatsToCancel) {
+        if (user == null) {
+            System.err.println("Cannot cancel booking seats: User is null.");
+            return null;
+        }
+        Booking booking = dbManager.getBookingById(bookingId);
+        if (booking == null) {
+            System.err.println("Cannot cancel booking seats: Booking " + bookingId + " not found.");
+            return null;
+        }
+        return flightLocks.withSeatChange(booking.getFlightId(), () -> {
+            int[] cancellationResult = dbManager.cancelBooking(bookingId, user.getId(), numSeatsToCancel);
+            if (cancellationResult != null) {
+                inventory.adjustBookedSeats(cancellationResult[0], -cancellationResult[1]);
+            }
+            return cancellationResult;
+        });
     }
 
     // --- Agent Functionalities ---
@@ -140,34 +247,94 @@ public class BookingSystem {
             System.out.println("Flight with number " + flight.getFlightNumber() + " already exists.");
             return false;
         }
-        // Save the new flight to the database
-        dbManager.saveFlight(flight);
-        // Note: We might need to decide if we update the in-memory list here or rely on reloading flights
-        // For now, let's just save to DB and rely on refreshing the GUI which calls getAllFlights (from DB).
+        // Save the new flight to the database, then index it (saveFlight sets the generated ID)
+        if (!dbManager.saveFlight(flight)) {
+            System.out.println("Flight " + flight.getFlightNumber() + " could not be saved.");
+            return false;
+        }
+        inventory.put(flight);
+        connectionFinder.invalidate();
         System.out.println("Flight " + flight.getFlightNumber() + " added.");
         return true;
     }
 
-    // Method for Agent to update an existing flight
+    // Method for Agent to bulk-load a schedule file (.csv or .json) in one transaction.
+    // Returns the import summary, or null if the file was rejected and nothing was imported.
+    public FlightScheduleImporter.Summary importFlightSchedule(Path file, FlightScheduleImporter.ProgressListener listener) {
+        FlightScheduleImporter.Summary summary = new FlightScheduleImporter(dbManager).importFile(file, listener);
+        if (summary != null && summary.getFlightsWritten() > 0) {
+            // Imports insert and replace flights wholesale; pick them up from the database
+            reloadFlights();
+        }
+        return summary;
+    }
+
+    // Method for Agent to update an existing flight.
+    // The flight carries the ID and version the agent started from (callers that do not
+    // set them edit the current version). The database update is compare-and-set, so an
+    // edit based on a stale copy is refused rather than overwriting someone else's change.
+    // Booked seats and fare buckets are never taken from the edited flight.
     public boolean updateFlight(Flight flight) {
          System.out.println("BookingSystem: updateFlight called");
         // Check if the flight exists before updating
-         if (dbManager.getFlightId(flight.getFlightNumber()) == -1) { // Use getFlightId to check existence by number
+        Flight existing = findFlight(flight.getFlightNumber());
+         if (existing == null) {
              System.out.println("Flight with number " + flight.getFlightNumber() + " not found for update.");
              return false;
          }
-        // Save (update) the flight in the database
-        dbManager.saveFlight(flight); // saveFlight handles both insert and replace (update)
+        if (flight.getId() < 0) {
+            flight.setId(existing.getId());
+            flight.setVersion(existing.getVersion());
+        }
+        DatabaseManager.UpdateStatus status = dbManager.updateFlight(flight);
+        if (status != DatabaseManager.UpdateStatus.UPDATED) {
+            System.out.println("Flight " + flight.getFlightNumber() + " not updated: " + (status == DatabaseManager.UpdateStatus.CONFLICT
+                ? "it was changed by someone else" : "capacity is below booked seats or the update failed"));
+            return false;
+        }
+        // Swap in the new object only; the exclusive lock waits for in-flight seat changes
+        // so the booked count copied here is current
+        flightLocks.withExclusive(existing.getId(), () -> {
+            flight.setFareBuckets(existing.getFareBuckets());
+            flight.setBookedSeats(existing.getBookedSeats());
+            inventory.put(flight);
+            return null;
+        });
+        connectionFinder.invalidate();
          System.out.println("Flight " + flight.getFlightNumber() + " updated.");
         return true;
     }
 
+    // Method for Agent to change a flight's load-factor fare buckets (null for the default ones).
+    // The live fare is repriced at once from the flight's current seat count.
+    public boolean setFareBuckets(String flightNumber, FareBuckets buckets) {
+        Flight existing = findFlight(flightNumber);
+        if (existing == null) {
+            System.out.println("Flight with number " + flightNumber + " not found.");
+            return false;
+        }
+        boolean success = flightLocks.withExclusive(existing.getId(), () -> {
+            if (!dbManager.updateFareBuckets(existing.getId(), buckets)) {
+                return false;
+            }
+            existing.setFareBuckets(buckets);
+            existing.setVersion(existing.getVersion() + 1);
+            inventory.reindexPrice(existing);
+            return true;
+        });
+        if (success) {
+            connectionFinder.invalidate();
+            System.out.println("Fare buckets for flight " + flightNumber + " set to " + buckets);
+        }
+        return success;
+    }
+
     // Method for Agent to delete a flight
     public boolean deleteFlight(String flightNumber) {
          System.out.println("BookingSystem: deleteFlight called");
         // Check if the flight exists before deleting
-         int flightId = dbManager.getFlightId(flightNumber);
-         if (flightId == -1) {
+        Flight existing = findFlight(flightNumber);
+         if (existing == null) {
              System.out.println("Flight with number " + flightNumber + " not found for deletion.");
              return false;
          }
@@ -175,21 +342,29 @@ public class BookingSystem {
         // For simplicity now, we'll just delete the flight.
 
         // Delete the flight from the database
-        boolean success = dbManager.deleteFlight(flightNumber); // Need a deleteFlight method in DatabaseManager
+        boolean success = flightLocks.withExclusive(existing.getId(), () -> {
+            boolean deleted = dbManager.deleteFlight(flightNumber); // Need a deleteFlight method in DatabaseManager
+            if (deleted) {
+                inventory.remove(flightNumber);
+            }
+            return deleted;
+        });
          if (success) {
+             connectionFinder.invalidate();
              System.out.println("Flight " + flightNumber + " deleted.");
          }
         return success;
     }
 
-    // Method for Agent to create a booking for a specific customer
-    public boolean createBookingForCustomer(String customerUsername, int flightId, int numSeats) {
+    // Method for Agent to create a booking for a specific customer.
+    // Returns the new booking, or null if the customer is unknown or nothing was booked.
+    public Booking createBookingForCustomer(String customerUsername, int flightId, int numSeats) {
         System.out.println("BookingSystem: createBookingForCustomer called");
         // Find the customer user first
         User customer = dbManager.getUserByUsername(customerUsername); // Need a getUserByUsername method in DatabaseManager
         if (customer == null || !"Customer".equals(customer.getRole())) {
             System.out.println("Customer user '" + customerUsername + "' not found or is not a customer.");
-            return false;
+            return null;
         }
 
         // Then use the existing createBooking logic with the customer user
@@ -203,66 +378,77 @@ public class BookingSystem {
         return dbManager.getAllBookings(); // Need getAllBookings method in DatabaseManager
     }
 
+    // All bookings joined with flight number, route and price (one query)
+    public List<BookingDetails> getAllBookingDetails() {
+        return dbManager.getAllBookingDetails();
+    }
+
+    // One page of booking details after afterBookingId (keyset pagination)
+    public List<BookingDetails> getBookingDetailsPage(int afterBookingId, int limit) {
+        return dbManager.getBookingDetailsPage(afterBookingId, limit);
+    }
+
     // Method for Agent to cancel any booking by booking ID
     public boolean cancelBooking(int bookingId) {
         System.out.println("BookingSystem: cancelBooking (by Agent) called for booking ID " + bookingId);
-         // Need a method in DatabaseManager to cancel booking by ID without user check (for Agent)
-        // Or, we can reuse the existing cancelBooking method in DatabaseManager
-        // which checks user ID, and pass the booking's actual user ID.
-        // Let's add a specific method in DatabaseManager for Agent cancellation.
-
-        // Alternative: Modify DatabaseManager.cancelBooking to accept an 'agent' flag or similar.
-        // Let's add a new method in DatabaseManager: agentCancelBooking(int bookingId).
-
-         // Need to implement agentCancelBooking in DatabaseManager
-        int[] cancellationResult = dbManager.agentCancelBooking(bookingId);
-
-         if (cancellationResult != null && cancellationResult.length == 2) {
-             int flightIdToUpdate = cancellationResult[0];
-             int actualSeatsCancelled = cancellationResult[1];
-
-             // Update the flight's booked seats count in the database
-             Flight flight = dbManager.getFlightById(flightIdToUpdate);
-             if (flight != null) {
-                 flight.setBookedSeats(flight.getBookedSeats() - actualSeatsCancelled);
-                 dbManager.updateFlightSeats(flight.getFlightNumber(), flight.getBookedSeats());
-             }
-             return true; // Success
-         }
-        return false; // Failure
+        CancellationResult result = cancelBookings(Collections.singletonList(bookingId));
+        return result != null && result.isCancelled(bookingId);
+    }
+
+    /**
+     * Cancels many bookings at once, e.g. everything on a disrupted flight. The
+     * bookings are deleted and their seats released in one database transaction,
+     * then the in-memory inventory is adjusted to match.
+     * @return What was cancelled, or null if the transaction failed and nothing changed
+     */
+    public CancellationResult cancelBookings(Collection<Integer> bookingIds) {
+        return cancelBookings(bookingIds, false);
+    }
+
+    /**
+     * @param allOrNothing If set, cancel nothing unless every booking exists
+     */
+    public CancellationResult cancelBookings(Collection<Integer> bookingIds, boolean allOrNothing) {
+        Set<Integer> flightIds = dbManager.getFlightIdsForBookings(bookingIds);
+        return flightLocks.withSeatChanges(flightIds, () -> {
+            CancellationResult result = dbManager.cancelBookings(bookingIds, allOrNothing);
+            if (result != null) {
+                for (Map.Entry<Integer, Integer> released : result.getSeatsReleasedByFlight().entrySet()) {
+                    inventory.adjustBookedSeats(released.getKey(), -released.getValue());
+                }
+            }
+            return result;
+        });
     }
 
     // --- Administrator Functionalities (Placeholder Methods) ---
     // Moved to Administrator.java
 
+    // Changes a booking's seat count; the booking and the flight's seats change together.
+    // Optimistic: decides from a fresh read, writes only if the booking is still at that
+    // version, and starts over if a concurrent change got there first.
     public boolean modifyBooking(int bookingId, int newNumSeats) {
-        try {
-            // Get the current booking
+        for (int attempt = 1; attempt <= MAX_UPDATE_ATTEMPTS; attempt++) {
             Booking booking = dbManager.getBookingById(bookingId);
             if (booking == null) {
                 return false;
             }
-
-            // Get the flight
-            Flight flight = dbManager.getFlightById(booking.getFlightId());
-            if (flight == null) {
-                return false;
-            }
-
-            // Calculate the difference in seats
-            int seatDifference = newNumSeats - booking.getNumSeats();
-            
-            // Check if we can accommodate the new number of seats
-            if (flight.getAvailableSeats() < seatDifference) {
-                return false;
+            int seatDelta = newNumSeats - booking.getNumSeats();
+
+            DatabaseManager.UpdateStatus status = flightLocks.withSeatChange(booking.getFlightId(), () -> {
+                DatabaseManager.UpdateStatus update = dbManager.updateBooking(bookingId, booking.getVersion(), newNumSeats);
+                if (update == DatabaseManager.UpdateStatus.UPDATED) {
+                    inventory.adjustBookedSeats(booking.getFlightId(), seatDelta);
+                }
+                return update;
+            });
+            if (status != DatabaseManager.UpdateStatus.CONFLICT) {
+                return status == DatabaseManager.UpdateStatus.UPDATED;
             }
-
-            // Update the booking in the database
-            return dbManager.updateBooking(bookingId, newNumSeats);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+            System.out.println("Booking " + bookingId + " changed concurrently; retrying modify (attempt " + attempt + ")");
         }
+        System.err.println("Gave up modifying booking " + bookingId + " after " + MAX_UPDATE_ATTEMPTS + " conflicting attempts");
+        return false;
     }
 
     // Add getter for PassengerService
@@ -0,0 +1,44 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of cancelling one or more bookings: the bookings that were removed
+ * and the seats handed back to each flight, all committed in one transaction.
+ * Booking IDs that did not exist are simply absent from the result.
+ */
+public class CancellationResult {
+    private final List<Integer> cancelledBookingIds;
+    private final Map<Integer, Integer> seatsReleasedByFlight;
+
+    public CancellationResult(List<Integer> cancelledBookingIds, Map<Integer, Integer> seatsReleasedByFlight) {
+        this.cancelledBookingIds = Collections.unmodifiableList(cancelledBookingIds);
+        this.seatsReleasedByFlight = Collections.unmodifiableMap(seatsReleasedByFlight);
+    }
+
+    public int getCancelledCount() {
+        return cancelledBookingIds.size();
+    }
+
+    public boolean isCancelled(int bookingId) {
+        return cancelledBookingIds.contains(bookingId);
+    }
+
+    public int getTotalSeatsReleased() {
+        int total = 0;
+        for (int seats : seatsReleasedByFlight.values()) {
+            total += seats;
+        }
+        return total;
+    }
+
+    // Getters
+    public List<Integer> getCancelledBookingIds() { return cancelledBookingIds; }
+    public Map<Integer, Integer> getSeatsReleasedByFlight() { return seatsReleasedByFlight; }
+
+    @Override
+    public String toString() {
+        return "Cancelled " + getCancelledCount() + " booking(s), released " + getTotalSeatsReleased()
+            + " seat(s) on " + seatsReleasedByFlight.size() + " flight(s)";
+    }
+}
@@ -0,0 +1,229 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Finds connecting itineraries over the route graph formed by the flight inventory.
+ * The graph (city -> city -> flights) is built on first use and cached until
+ * BookingSystem invalidates it on a flight add, update or delete. Seat counts
+ * and live fares are read from the Flight objects at search time, so bookings
+ * do not invalidate it even though they move fares.
+ *
+ * Searches run A* over partial itineraries: they expand the one with the lowest
+ * cost so far plus a haversine lower bound for the rest of the trip, so complete
+ * itineraries come out best first and the search stops after maxResults.
+ */
+public class ConnectionFinder {
+    public enum RankBy { PRICE, DISTANCE }
+
+    private final FlightInventory inventory;
+    private final DatabaseManager dbManager;
+    private volatile RouteGraph graph;
+
+    public ConnectionFinder(FlightInventory inventory, DatabaseManager dbManager) {
+        this.inventory = inventory;
+        this.dbManager = dbManager;
+    }
+
+    /**
+     * Drops the cached graph; the next search rebuilds it from the inventory
+     */
+    public void invalidate() {
+        graph = null;
+    }
+
+    /**
+     * Finds the best itineraries between two cities
+     * @param origin Departure city (case-insensitive)
+     * @param destination Arrival city (case-insensitive)
+     * @param maxStops Maximum number of connections; 0 for direct flights only
+     * @param seats Seats that must be available on every leg
+     * @param rankBy Whether to minimize total price or total distance
+     * @param maxResults Maximum number of itineraries to return
+     * @return Itineraries ordered best first; no itinerary visits a city twice
+     */
+    public List<Itinerary> findConnections(String origin, String destination, int maxStops, int seats,
+                                           RankBy rankBy, int maxResults) {
+        String from = FlightSearchCriteria.normalize(origin);
+        String to = FlightSearchCriteria.normalize(destination);
+        List<Itinerary> results = new ArrayList<>();
+        if (from.isEmpty() || from.equals(to) || maxStops < 0 || maxResults <= 0) {
+            return results;
+        }
+
+        RouteGraph routes = getGraph();
+        Map<String, Double> estimates = new HashMap<>(); // Heuristic per city for this destination
+        PriorityQueue<Path> open = new PriorityQueue<>(
+            Comparator.comparingDouble((Path path) -> path.estimate).thenComparingDouble(path -> path.price));
+        open.add(new Path(null, null, from, 0, 0, 0, 0));
+
+        while (!open.isEmpty() && results.size() < maxResults) {
+            Path path = open.poll();
+            if (path.city.equals(to)) {
+                results.add(path.toItinerary());
+                continue;
+            }
+            for (Map.Entry<String, List<Leg>> departure : routes.departuresFrom(path.city).entrySet()) {
+                String next = departure.getKey();
+                // The last allowed leg has to land at the destination
+                if (path.visits(next) || (path.legCount == maxStops && !next.equals(to))) {
+                    continue;
+                }
+                double estimate = estimates.computeIfAbsent(next, city -> routes.lowerBound(city, to, rankBy));
+                int added = 0;
+                for (Leg leg : cheapestFirst(departure.getValue(), maxResults)) {
+                    if (rankBy == RankBy.DISTANCE && leg.distanceKm < 0) {
+                        break; // Unknown coordinates; every flight on this city pair is the same distance
+                    }
+                    if (leg.flight.getAvailableSeats() < seats) {
+                        continue;
+                    }
+                    // Legs come cheapest first, so more than maxResults of them can't all be needed
+                    open.add(path.extend(leg, rankBy, estimate));
+                    if (++added == maxResults) {
+                        break;
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    // The flights of one city pair ordered by their live fare now. Fares move with every
+    // booking, so this is decided per search; a pair with few flights needs no ordering.
+    // Fares are read once up front so a booking during the sort cannot reorder it.
+    private static List<Leg> cheapestFirst(List<Leg> legs, int maxResults) {
+        if (legs.size() <= maxResults) {
+            return legs;
+        }
+        double[] fares = new double[legs.size()];
+        List<Integer> order = new ArrayList<>(legs.size());
+        for (int i = 0; i < fares.length; i++) {
+            fares[i] = legs.get(i).flight.getPrice();
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(i -> fares[i]));
+        List<Leg> sorted = new ArrayList<>(legs.size());
+        for (int i : order) {
+            sorted.add(legs.get(i));
+        }
+        return sorted;
+    }
+
+    private RouteGraph getGraph() {
+        RouteGraph current = graph;
+        if (current == null) {
+            synchronized (this) {
+                current = graph;
+                if (current == null) {
+                    current = new RouteGraph(inventory.getAll());
+                    graph = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // One flight in the graph with its precomputed great-circle distance
+    private static final class Leg {
+        final Flight flight;
+        final double distanceKm;
+
+        Leg(Flight flight, double distanceKm) {
+            this.flight = flight;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    // Adjacency index: origin city -> destination city -> flights
+    private final class RouteGraph {
+        private final Map<String, Map<String, List<Leg>>> departures = new HashMap<>();
+        // Lowest price per kilometer on any flight; turns a distance into a price lower bound
+        private final double minPricePerKm;
+
+        RouteGraph(List<Flight> flights) {
+            double minRate = Double.MAX_VALUE;
+            Map<String, Double> pairDistances = new HashMap<>();
+            for (Flight flight : flights) {
+                String from = FlightSearchCriteria.normalize(flight.getDeparture());
+                String to = FlightSearchCriteria.normalize(flight.getDestination());
+                if (from.equals(to)) {
+                    continue;
+                }
+                double distance = pairDistances.computeIfAbsent(from + '\u0000' + to,
+                    pair -> dbManager.getDistanceKm(flight.getDeparture(), flight.getDestination()));
+                // A flight between unknown cities has no price bound, so the price heuristic is turned off.
+                // Live fares move with the load factor, so bound by the lowest fare the flight can reach.
+                minRate = Math.min(minRate, distance > 0 ? flight.getLowestFare() / distance : 0);
+                departures.computeIfAbsent(from, city -> new HashMap<>())
+                    .computeIfAbsent(to, city -> new ArrayList<>())
+                    .add(new Leg(flight, distance));
+            }
+            minPricePerKm = flights.isEmpty() ? 0 : Math.max(0, minRate);
+        }
+
+        Map<String, List<Leg>> departuresFrom(String city) {
+            return departures.getOrDefault(city, Collections.emptyMap());
+        }
+
+        // Admissible estimate of the remaining cost: flying direct is never longer than any connection
+        double lowerBound(String city, String destination, RankBy rankBy) {
+            double distance = dbManager.getDistanceKm(city, destination);
+            if (distance < 0) {
+                return 0;
+            }
+            return rankBy == RankBy.DISTANCE ? distance : distance * minPricePerKm;
+        }
+    }
+
+    // A partial itinerary; immutable and shares its prefix with the path it was extended from
+    private static final class Path {
+        final Path parent;
+        final Leg leg;
+        final String city;
+        final int legCount;
+        final double price;
+        final double distanceKm;
+        final double estimate; // Cost so far plus lower bound for the rest
+
+        Path(Path parent, Leg leg, String city, int legCount, double price, double distanceKm, double estimate) {
+            this.parent = parent;
+            this.leg = leg;
+            this.city = city;
+            this.legCount = legCount;
+            this.price = price;
+            this.distanceKm = distanceKm;
+            this.estimate = estimate;
+        }
+
+        Path extend(Leg next, RankBy rankBy, double remainingEstimate) {
+            double newPrice = price + next.flight.getPrice();
+            double newDistance = distanceKm < 0 || next.distanceKm < 0 ? -1 : distanceKm + next.distanceKm;
+            double cost = rankBy == RankBy.DISTANCE ? newDistance : newPrice;
+            return new Path(this, next, FlightSearchCriteria.normalize(next.flight.getDestination()),
+                legCount + 1, newPrice, newDistance, cost + remainingEstimate);
+        }
+
+        boolean visits(String other) {
+            for (Path path = this; path != null; path = path.parent) {
+                if (path.city.equals(other)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Itinerary toItinerary() {
+            LinkedList<Flight> flights = new LinkedList<>();
+            for (Path path = this; path.leg != null; path = path.parent) {
+                flights.addFirst(path.leg.flight);
+            }
+            return new Itinerary(new ArrayList<>(flights), price, distanceKm);
+        }
+    }
+}
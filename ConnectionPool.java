@@ -0,0 +1,443 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small fixed-size JDBC connection pool for the SQLite store.
+ * SQLite allows many readers but only one writer at a time, so the pool keeps a
+ * single writer connection and a configurable number of read-only connections.
+ * Connections handed out are wrappers: calling close() returns them to the pool.
+ *
+ * Each physical connection also keeps an LRU cache of prepared statements keyed
+ * by SQL text (-Dflight.db.statementCacheSize, default 64; 0 turns it off).
+ * prepareStatement(sql) on a borrowed connection hands out a cached statement
+ * when there is one, and closing it resets the statement and puts it back, so
+ * the same SQL is parsed and planned once per connection instead of per call.
+ */
+public class ConnectionPool {
+    // SQLite has a single writer; more writer connections would only wait on its lock
+    public static final int WRITE_POOL_SIZE = 1;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    public static final long DEFAULT_BORROW_TIMEOUT_MS = 10_000;
+    // Prepared statements cached per connection; override with -Dflight.db.statementCacheSize=N (0 disables)
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = Integer.getInteger("flight.db.statementCacheSize", 64);
+
+    private final String url;
+    private final int readPoolSize;
+    private final long borrowTimeoutMs;
+    private final int statementCacheSize;
+    private final Slot readSlot;
+    private final Slot writeSlot;
+    private volatile boolean closed = false;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    public ConnectionPool(String url, int readPoolSize) {
+        this(url, readPoolSize, DEFAULT_BORROW_TIMEOUT_MS);
+    }
+
+    public ConnectionPool(String url, int readPoolSize, long borrowTimeoutMs) {
+        this(url, readPoolSize, borrowTimeoutMs, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public ConnectionPool(String url, int readPoolSize, long borrowTimeoutMs, int statementCacheSize) {
+        if (readPoolSize < 1) {
+            throw new IllegalArgumentException("Read pool size must be at least 1: " + readPoolSize);
+        }
+        this.url = url;
+        this.readPoolSize = readPoolSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.readSlot = new Slot(readPoolSize, true);
+        this.writeSlot = new Slot(WRITE_POOL_SIZE, false);
+    }
+
+    /**
+     * Borrows a read-only connection. Close it to hand it back.
+     */
+    public Connection borrowRead() throws SQLException {
+        return borrow(readSlot);
+    }
+
+    /**
+     * Borrows the writer connection. Only one caller holds it at a time, so
+     * writes are serialized in-process instead of failing with "database is locked".
+     */
+    public Connection borrowWrite() throws SQLException {
+        return borrow(writeSlot);
+    }
+
+    private Connection borrow(Slot slot) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!slot.permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMs + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        borrowWaitNanos.addAndGet(System.nanoTime() - start);
+        borrowCount.incrementAndGet();
+
+        try {
+            PooledConnection pooled = slot.idle.poll();
+            // Validate on borrow and replace connections that went bad while idle
+            while (pooled != null && !isUsable(pooled.physical)) {
+                discard(pooled);
+                pooled = slot.idle.poll();
+            }
+            if (pooled == null) {
+                pooled = new PooledConnection(open(slot.readOnly));
+            }
+            return wrap(pooled, slot);
+        } catch (SQLException | RuntimeException e) {
+            slot.permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(Connection physical) {
+        try {
+            return !physical.isClosed() && physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection open(boolean readOnly) throws SQLException {
+        Connection physical = DriverManager.getConnection(url);
+        try (Statement stmt = physical.createStatement()) {
+            // WAL lets readers proceed while the writer commits
+            stmt.execute("PRAGMA journal_mode = WAL");
+            // The writer syncs the WAL on every commit, so a committed write survives a power
+            // loss; group commit keeps that to one sync per batch. Readers never write.
+            stmt.execute(readOnly ? "PRAGMA synchronous = NORMAL" : "PRAGMA synchronous = FULL");
+            stmt.execute("PRAGMA foreign_keys = ON");
+            stmt.execute("PRAGMA busy_timeout = 5000");
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
+        } catch (SQLException e) {
+            physical.close();
+            throw e;
+        }
+        createdCount.incrementAndGet();
+        return physical;
+    }
+
+    private void release(PooledConnection pooled, Slot slot) {
+        Connection physical = pooled.physical;
+        try {
+            if (closed || physical.isClosed()) {
+                discard(pooled);
+                return;
+            }
+            // Statements the borrower never closed are not safe to hand out again
+            pooled.closeLeasedStatements();
+            // Never hand out a connection with a half-finished transaction
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            slot.idle.offer(pooled);
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            slot.permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        discardedCount.incrementAndGet();
+        pooled.closeStatements();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // Nothing useful to do with a connection we are throwing away
+        }
+    }
+
+    private Connection wrap(PooledConnection pooled, Slot slot) {
+        Connection physical = pooled.physical;
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned = false;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!returned) {
+                            returned = true;
+                            release(pooled, slot);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || physical.isClosed();
+                    case "unwrap":
+                        return physical.unwrap((Class<?>) args[0]);
+                    case "isWrapperFor":
+                        return physical.isWrapperFor((Class<?>) args[0]);
+                    default:
+                        if (returned) {
+                            throw new SQLException("Connection has already been returned to the pool");
+                        }
+                        if (statementCacheSize > 0 && method.getName().equals("prepareStatement")) {
+                            String key = cacheKey(method, args);
+                            if (key != null) {
+                                return pooled.prepare(key, (Connection) proxy, method, args);
+                            }
+                        }
+                        try {
+                            return method.invoke(physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+            ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    public void close() {
+        closed = true;
+        closeIdle(readSlot);
+        closeIdle(writeSlot);
+    }
+
+    private void closeIdle(Slot slot) {
+        PooledConnection pooled;
+        while ((pooled = slot.idle.poll()) != null) {
+            pooled.closeStatements();
+            try {
+                pooled.physical.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Cache key for prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys); null for
+    // the other overloads, which are passed through uncached
+    private static String cacheKey(Method method, Object[] args) {
+        Class<?>[] types = method.getParameterTypes();
+        if (types.length == 1) {
+            return (String) args[0];
+        }
+        if (types.length == 2 && types[1] == int.class) {
+            return args[1] + ":" + args[0];
+        }
+        return null;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Metrics getters
+    public int getReadPoolSize() { return readPoolSize; }
+    public int getWritePoolSize() { return WRITE_POOL_SIZE; }
+    public int getIdleReadConnections() { return readSlot.idle.size(); }
+    public int getActiveReadConnections() { return readPoolSize - readSlot.permits.availablePermits(); }
+    public boolean isWriterBusy() { return writeSlot.permits.availablePermits() == 0; }
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getCreatedCount() { return createdCount.get(); }
+    public long getDiscardedCount() { return discardedCount.get(); }
+    public long getTimeoutCount() { return timeoutCount.get(); }
+    public int getStatementCacheSize() { return statementCacheSize; }
+    public long getStatementCacheHits() { return statementHits.get(); }
+    public long getStatementCacheMisses() { return statementMisses.get(); }
+    public long getStatementCacheEvictions() { return statementEvictions.get(); }
+
+    public double getStatementCacheHitRate() {
+        long lookups = statementHits.get() + statementMisses.get();
+        return lookups == 0 ? 0.0 : (double) statementHits.get() / lookups;
+    }
+
+    public double getAverageBorrowWaitMicros() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0.0 : borrowWaitNanos.get() / 1000.0 / borrows;
+    }
+
+    public String getMetricsSummary() {
+        return String.format("Pool: borrows=%d, avgWait=%.1fus, created=%d, discarded=%d, timeouts=%d, readers active=%d/%d, writer busy=%b, " +
+            "statement cache hits=%d, misses=%d, evictions=%d",
+            getBorrowCount(), getAverageBorrowWaitMicros(), getCreatedCount(), getDiscardedCount(),
+            getTimeoutCount(), getActiveReadConnections(), readPoolSize, isWriterBusy(),
+            getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheEvictions());
+    }
+
+    // Idle connections plus the permits that cap how many can be checked out
+    private static class Slot {
+        final ConcurrentLinkedQueue<PooledConnection> idle = new ConcurrentLinkedQueue<>();
+        final Semaphore permits;
+        final boolean readOnly;
+
+        Slot(int size, boolean readOnly) {
+            this.permits = new Semaphore(size, true);
+            this.readOnly = readOnly;
+        }
+    }
+
+    /**
+     * A physical connection and its statement cache. Only the current borrower
+     * touches it, so none of this needs locking.
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        // Idle cached statements, least recently used first
+        private final LinkedHashMap<String, PreparedStatement> cached = new LinkedHashMap<>(16, 0.75f, true);
+        // Statements handed out and not yet closed
+        private final Set<PreparedStatement> leased = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        // Hands out the cached statement for this SQL, or prepares a new one. A statement
+        // that is already leased (the same SQL open twice) gets a second, separate copy.
+        PreparedStatement prepare(String key, Connection owner, Method method, Object[] args) throws Throwable {
+            PreparedStatement statement = cached.remove(key);
+            if (statement != null) {
+                statementHits.incrementAndGet();
+            } else {
+                statementMisses.incrementAndGet();
+                try {
+                    statement = (PreparedStatement) method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            leased.add(statement);
+            return wrapStatement(key, statement, owner);
+        }
+
+        // Called when the borrower closes a cached statement
+        void giveBack(String key, PreparedStatement statement, List<ResultSet> resultSets) {
+            if (!leased.remove(statement)) {
+                // The connection was returned first and the statement closed with it
+                return;
+            }
+            try {
+                // Closing its result sets resets the statement, so it holds no read snapshot
+                for (ResultSet resultSet : resultSets) {
+                    resultSet.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                closeQuietly(statement);
+                return;
+            }
+            if (cached.containsKey(key)) {
+                closeQuietly(statement);
+                return;
+            }
+            cached.put(key, statement);
+            if (cached.size() > statementCacheSize) {
+                Iterator<PreparedStatement> eldest = cached.values().iterator();
+                closeQuietly(eldest.next());
+                eldest.remove();
+                statementEvictions.incrementAndGet();
+            }
+        }
+
+        void closeLeasedStatements() {
+            for (PreparedStatement statement : leased) {
+                closeQuietly(statement);
+            }
+            leased.clear();
+        }
+
+        void closeStatements() {
+            closeLeasedStatements();
+            for (PreparedStatement statement : cached.values()) {
+                closeQuietly(statement);
+            }
+            cached.clear();
+        }
+
+        // Statement wrapper whose close() puts the statement back in the cache
+        private PreparedStatement wrapStatement(String key, PreparedStatement statement, Connection owner) {
+            InvocationHandler handler = new InvocationHandler() {
+                private final List<ResultSet> resultSets = new ArrayList<>(1);
+                private boolean returned = false;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!returned) {
+                                returned = true;
+                                giveBack(key, statement, resultSets);
+                            }
+                            return null;
+                        case "isClosed":
+                            return returned || statement.isClosed();
+                        case "getConnection":
+                            return owner;
+                        case "unwrap":
+                            return statement.unwrap((Class<?>) args[0]);
+                        case "isWrapperFor":
+                            return statement.isWrapperFor((Class<?>) args[0]);
+                        default:
+                            if (returned) {
+                                throw new SQLException("Statement has already been closed");
+                            }
+                            Object result;
+                            try {
+                                result = method.invoke(statement, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                            if (result instanceof ResultSet) {
+                                resultSets.add((ResultSet) result);
+                            }
+                            return result;
+                    }
+                }
+            };
+            return (PreparedStatement) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, handler);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Already unusable; nothing else to release
+        }
+    }
+}
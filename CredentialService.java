@@ -0,0 +1,161 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs password hashing and verification for DatabaseManager on a small,
+ * bounded pool. PBKDF2 costs tens to hundreds of milliseconds of CPU per call,
+ * so a login storm hashed on the callers' threads could take every core from
+ * bookings. Here at most -Dflight.auth.threads hashes run at once (default
+ * half the cores). At most -Dflight.auth.queueSize more wait (default 256).
+ * Beyond that a login is turned away at once instead of queueing forever.
+ * Callers wait up to -Dflight.auth.timeoutMs (default 10000).
+ */
+public class CredentialService {
+    private static final int THREADS = Integer.getInteger("flight.auth.threads",
+        Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int QUEUE_SIZE = Integer.getInteger("flight.auth.queueSize", 256);
+    private static final long TIMEOUT_MS = Long.getLong("flight.auth.timeoutMs", 10_000);
+
+    /**
+     * Outcome of checking a password
+     */
+    public static final class Verification {
+        private static final Verification MISMATCH = new Verification(false, false, null);
+        private static final Verification BUSY = new Verification(false, true, null);
+
+        private final boolean match;
+        private final boolean busy;
+        private final String upgradedHash;
+
+        private Verification(boolean match, boolean busy, String upgradedHash) {
+            this.match = match;
+            this.busy = busy;
+            this.upgradedHash = upgradedHash;
+        }
+
+        public boolean isMatch() { return match; }
+        // The password could not be checked because the service is saturated
+        public boolean isBusy() { return busy; }
+        // A new hash to store in place of a plain-text or weaker row; null if the row is current
+        public String getUpgradedHash() { return upgradedHash; }
+    }
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor executor;
+    // Verified when the username does not exist, so unknown and known users take the same time.
+    // Made on first use rather than at startup.
+    private volatile String dummyHash;
+
+    // Metrics
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+    private final AtomicLong rehashes = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    public CredentialService() {
+        this(new PasswordHasher(), THREADS, QUEUE_SIZE);
+    }
+
+    public CredentialService(PasswordHasher hasher, int threads, int queueSize) {
+        this.hasher = hasher;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "credential-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueSize)), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Hashes a new password
+     * @return The encoded hash, or null if the service is saturated
+     */
+    public String hash(String password) {
+        return call(() -> hasher.hash(password));
+    }
+
+    /**
+     * Checks a password against a stored row. A stored value of null (no such user)
+     * is checked against a dummy hash, so the answer takes as long as a real one.
+     * On a match against a plain-text or weaker row, the result carries a fresh hash
+     * computed in the same task, so the caller can store it.
+     */
+    public Verification verify(String password, String stored) {
+        Verification result = call(() -> {
+            if (stored == null) {
+                if (dummyHash == null) {
+                    dummyHash = hasher.hash("unused-" + System.nanoTime());
+                }
+                hasher.verify(password, dummyHash);
+                return Verification.MISMATCH;
+            }
+            if (!hasher.verify(password, stored)) {
+                return Verification.MISMATCH;
+            }
+            return new Verification(true, false, hasher.needsRehash(stored) ? hasher.hash(password) : null);
+        });
+        if (result == null) {
+            return Verification.BUSY;
+        }
+        verifications.incrementAndGet();
+        if (!result.isMatch()) {
+            mismatches.incrementAndGet();
+        } else if (result.getUpgradedHash() != null) {
+            rehashes.incrementAndGet();
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Runs the task on the pool and waits for it; null if it was turned away or timed out
+    private <T> T call(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejections.incrementAndGet();
+            return null;
+        }
+        try {
+            return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.incrementAndGet();
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            return null;
+        }
+    }
+
+    // Metrics getters
+    public long getVerifications() { return verifications.get(); }
+    public long getMismatches() { return mismatches.get(); }
+    public long getRehashes() { return rehashes.get(); }
+    public long getRejections() { return rejections.get(); }
+    public int getThreads() { return executor.getMaximumPoolSize(); }
+    public int getQueuedTasks() { return executor.getQueue().size(); }
+
+    public String getMetricsSummary() {
+        return String.format("Credentials: threads=%d, iterations=%d, verifications=%d, mismatches=%d, rehashes=%d, rejected=%d",
+            getThreads(), hasher.getIterations(), getVerifications(), getMismatches(), getRehashes(), getRejections());
+    }
+}
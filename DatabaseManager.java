@@ -1,34 +1,96 @@
 import java.sql.*;
 import java.util.Random;
-import javax.swing.JOptionPane;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongConsumer;
 
 public class DatabaseManager {
+    /**
+     * Outcome of a compare-and-set update against a row's version column
+     */
+    public enum UpdateStatus {
+        UPDATED,   // Applied and committed
+        CONFLICT,  // The row changed since the caller read it; re-read and try again
+        REJECTED,  // The row is gone or the change is not allowed (e.g. not enough seats)
+        FAILED     // Database error; nothing was changed
+    }
+
     private static final String DB_URL = "jdbc:sqlite:flight_system.db?enable_load_extension=false&busy_timeout=5000";
-    private Connection connection;
-    private Random random = new Random();
+    // Number of pooled read connections; override with -Dflight.db.readPoolSize=N
+    private static final int DEFAULT_READ_POOL_SIZE = Integer.getInteger("flight.db.readPoolSize", 4);
+    private final String dbUrl;
+    private final int readPoolSize;
+    private ConnectionPool pool;
+    // Batches small inserts and seat updates into shared commits
+    private GroupCommitWriter groupCommit;
+    // Profiles (never passwords) for getUserById, getUserByUsername and loginUser
+    private final UserCache userCache = new UserCache();
+    // Hashes and verifies passwords on a bounded pool of its own
+    private final CredentialService credentials = new CredentialService();
     private static final int MAX_RETRIES = 3;
     private static final int RETRY_DELAY_MS = 1000;
+    // Hands seats back to a flight relative to its current count
+    private static final String RELEASE_SEATS_SQL = "UPDATE flights SET booked_seats = booked_seats - ? WHERE id = ?";
+    // Everything about a user except the password
+    private static final String USER_PROFILE_COLUMNS = "id, username, email, phone_number, user_id, role";
+    // Records the per-seat fare the booking was quoted (NULL when unknown)
+    private static final String INSERT_BOOKING_SQL =
+        "INSERT INTO bookings (user_id, flight_id, num_seats, booking_date, status, fare) VALUES (?, ?, ?, ?, ?, ?)";
+    // Keeps IN lists well under SQLite's bound parameter limit
+    private static final int MAX_IN_PARAMETERS = 500;
+    // Insert a flight, or update the one with the same number if its version still matches
+    // (fare_buckets NULL means the default buckets; an upsert without buckets keeps the row's own)
+    private static final String SAVE_FLIGHT_SQL =
+        "INSERT INTO flights (origin, destination, capacity, booked_seats, price, flight_number, fare_buckets) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT(flight_number) DO UPDATE SET origin = excluded.origin, destination = excluded.destination, " +
+        "capacity = excluded.capacity, price = excluded.price, " +
+        "fare_buckets = COALESCE(excluded.fare_buckets, flights.fare_buckets), version = flights.version + 1 " +
+        "WHERE flights.version = ? AND flights.booked_seats <= excluded.capacity";
+    // Same upsert for schedule imports: no version check, and rows that change nothing are skipped
+    private static final String IMPORT_FLIGHT_SQL =
+        "INSERT INTO flights (origin, destination, capacity, booked_seats, price, flight_number, fare_buckets) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT(flight_number) DO UPDATE SET origin = excluded.origin, destination = excluded.destination, " +
+        "capacity = excluded.capacity, price = excluded.price, " +
+        "fare_buckets = COALESCE(excluded.fare_buckets, flights.fare_buckets), version = flights.version + 1 " +
+        "WHERE flights.booked_seats <= excluded.capacity AND (flights.origin IS NOT excluded.origin " +
+        "OR flights.destination IS NOT excluded.destination OR flights.capacity IS NOT excluded.capacity " +
+        "OR flights.price IS NOT excluded.price " +
+        "OR (excluded.fare_buckets IS NOT NULL AND flights.fare_buckets IS NOT excluded.fare_buckets))";
+
+    // Borrow a read-only connection from the pool; close it to give it back
+    private Connection readConnection() throws SQLException {
+        if (pool == null || pool.isClosed()) {
+            throw new SQLException("Database connection pool is not available");
+        }
+        return pool.borrowRead();
+    }
 
-    // Add getConnection method with retry logic
-    private Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(DB_URL);
-            // Enable foreign keys
-            connection.createStatement().execute("PRAGMA foreign_keys = ON");
-            // Set busy timeout
-            connection.createStatement().execute("PRAGMA busy_timeout = 5000");
+    // Borrow the single writer connection from the pool; close it to give it back
+    private Connection writeConnection() throws SQLException {
+        if (pool == null || pool.isClosed()) {
+            throw new SQLException("Database connection pool is not available");
         }
-        return connection;
+        return pool.borrowWrite();
     }
 
     // Add retry logic for database operations
     private <T> T executeWithRetry(DatabaseOperation<T> operation) {
         int retries = 0;
         while (retries < MAX_RETRIES) {
-            try {
-                return operation.execute(getConnection());
+            try (Connection conn = writeConnection()) {
+                return operation.execute(conn);
             } catch (SQLException e) {
                 if (e.getMessage().contains("database is locked") && retries < MAX_RETRIES - 1) {
                     retries++;
@@ -52,19 +114,37 @@ public class DatabaseManager {
         T execute(Connection conn) throws SQLException;
     }
 
-    // Arrays of cities for random flight generation
-    public final String[] cities = {
+    // Queue a mutation for the next group commit
+    private <T> CompletableFuture<T> submitWrite(GroupCommitWriter.Mutation<T> mutation) {
+        if (groupCommit == null) {
+            return CompletableFuture.failedFuture(new SQLException("Database connection pool is not available"));
+        }
+        return groupCommit.submit(mutation);
+    }
+
+    // Wait until a queued mutation is committed; null if it or its commit failed
+    private <T> T awaitCommit(CompletableFuture<T> write) {
+        try {
+            return write.join();
+        } catch (CompletionException e) {
+            (e.getCause() != null ? e.getCause() : e).printStackTrace();
+            return null;
+        }
+    }
+
+    // Hub cities: the pricing engine's distance matrix and the sample schedule's routes
+    private static final String[] HUB_CITIES = {
         "New York", "London", "Paris", "Tokyo", "Berlin", "Rome", "Madrid", "Dubai",
         "Singapore", "Sydney", "Toronto", "Moscow", "Beijing", "Mumbai", "Cairo"
     };
 
     // Getter method for cities array
     public String[] getCities() {
-        return cities;
+        return HUB_CITIES;
     }
 
     // City coordinates (latitude, longitude)
-    private final double[][] cityCoordinates = {
+    private static final double[][] HUB_COORDINATES = {
         {40.7128, -74.0060},  // New York
         {51.5074, -0.1278},   // London
         {48.8566, 2.3522},    // Paris
@@ -82,34 +162,77 @@ public class DatabaseManager {
         {30.0444, 31.2357}    // Cairo
     };
 
-    // Calculate distance between two cities using Haversine formula
-    private double calculateDistance(int city1Index, int city2Index) {
-        double lat1 = Math.toRadians(cityCoordinates[city1Index][0]);
-        double lon1 = Math.toRadians(cityCoordinates[city1Index][1]);
-        double lat2 = Math.toRadians(cityCoordinates[city2Index][0]);
-        double lon2 = Math.toRadians(cityCoordinates[city2Index][1]);
+    // Distance matrix and fare rules for the hub cities, built once
+    private final PricingEngine pricing;
+    // Picks the sample schedule's routes and capacities; shares the pricing seed, so
+    // -Dflight.pricing.seed makes the whole sample reproducible
+    private final Random random;
 
-        double dlon = lon2 - lon1;
-        double dlat = lat2 - lat1;
+    /**
+     * Pricing engine over the hub cities with the given rules, for the DatabaseManager
+     * constructor that takes one
+     * @see PricingEngine#PricingEngine(String[], double[][], List, List, FareBuckets, long)
+     */
+    public static PricingEngine newHubPricingEngine(List<FareRule> rules, List<FareRule> loadRules,
+                                                    FareBuckets fareBuckets, long seed) {
+        return new PricingEngine(HUB_CITIES, HUB_COORDINATES, rules, loadRules, fareBuckets, seed);
+    }
 
-        double a = Math.pow(Math.sin(dlat / 2), 2) + Math.cos(lat1) * Math.cos(lat2) * Math.pow(Math.sin(dlon / 2), 2);
-        double c = 2 * Math.asin(Math.sqrt(a));
-        double r = 6371; // Earth's radius in kilometers
+    public PricingEngine getPricingEngine() {
+        return pricing;
+    }
 
-        return c * r;
+    // Index of a city in the hub list (case-insensitive), or -1 if it is not a known hub
+    public int getCityIndex(String city) {
+        return pricing.cityIndex(city);
     }
 
-    // Calculate price based on distance and add some randomness
+    /**
+     * Great-circle distance between two hub cities, from the precomputed matrix
+     * @return Distance in kilometers, or -1 if either city is not a hub
+     */
+    public double getDistanceKm(String fromCity, String toCity) {
+        int fromIndex = getCityIndex(fromCity);
+        int toIndex = getCityIndex(toCity);
+        if (fromIndex < 0 || toIndex < 0) {
+            return -1;
+        }
+        return pricing.distanceKm(fromIndex, toIndex);
+    }
+
+    // Base fare for a route under the pricing engine's rules, on an empty flight
     public double calculatePrice(int originIndex, int destinationIndex) {
-        double distance = calculateDistance(originIndex, destinationIndex);
-        // Base price: $0.15 per kilometer
-        double basePrice = distance * 0.15;
-        // Add 20% random variation
-        double variation = basePrice * 0.2;
-        return basePrice + (random.nextDouble() * variation * 2 - variation);
+        return pricing.price(originIndex, destinationIndex);
     }
 
     public DatabaseManager() {
+        this(DB_URL, DEFAULT_READ_POOL_SIZE);
+    }
+
+    /**
+     * Opens the database, applies pending migrations and seeds default data.
+     * Never shows UI, so it can run in a headless JVM; callers decide how to report failures.
+     * @throws DatabaseUnavailableException if the driver is missing or the database cannot be opened
+     */
+    public DatabaseManager(String dbUrl, int readPoolSize) {
+        this(dbUrl, readPoolSize, ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * @param statementCacheSize Prepared statements cached per pooled connection; 0 disables the cache
+     */
+    public DatabaseManager(String dbUrl, int readPoolSize, int statementCacheSize) {
+        this(dbUrl, readPoolSize, statementCacheSize, PricingEngine.fromConfig(HUB_CITIES, HUB_COORDINATES));
+    }
+
+    /**
+     * @param pricing Fare rules for new and live fares, e.g. from newHubPricingEngine
+     */
+    public DatabaseManager(String dbUrl, int readPoolSize, int statementCacheSize, PricingEngine pricing) {
+        this.dbUrl = dbUrl;
+        this.readPoolSize = readPoolSize;
+        this.pricing = pricing;
+        this.random = new Random(pricing.getSeed());
         try {
             // Print the current working directory
             System.out.println("Current working directory: " + System.getProperty("user.dir"));
@@ -122,67 +245,65 @@ public class DatabaseManager {
                 String error = "SQLite JDBC driver not found. Please make sure sqlite-jdbc.jar is in your classpath.\n" +
                              "Error: " + e.getMessage();
                 System.err.println(error);
-                JOptionPane.showMessageDialog(null, error, "Driver Error", JOptionPane.ERROR_MESSAGE);
-                connection = null; // Ensure connection is null on failure
-                return;
+                throw new DatabaseUnavailableException(DatabaseUnavailableException.Reason.DRIVER_NOT_FOUND, error, e);
             }
 
-            // Try to create connection
-            try {
-                connection = DriverManager.getConnection(DB_URL);
-                if (connection != null) {
-                    System.out.println("Database connection established successfully");
-                } else {
-                    System.err.println("DriverManager.getConnection returned null.");
-                    JOptionPane.showMessageDialog(null, "Database connection could not be established.", "Connection Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
+            // Try to create the pool and check that the writer connection can be opened
+            pool = new ConnectionPool(dbUrl, readPoolSize, ConnectionPool.DEFAULT_BORROW_TIMEOUT_MS, statementCacheSize);
+            try (Connection conn = pool.borrowWrite()) {
+                DatabaseMetaData meta = conn.getMetaData();
+                System.out.println("Database connection established successfully (" + meta.getDatabaseProductName() + " "
+                    + meta.getDatabaseProductVersion() + ", read pool size: " + readPoolSize + ")");
+                groupCommit = new GroupCommitWriter(pool);
             } catch (SQLException e) {
                 String error = "Failed to connect to database.\n" +
-                             "URL: " + DB_URL + "\n" +
+                             "URL: " + dbUrl + "\n" +
                              "Error: " + e.getMessage();
                 System.err.println(error);
-                JOptionPane.showMessageDialog(null, error, "Connection Error", JOptionPane.ERROR_MESSAGE);
-                connection = null; // Ensure connection is null on failure
-                return;
-            }
-
-            // Check if connection is valid before proceeding
-            if (connection == null || connection.isClosed()) {
-                 System.err.println("Database connection is not valid after establishment attempt.");
-                 JOptionPane.showMessageDialog(null, "Database connection is invalid.", "Connection Error", JOptionPane.ERROR_MESSAGE);
-                 return;
+                throw new DatabaseUnavailableException(DatabaseUnavailableException.Reason.CONNECTION_FAILED, error, e);
             }
 
-            createTables();
+            migrateSchema();
             if (isDatabaseEmpty()) {
                 addRandomFlights();
             }
             // Add default admin and agent users if they don't exist
             addDefaultUsers();
 
+        } catch (DatabaseUnavailableException e) {
+            closePoolAfterFailure();
+            throw e;
         } catch (Exception e) {
             String error = "Unexpected error in DatabaseManager constructor: " + e.getMessage() + "\n" +
                           "Stack trace: " + e.toString();
             System.err.println(error);
-            JOptionPane.showMessageDialog(null, error, "Unexpected Error", JOptionPane.ERROR_MESSAGE);
-             connection = null; // Ensure connection is null on unexpected error
+            closePoolAfterFailure();
+            throw new DatabaseUnavailableException(DatabaseUnavailableException.Reason.INITIALIZATION_FAILED, error, e);
+        }
+        System.out.println("DatabaseManager constructor finished. Connection pool is open.");
+    }
+
+    private void closePoolAfterFailure() {
+        if (groupCommit != null) {
+            groupCommit.close();
+        }
+        groupCommit = null;
+        if (pool != null) {
+            pool.close();
         }
-         // Log the final state of the connection
-         if (connection != null) {
-             System.out.println("DatabaseManager constructor finished. Connection is open.");
-         } else {
-             System.out.println("DatabaseManager constructor finished. Connection is null or closed.");
-         }
+        pool = null;
+    }
+
+    // Exposes pool metrics (borrows, wait time, created/discarded connections)
+    public ConnectionPool getConnectionPool() {
+        return pool;
     }
 
     private boolean isDatabaseEmpty() {
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM flights");
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM flights");
+             ResultSet rs = pstmt.executeQuery()) {
             int count = rs.getInt(1);
-            rs.close();
-            stmt.close();
             return count == 0;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -191,188 +312,457 @@ public class DatabaseManager {
     }
 
     private void addRandomFlights() {
-        try {
-            for (int i = 0; i < 10; i++) {
-                String flightNumber = String.format("FL%03d", i + 1);
-                int originIndex = random.nextInt(cities.length);
-                int destinationIndex;
-                do {
-                    destinationIndex = random.nextInt(cities.length);
-                } while (destinationIndex == originIndex);
-
-                String origin = cities[originIndex];
-                String destination = cities[destinationIndex];
-                int capacity = random.nextInt(151) + 50; // Random capacity between 50 and 200
-                double price = calculatePrice(originIndex, destinationIndex);
-
-                Flight flight = new Flight(flightNumber, origin, destination, capacity, price);
-                saveFlight(flight);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        List<Flight> flights = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String flightNumber = String.format("FL%03d", i + 1);
+            int originIndex = random.nextInt(HUB_CITIES.length);
+            int destinationIndex;
+            do {
+                destinationIndex = random.nextInt(HUB_CITIES.length);
+            } while (destinationIndex == originIndex);
+
+            String origin = HUB_CITIES[originIndex];
+            String destination = HUB_CITIES[destinationIndex];
+            int capacity = random.nextInt(151) + 50; // Random capacity between 50 and 200
+            double price = calculatePrice(originIndex, destinationIndex);
+
+            flights.add(new Flight(flightNumber, origin, destination, capacity, price));
         }
+        // One transaction and one batch for the whole sample schedule
+        importFlights(flights.iterator(), flights.size(), null);
     }
 
-    public void createTables() {
-        try (Statement stmt = connection.createStatement()) {
-            // Create users table
-            stmt.execute("CREATE TABLE IF NOT EXISTS users (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "username TEXT UNIQUE NOT NULL," +
-                    "password TEXT NOT NULL," +
-                    "email TEXT NOT NULL," +
-                    "phone_number TEXT NOT NULL," +
-                    "user_id TEXT UNIQUE NOT NULL," +
-                    "role TEXT NOT NULL DEFAULT 'Customer')");
-
-            // Create flights table
-            stmt.execute("CREATE TABLE IF NOT EXISTS flights (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "flight_number TEXT UNIQUE NOT NULL," +
-                    "origin TEXT NOT NULL," +
-                    "destination TEXT NOT NULL," +
-                    "capacity INTEGER NOT NULL," +
-                    "booked_seats INTEGER DEFAULT 0," +
-                    "price REAL DEFAULT 100.0)");
-
-            // Create bookings table
-            stmt.execute("CREATE TABLE IF NOT EXISTS bookings (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "user_id INTEGER NOT NULL," +
-                    "flight_id INTEGER NOT NULL," +
-                    "num_seats INTEGER NOT NULL," +
-                    "booking_date TEXT NOT NULL," +
-                    "status TEXT NOT NULL DEFAULT 'Pending'," +
-                    "FOREIGN KEY (user_id) REFERENCES users(id)," +
-                    "FOREIGN KEY (flight_id) REFERENCES flights(id))");
-
-            // Create passengers table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS passengers (
-                    passenger_id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    name TEXT NOT NULL,
-                    passport_number TEXT NOT NULL UNIQUE,
-                    date_of_birth TEXT NOT NULL,
-                    special_requests TEXT,
-                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                )
-            """);
-
-            // Create booking_passengers table (junction table for many-to-many relationship)
+    // Versioned schema migrations, applied in order on startup. To change the schema,
+    // append a new entry; never edit a migration that has already shipped.
+    private final Migration[] migrations = {
+        new Migration(1, "Baseline tables", this::createBaselineTables),
+        new Migration(2, "Indexes for booking, passenger and route lookups", stmt -> {
+            stmt.execute("CREATE INDEX idx_bookings_user_id ON bookings(user_id)");
+            stmt.execute("CREATE INDEX idx_bookings_flight_id ON bookings(flight_id)");
+            stmt.execute("CREATE INDEX idx_bookings_status ON bookings(status)");
+            stmt.execute("CREATE INDEX idx_flights_route ON flights(origin, destination)");
+            stmt.execute("CREATE INDEX idx_booking_passengers_passenger_id ON booking_passengers(passenger_id)");
+        }),
+        // The baseline pointed booking_passengers at bookings(booking_id), which does not exist,
+        // so with foreign keys on SQLite refused every delete from bookings
+        new Migration(3, "Point booking_passengers at bookings(id)", stmt -> {
             stmt.execute("""
-                CREATE TABLE IF NOT EXISTS booking_passengers (
+                CREATE TABLE booking_passengers_new (
                     booking_id INTEGER,
                     passenger_id INTEGER,
                     PRIMARY KEY (booking_id, passenger_id),
-                    FOREIGN KEY (booking_id) REFERENCES bookings(booking_id) ON DELETE CASCADE,
+                    FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE,
                     FOREIGN KEY (passenger_id) REFERENCES passengers(passenger_id) ON DELETE CASCADE
                 )
             """);
+            stmt.execute("INSERT INTO booking_passengers_new (booking_id, passenger_id) " +
+                    "SELECT booking_id, passenger_id FROM booking_passengers " +
+                    "WHERE booking_id IN (SELECT id FROM bookings) " +
+                    "AND passenger_id IN (SELECT passenger_id FROM passengers)");
+            stmt.execute("DROP TABLE booking_passengers");
+            stmt.execute("ALTER TABLE booking_passengers_new RENAME TO booking_passengers");
+            stmt.execute("CREATE INDEX idx_booking_passengers_passenger_id ON booking_passengers(passenger_id)");
+        }),
+        new Migration(4, "Version columns for optimistic concurrency", stmt -> {
+            stmt.execute("ALTER TABLE flights ADD COLUMN version INTEGER NOT NULL DEFAULT 0");
+            stmt.execute("ALTER TABLE bookings ADD COLUMN version INTEGER NOT NULL DEFAULT 0");
+        }),
+        // NULL means the flight uses the default buckets (-Dflight.pricing.fareBuckets)
+        new Migration(5, "Per-flight fare buckets", stmt ->
+            stmt.execute("ALTER TABLE flights ADD COLUMN fare_buckets TEXT")),
+        // The per-seat fare a booking was quoted, so payments charge that and not today's fare.
+        // NULL for bookings made before it was recorded; those fall back to the flight's base fare.
+        new Migration(6, "Fare recorded on each booking", stmt ->
+            stmt.execute("ALTER TABLE bookings ADD COLUMN fare REAL")),
+    };
+
+    // A single schema change and the version it brings the database to
+    private static class Migration {
+        final int version;
+        final String description;
+        final SchemaChange change;
 
+        Migration(int version, String description, SchemaChange change) {
+            this.version = version;
+            this.description = description;
+            this.change = change;
+        }
+    }
+
+    // Statements that make up a migration
+    private interface SchemaChange {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    /**
+     * Brings the schema up to the latest version. Each pending migration runs in its
+     * own transaction together with the schema_version row that records it, so a
+     * failed migration leaves the database at the previous version.
+     * @throws DatabaseUnavailableException INITIALIZATION_FAILED if a migration fails; the
+     *         code expects the latest schema, so it must not go on with an older one
+     */
+    public void migrateSchema() {
+        int currentVersion = 0;
+        try (Connection conn = writeConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                        "version INTEGER PRIMARY KEY," +
+                        "description TEXT NOT NULL," +
+                        "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+
+            currentVersion = readSchemaVersion(conn);
+            for (Migration migration : migrations) {
+                if (migration.version <= currentVersion) {
+                    continue;
+                }
+                System.out.println("Applying schema migration " + migration.version + ": " + migration.description);
+                inTransaction(conn, () -> {
+                    try (Statement stmt = conn.createStatement()) {
+                        migration.change.apply(stmt);
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                        pstmt.setInt(1, migration.version);
+                        pstmt.setString(2, migration.description);
+                        pstmt.executeUpdate();
+                    }
+                    return null;
+                });
+                currentVersion = migration.version;
+            }
+            System.out.println("Database schema is at version " + currentVersion);
+        } catch (SQLException e) {
+            String error = "Schema migration failed; the database is at version " + currentVersion + ".\n" +
+                         "Error: " + e.getMessage();
+            System.err.println(error);
+            throw new DatabaseUnavailableException(DatabaseUnavailableException.Reason.INITIALIZATION_FAILED, error, e);
+        }
+    }
+
+    /**
+     * @return The highest applied schema version, or 0 if no migration has run
+     */
+    public int getSchemaVersion() {
+        try (Connection conn = readConnection()) {
+            return readSchemaVersion(conn);
         } catch (SQLException e) {
             e.printStackTrace();
+            return 0;
         }
     }
 
-    public void saveFlight(Flight flight) {
-        try {
-             System.out.println("Saving flight: " + flight.getFlightNumber());
-            // First check if the flight exists
-            String checkSql = "SELECT id FROM flights WHERE flight_number = ?";
-            PreparedStatement checkStmt = connection.prepareStatement(checkSql);
-            checkStmt.setString(1, flight.getFlightNumber());
-            ResultSet rs = checkStmt.executeQuery();
-            
-            boolean flightExists = rs.next();
-            rs.close();
-            checkStmt.close();
+    private int readSchemaVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
 
-            String sql;
-            PreparedStatement pstmt;
-            
-            if (flightExists) {
-                // Flight exists, use UPDATE
-                sql = "UPDATE flights SET origin = ?, destination = ?, capacity = ?, booked_seats = ?, price = ? WHERE flight_number = ?";
-                pstmt = connection.prepareStatement(sql);
+    // Version 1: the original tables. Kept with IF NOT EXISTS because databases created
+    // before schema versioning already have them.
+    private void createBaselineTables(Statement stmt) throws SQLException {
+        // Create users table
+        stmt.execute("CREATE TABLE IF NOT EXISTS users (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "username TEXT UNIQUE NOT NULL," +
+                "password TEXT NOT NULL," +
+                "email TEXT NOT NULL," +
+                "phone_number TEXT NOT NULL," +
+                "user_id TEXT UNIQUE NOT NULL," +
+                "role TEXT NOT NULL DEFAULT 'Customer')");
+
+        // Create flights table
+        stmt.execute("CREATE TABLE IF NOT EXISTS flights (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "flight_number TEXT UNIQUE NOT NULL," +
+                "origin TEXT NOT NULL," +
+                "destination TEXT NOT NULL," +
+                "capacity INTEGER NOT NULL," +
+                "booked_seats INTEGER DEFAULT 0," +
+                "price REAL DEFAULT 100.0)");
+
+        // Create bookings table
+        stmt.execute("CREATE TABLE IF NOT EXISTS bookings (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "user_id INTEGER NOT NULL," +
+                "flight_id INTEGER NOT NULL," +
+                "num_seats INTEGER NOT NULL," +
+                "booking_date TEXT NOT NULL," +
+                "status TEXT NOT NULL DEFAULT 'Pending'," +
+                "FOREIGN KEY (user_id) REFERENCES users(id)," +
+                "FOREIGN KEY (flight_id) REFERENCES flights(id))");
+
+        // Create passengers table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS passengers (
+                passenger_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                name TEXT NOT NULL,
+                passport_number TEXT NOT NULL UNIQUE,
+                date_of_birth TEXT NOT NULL,
+                special_requests TEXT,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+        """);
+
+        // Create booking_passengers table (junction table for many-to-many relationship)
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS booking_passengers (
+                booking_id INTEGER,
+                passenger_id INTEGER,
+                PRIMARY KEY (booking_id, passenger_id),
+                FOREIGN KEY (booking_id) REFERENCES bookings(booking_id) ON DELETE CASCADE,
+                FOREIGN KEY (passenger_id) REFERENCES passengers(passenger_id) ON DELETE CASCADE
+            )
+        """);
+    }
+
+    /**
+     * Inserts a new flight, or updates an existing one with the same flight number,
+     * in a single upsert statement. An update is a compare-and-set on
+     * flight.getVersion(), exactly like updateFlight: booked seats are left alone
+     * and capacity is only lowered if the seats already booked still fit.
+     * @return true if the flight was inserted or updated; its ID and version are then set
+     */
+    public boolean saveFlight(Flight flight) {
+        System.out.println("Saving flight: " + flight.getFlightNumber());
+        Boolean saved = awaitCommit(submitWrite(conn -> {
+            int changed;
+            try (PreparedStatement pstmt = conn.prepareStatement(SAVE_FLIGHT_SQL)) {
+                bindFlightUpsert(pstmt, flight);
+                pstmt.setInt(8, flight.getVersion());
+                changed = pstmt.executeUpdate();
+            }
+            if (changed == 0) {
+                return false;
+            }
+            // last_insert_rowid() is stale when the upsert took the update path, so read the row back
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT id, version FROM flights WHERE flight_number = ?")) {
+                pstmt.setString(1, flight.getFlightNumber());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        flight.setId(rs.getInt("id"));
+                        flight.setVersion(rs.getInt("version"));
+                    }
+                }
+            }
+            return true;
+        }));
+        if (saved == null || !saved) {
+            System.out.println("No changes made to flight: " + flight.getFlightNumber());
+            return false;
+        }
+        System.out.println("Flight saved: " + flight.getFlightNumber());
+        return true;
+    }
+
+    /**
+     * Inserts or updates many flights in one transaction, batching the upserts
+     * through a single prepared statement. The rows are pulled from the iterator
+     * as they are written, so a schedule file can be streamed without holding it
+     * in memory. Imported rows are authoritative for route, capacity and price:
+     * there is no version check, but booked seats are never overwritten, and a
+     * row that would drop capacity below the seats already booked (or changes
+     * nothing) is skipped. If the iterator or any statement fails, nothing is kept.
+     * @param flights Rows to import; consumed on the writer thread
+     * @param batchSize Rows per executeBatch call
+     * @param progress Called after each batch with the number of rows sent so far; may be null
+     * @return Number of flights inserted or changed, or -1 on failure
+     */
+    public long importFlights(Iterator<Flight> flights, int batchSize, LongConsumer progress) {
+        int rowsPerBatch = Math.max(1, batchSize);
+        Long written = awaitCommit(submitWrite(conn -> {
+            long rows = 0;
+            long changed = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(IMPORT_FLIGHT_SQL)) {
+                while (flights.hasNext()) {
+                    bindFlightUpsert(pstmt, flights.next());
+                    pstmt.addBatch();
+                    if (++rows % rowsPerBatch == 0) {
+                        changed += sumUpdateCounts(pstmt.executeBatch());
+                        if (progress != null) {
+                            progress.accept(rows);
+                        }
+                    }
+                }
+                if (rows % rowsPerBatch != 0) {
+                    changed += sumUpdateCounts(pstmt.executeBatch());
+                    if (progress != null) {
+                        progress.accept(rows);
+                    }
+                }
+            }
+            return changed;
+        }));
+        return written == null ? -1 : written;
+    }
+
+    // Binds the seven insert columns shared by SAVE_FLIGHT_SQL and IMPORT_FLIGHT_SQL
+    private void bindFlightUpsert(PreparedStatement pstmt, Flight flight) throws SQLException {
+        pstmt.setString(1, flight.getDeparture());
+        pstmt.setString(2, flight.getDestination());
+        pstmt.setInt(3, flight.getCapacity());
+        pstmt.setInt(4, flight.getBookedSeats());
+        pstmt.setDouble(5, flight.getBaseFare());
+        pstmt.setString(6, flight.getFlightNumber());
+        pstmt.setString(7, fareBucketsColumn(flight.getFareBuckets()));
+    }
+
+    // Value stored in flights.fare_buckets: NULL for the default buckets, else the spec
+    private static String fareBucketsColumn(FareBuckets buckets) {
+        return buckets == null ? null : buckets.toSpec();
+    }
+
+    private static long sumUpdateCounts(int[] counts) {
+        long total = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Updates a flight's route, capacity and base fare if nobody changed it since
+     * flight.getVersion() was read. booked_seats is never written here, so the
+     * update cannot overwrite seats booked in the meantime, and capacity is only
+     * lowered if the seats already booked still fit.
+     * @param flight The edited flight; its ID and version must be the ones read. On success its version is bumped
+     * @return UPDATED, CONFLICT if the version moved on, REJECTED if the flight is gone or capacity
+     *         is below its booked seats, FAILED on a database error
+     */
+    public UpdateStatus updateFlight(Flight flight) {
+        String updateSql = "UPDATE flights SET origin = ?, destination = ?, capacity = ?, price = ?, version = version + 1 " +
+                           "WHERE id = ? AND version = ? AND booked_seats <= ?";
+        String versionSql = "SELECT version FROM flights WHERE id = ?";
+        UpdateStatus status = awaitCommit(submitWrite(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(updateSql)) {
                 pstmt.setString(1, flight.getDeparture());
                 pstmt.setString(2, flight.getDestination());
                 pstmt.setInt(3, flight.getCapacity());
-                pstmt.setInt(4, flight.getBookedSeats());
-                pstmt.setDouble(5, flight.getPrice());
-                pstmt.setString(6, flight.getFlightNumber());
-            } else {
-                // Flight doesn't exist, use INSERT
-                sql = "INSERT INTO flights (flight_number, origin, destination, capacity, booked_seats, price) VALUES (?, ?, ?, ?, ?, ?)";
-                pstmt = connection.prepareStatement(sql);
-                pstmt.setString(1, flight.getFlightNumber());
-                pstmt.setString(2, flight.getDeparture());
-                pstmt.setString(3, flight.getDestination());
-                pstmt.setInt(4, flight.getCapacity());
-                pstmt.setInt(5, flight.getBookedSeats());
-                pstmt.setDouble(6, flight.getPrice());
+                pstmt.setDouble(4, flight.getBaseFare());
+                pstmt.setInt(5, flight.getId());
+                pstmt.setInt(6, flight.getVersion());
+                pstmt.setInt(7, flight.getCapacity());
+                if (pstmt.executeUpdate() > 0) {
+                    return UpdateStatus.UPDATED;
+                }
             }
-            
-            int affectedRows = pstmt.executeUpdate();
-            pstmt.close();
-            
-            if (affectedRows > 0) {
-                System.out.println("Flight " + (flightExists ? "updated" : "saved") + ": " + flight.getFlightNumber());
-            } else {
-                System.out.println("No changes made to flight: " + flight.getFlightNumber());
+            // Nothing matched; find out why
+            try (PreparedStatement pstmt = conn.prepareStatement(versionSql)) {
+                pstmt.setInt(1, flight.getId());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return UpdateStatus.REJECTED;
+                    }
+                    return rs.getInt(1) != flight.getVersion() ? UpdateStatus.CONFLICT : UpdateStatus.REJECTED;
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        }));
+        if (status == null) {
+            return UpdateStatus.FAILED;
         }
+        if (status == UpdateStatus.UPDATED) {
+            flight.setVersion(flight.getVersion() + 1);
+            System.out.println("Flight updated: " + flight.getFlightNumber());
+        }
+        return status;
     }
 
     public void loadFlights(BookingSystem system) {
-        try {
-            System.out.println("Loading flights from database...");
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT * FROM flights");
-            
+        System.out.println("Loading flights from database...");
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM flights");
+             ResultSet rs = pstmt.executeQuery()) {
+
             while (rs.next()) {
-                Flight flight = new Flight(
-                    rs.getString("flight_number"),
-                    rs.getString("origin"),
-                    rs.getString("destination"),
-                    rs.getInt("capacity"),
-                    rs.getDouble("price")
-                );
-                flight.setBookedSeats(rs.getInt("booked_seats"));
+                Flight flight = mapFlight(rs);
                 system.addFlightLoaded(flight);
                 System.out.println("Loaded flight: " + flight.getFlightNumber());
             }
-            
-            rs.close();
-            stmt.close();
+
             System.out.println("Flights loaded from database.");
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    // Builds a Flight (including its database ID) from the current row of a flights result set
+    private Flight mapFlight(ResultSet rs) throws SQLException {
+        Flight flight = new Flight(
+            rs.getString("flight_number"),
+            rs.getString("origin"),
+            rs.getString("destination"),
+            rs.getInt("capacity"),
+            rs.getDouble("price")
+        );
+        flight.setId(rs.getInt("id"));
+        flight.setBookedSeats(rs.getInt("booked_seats"));
+        flight.setVersion(rs.getInt("version"));
+        flight.setPricing(pricing);
+        String fareBuckets = rs.getString("fare_buckets");
+        if (fareBuckets != null) {
+            try {
+                flight.setFareBuckets(FareBuckets.parse(fareBuckets));
+            } catch (IllegalArgumentException e) {
+                // Keep the default buckets rather than losing the flight
+                e.printStackTrace();
+            }
+        }
+        return flight;
+    }
+
+    /**
+     * Sets the load-factor fare buckets of a flight. Booked seats are left alone.
+     * @param buckets The flight's own buckets, or null for the pricing engine's default ones
+     * @return true if the flight exists and was updated
+     */
+    public boolean updateFareBuckets(int flightId, FareBuckets buckets) {
+        String sql = "UPDATE flights SET fare_buckets = ?, version = version + 1 WHERE id = ?";
+        Integer updated = awaitCommit(submitWrite(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, fareBucketsColumn(buckets));
+                pstmt.setInt(2, flightId);
+                return pstmt.executeUpdate();
+            }
+        }));
+        return updated != null && updated > 0;
+    }
+
     public void updateFlightSeats(String flightNumber, int bookedSeats) {
-        try {
-             System.out.println("Updating seats for flight: " + flightNumber);
-            String sql = "UPDATE flights SET booked_seats = ? WHERE flight_number = ?";
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setInt(1, bookedSeats);
-            pstmt.setString(2, flightNumber);
-            pstmt.executeUpdate();
-            pstmt.close();
-             System.out.println("Seats updated for flight: " + flightNumber);
-        } catch (SQLException e) {
-            e.printStackTrace();
+        System.out.println("Updating seats for flight: " + flightNumber);
+        if (awaitCommit(updateFlightSeatsAsync(flightNumber, bookedSeats)) != null) {
+            System.out.println("Seats updated for flight: " + flightNumber);
         }
     }
 
+    /**
+     * Queues a seat count update for the next group commit
+     * @return Completes with the number of rows updated once committed
+     */
+    public CompletableFuture<Integer> updateFlightSeatsAsync(String flightNumber, int bookedSeats) {
+        String sql = "UPDATE flights SET booked_seats = ?, version = version + 1 WHERE flight_number = ?";
+        return submitWrite(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, bookedSeats);
+                pstmt.setString(2, flightNumber);
+                return pstmt.executeUpdate();
+            }
+        });
+    }
+
     public long registerUser(String username, String password, String email, String phoneNumber, String userId, String role) {
+        String passwordHash = credentials.hash(password);
+        if (passwordHash == null) {
+            System.err.println("Registration failed: password could not be hashed (too many requests in progress).");
+            return -3L;
+        }
         Long result = executeWithRetry(conn -> {
             String sql = "INSERT INTO users (username, password, email, phone_number, user_id, role) VALUES (?, ?, ?, ?, ?, ?)";
             try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
                 pstmt.setString(1, username);
-                pstmt.setString(2, password);
+                pstmt.setString(2, passwordHash);
                 pstmt.setString(3, email);
                 pstmt.setString(4, phoneNumber);
                 pstmt.setString(5, userId);
@@ -402,247 +792,579 @@ public class DatabaseManager {
         return result != null ? result : -3L;
     }
 
+    /**
+     * Checks the credentials against the stored password hash (passwords are never
+     * cached) and caches the profile for later lookups. Verification runs on the
+     * credential pool. A row still in plain text or hashed at a lower cost is
+     * rehashed and replaced after a successful login.
+     * @return The user, without its password, or null if the credentials do not match
+     *         or could not be checked
+     */
     public User loginUser(String username, String password) {
-        try {
-            String sql = "SELECT id, username, email, phone_number, user_id, role FROM users WHERE username = ? AND password = ?";
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        String sql = "SELECT " + USER_PROFILE_COLUMNS + ", password FROM users WHERE username = ?";
+        long loadStamp = userCache.startLoad();
+        User user = null;
+        String stored = null;
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
-            pstmt.setString(2, password);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                int id = rs.getInt("id");
-                String email = rs.getString("email");
-                String phoneNumber = rs.getString("phone_number");
-                String userId = rs.getString("user_id");
-                String role = rs.getString("role");
-
-                User loggedInUser;
-
-                // Create the appropriate User subclass based on role
-                switch (role) {
-                    case "Administrator":
-                        loggedInUser = new Administrator(id, username, password, email, phoneNumber, userId);
-                        break;
-                    case "Agent":
-                        loggedInUser = new Agent(id, username, password, email, phoneNumber, userId);
-                        break;
-                    case "Customer":
-                    default:
-                        loggedInUser = new Customer(id, username, password, email, phoneNumber, userId);
-                        break;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    // Create the appropriate User subclass based on role
+                    user = mapUserProfile(rs);
+                    stored = rs.getString("password");
                 }
-
-                System.out.println("User logged in: " + loggedInUser.getUsername() + " (User ID: " + loggedInUser.getUserId() + ", Role: " + loggedInUser.getRole() + ")");
-                rs.close();
-                pstmt.close();
-                return loggedInUser;
             }
-
-            rs.close();
-            pstmt.close();
         } catch (SQLException e) {
             e.printStackTrace();
+            return null;
         }
-        System.out.println("Login failed for username: " + username);
-        return null;
+
+        // Unknown usernames are checked too, so they take as long as wrong passwords
+        CredentialService.Verification verification = credentials.verify(password, stored);
+        if (verification.isBusy()) {
+            System.out.println("Login for " + username + " could not be checked: too many logins in progress");
+            return null;
+        }
+        if (!verification.isMatch()) {
+            System.out.println("Login failed for username: " + username);
+            return null;
+        }
+        if (verification.getUpgradedHash() != null) {
+            upgradePasswordHash(user.getId(), stored, verification.getUpgradedHash());
+        }
+        userCache.put(user, loadStamp);
+        System.out.println("User logged in: " + user.getUsername() + " (User ID: " + user.getUserId() + ", Role: " + user.getRole() + ")");
+        return user;
+    }
+
+    // Replaces a legacy or weaker password row in the background; skipped if the
+    // password changed in the meantime. Login does not wait for it.
+    private void upgradePasswordHash(int id, String oldValue, String newHash) {
+        submitWrite(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE users SET password = ? WHERE id = ? AND password = ?")) {
+                pstmt.setString(1, newHash);
+                pstmt.setInt(2, id);
+                pstmt.setString(3, oldValue);
+                return pstmt.executeUpdate();
+            }
+        }).exceptionally(e -> {
+            e.printStackTrace();
+            return 0;
+        });
     }
 
     public boolean updateUser(int dbId, String email, String phoneNumber, String newPassword) {
-        try {
-            String sql;
-            PreparedStatement pstmt;
-
-            if (newPassword != null && !newPassword.isEmpty()) {
-                // Update email, phone number, and password
-                sql = "UPDATE users SET email = ?, phone_number = ?, password = ? WHERE db_id = ?";
-                pstmt = connection.prepareStatement(sql);
-                pstmt.setString(1, email);
-                pstmt.setString(2, phoneNumber);
-                pstmt.setString(3, newPassword);
+        boolean updatePassword = newPassword != null && !newPassword.isEmpty();
+        String passwordHash = null;
+        if (updatePassword) {
+            passwordHash = credentials.hash(newPassword);
+            if (passwordHash == null) {
+                System.err.println("Profile update failed: password could not be hashed (too many requests in progress).");
+                return false;
+            }
+        }
+        String sql = updatePassword
+            // Update email, phone number, and password
+            ? "UPDATE users SET email = ?, phone_number = ?, password = ? WHERE id = ?"
+            // Update email and phone number only
+            : "UPDATE users SET email = ?, phone_number = ? WHERE id = ?";
+        try (Connection conn = writeConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, email);
+            pstmt.setString(2, phoneNumber);
+            if (updatePassword) {
+                pstmt.setString(3, passwordHash);
                 pstmt.setInt(4, dbId);
             } else {
-                // Update email and phone number only
-                sql = "UPDATE users SET email = ?, phone_number = ? WHERE db_id = ?";
-                pstmt = connection.prepareStatement(sql);
-                pstmt.setString(1, email);
-                pstmt.setString(2, phoneNumber);
                 pstmt.setInt(3, dbId);
             }
 
             int affectedRows = pstmt.executeUpdate();
-            pstmt.close();
             return affectedRows > 0;
 
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
+        } finally {
+            userCache.invalidate(dbId);
         }
     }
 
-    public boolean saveBooking(Booking booking) {
-        String sql = "INSERT INTO bookings (user_id, flight_id, num_seats, booking_date, status) VALUES (?, ?, ?, ?, ?)";
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        try {
-            conn = getConnection();
-            if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in saveBooking: Database connection is null or closed.");
-                 return false;
+    /**
+     * Inserts a booking as-is, without touching the flight's seat count
+     * @param booking The booking to save; its generated ID is set on success
+     * @return The saved booking, or null if the insert failed
+     */
+    public Booking saveBooking(Booking booking) {
+        return awaitCommit(saveBookingAsync(booking));
+    }
+
+    /**
+     * Queues a booking insert for the next group commit
+     * @return Completes with the booking, its generated ID set, once committed
+     */
+    public CompletableFuture<Booking> saveBookingAsync(Booking booking) {
+        return submitWrite(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_BOOKING_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindBookingInsert(pstmt, booking);
+                pstmt.executeUpdate();
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("No ID generated for booking");
+                    }
+                    booking.setBookingId(generatedKeys.getInt(1));
+                }
+                return booking;
             }
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, booking.getUserId());
-            pstmt.setInt(2, booking.getFlightId());
-            pstmt.setInt(3, booking.getNumSeats());
-            pstmt.setString(4, booking.getBookingDate());
-            pstmt.setString(5, booking.getStatus());
-            pstmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        } finally {
-            try {
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+        });
+    }
+
+    /**
+     * Reserves seats and records the booking in one transaction.
+     * The seat check and the increment are a single conditional UPDATE, so two
+     * concurrent reservations can never both take the last seats.
+     * @param booking The booking to create; its generated ID is set on success
+     * @return RESERVED with the saved booking, SOLD_OUT, FLIGHT_NOT_FOUND or FAILED
+     */
+    public ReservationResult reserveSeats(Booking booking) {
+        return reserveSeats(booking, Collections.emptyList());
+    }
+
+    /**
+     * Same as reserveSeats, but also saves the booking's passengers and links them in
+     * the same transaction. If a passenger cannot be saved (e.g. a passport number
+     * that is already on file) no seats are taken and the result is FAILED.
+     * @param passengers Unsaved passengers; their generated IDs are set on success
+     */
+    public ReservationResult reserveSeats(Booking booking, List<Passenger> passengers) {
+        if (booking.getNumSeats() <= 0) {
+            return ReservationResult.failed("Number of seats must be positive: " + booking.getNumSeats());
+        }
+        String reserveSql = "UPDATE flights SET booked_seats = booked_seats + ? " +
+                            "WHERE id = ? AND booked_seats + ? <= capacity";
+        String existsSql = "SELECT 1 FROM flights WHERE id = ?";
+
+        // Runs in its own savepoint inside a group commit, so the seat update and
+        // the insert still commit or roll back together
+        ReservationResult result = awaitCommit(submitWrite(conn -> {
+            try (PreparedStatement reserveStmt = conn.prepareStatement(reserveSql)) {
+                reserveStmt.setInt(1, booking.getNumSeats());
+                reserveStmt.setInt(2, booking.getFlightId());
+                reserveStmt.setInt(3, booking.getNumSeats());
+                if (reserveStmt.executeUpdate() == 0) {
+                    // Nothing was reserved; find out whether the flight is full or missing
+                    try (PreparedStatement existsStmt = conn.prepareStatement(existsSql)) {
+                        existsStmt.setInt(1, booking.getFlightId());
+                        try (ResultSet rs = existsStmt.executeQuery()) {
+                            return rs.next()
+                                ? ReservationResult.soldOut(booking.getFlightId(), booking.getNumSeats())
+                                : ReservationResult.flightNotFound(booking.getFlightId());
+                        }
+                    }
+                }
             }
+
+            if (!booking.hasFare()) {
+                // No live fare was quoted (the flight is not in memory); charge the base fare,
+                // as booking details do for bookings without one
+                try (PreparedStatement fareStmt = conn.prepareStatement("SELECT price FROM flights WHERE id = ?")) {
+                    fareStmt.setInt(1, booking.getFlightId());
+                    try (ResultSet rs = fareStmt.executeQuery()) {
+                        if (rs.next()) {
+                            booking.setFare(rs.getDouble(1));
+                        }
+                    }
+                }
+            }
+            try (PreparedStatement insertStmt = conn.prepareStatement(INSERT_BOOKING_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindBookingInsert(insertStmt, booking);
+                insertStmt.executeUpdate();
+                try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        booking.setBookingId(generatedKeys.getInt(1));
+                    }
+                }
+            }
+            if (!passengers.isEmpty()) {
+                int[] passengerIds;
+                try {
+                    passengerIds = insertPassengers(conn, booking.getBookingId(), passengers);
+                } catch (SQLException e) {
+                    // Rolls back the seats and the booking with the passengers
+                    throw new PassengerSaveException(e);
+                }
+                for (int i = 0; i < passengerIds.length; i++) {
+                    passengers.get(i).setPassengerId(passengerIds[i]);
+                }
+            }
+            return ReservationResult.reserved(booking);
+        }).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            cause.printStackTrace();
+            return ReservationResult.failed(cause instanceof PassengerSaveException
+                ? cause.getMessage() : "Database error while reserving seats");
+        }));
+        return result != null ? result : ReservationResult.failed("Database error while reserving seats");
+    }
+
+    // A passenger of a new booking could not be saved, so the reservation is rolled back
+    private static final class PassengerSaveException extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        PassengerSaveException(SQLException cause) {
+            super("Could not save passengers: " + cause.getMessage(), cause);
         }
     }
 
+    // Binds the columns of INSERT_BOOKING_SQL
+    private static void bindBookingInsert(PreparedStatement pstmt, Booking booking) throws SQLException {
+        pstmt.setInt(1, booking.getUserId());
+        pstmt.setInt(2, booking.getFlightId());
+        pstmt.setInt(3, booking.getNumSeats());
+        pstmt.setString(4, booking.getBookingDate());
+        pstmt.setString(5, booking.getStatus());
+        if (booking.hasFare()) {
+            pstmt.setDouble(6, booking.getFare());
+        } else {
+            pstmt.setNull(6, Types.REAL);
+        }
+    }
+
+    // Runs work inside a transaction on the given connection; any exception rolls
+    // everything back so nothing is half-applied
+    private <T> T inTransaction(Connection conn, DatabaseWork<T> work) throws SQLException {
+        boolean previousAutoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            T result = work.execute();
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(previousAutoCommit);
+        }
+    }
+
+    // Unit of work run by inTransaction
+    private interface DatabaseWork<T> {
+        T execute() throws SQLException;
+    }
+
     public List<Booking> getUserBookings(int userId) {
         List<Booking> bookings = new ArrayList<>();
         String sql = "SELECT * FROM bookings WHERE user_id = ?";
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        try {
-            conn = getConnection();
-            if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in getUserBookings: Database connection is null or closed.");
-                 return bookings;
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bookings.add(mapBooking(rs));
+                }
             }
-            pstmt = conn.prepareStatement(sql);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return bookings;
+    }
+
+    // Bookings joined with the flight columns the booking screens show. price is the fare
+    // recorded on the booking, or the flight's base fare for bookings made before fares were kept.
+    private static final String BOOKING_DETAILS_SQL =
+        "SELECT b.id, b.user_id, b.flight_id, b.num_seats, b.booking_date, b.status, b.fare, " +
+        "f.flight_number, f.origin, f.destination, COALESCE(b.fare, f.price) AS price " +
+        "FROM bookings b LEFT JOIN flights f ON f.id = b.flight_id";
+
+    /**
+     * Gets a user's bookings with flight number, route and price in one query
+     * @param userId The user's database ID
+     * @return List of booking details ordered by booking ID
+     */
+    public List<BookingDetails> getUserBookingDetails(int userId) {
+        List<BookingDetails> details = new ArrayList<>();
+        String sql = BOOKING_DETAILS_SQL + " WHERE b.user_id = ? ORDER BY b.id";
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
-            rs = pstmt.executeQuery();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    details.add(mapBookingDetails(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return details;
+    }
+
+    /**
+     * Gets every booking with flight number, route and price in one query
+     * @return List of booking details ordered by booking ID
+     */
+    public List<BookingDetails> getAllBookingDetails() {
+        List<BookingDetails> details = new ArrayList<>();
+        String sql = BOOKING_DETAILS_SQL + " ORDER BY b.id";
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                Booking booking = new Booking(
-                    rs.getInt("id"),
-                    rs.getInt("user_id"),
-                    rs.getInt("flight_id"),
-                    rs.getInt("num_seats"),
-                    rs.getString("booking_date"),
-                    rs.getString("status")
-                );
-                bookings.add(booking);
+                details.add(mapBookingDetails(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+        }
+        return details;
+    }
+
+    /**
+     * Gets one page of booking details using keyset pagination.
+     * Seeks past the last booking already shown instead of using OFFSET, so
+     * every page costs the same no matter how far the user has scrolled.
+     * @param afterBookingId ID of the last booking on the previous page, or 0 for the first page
+     * @param limit Maximum number of bookings to return
+     * @return Booking details with IDs greater than afterBookingId, ordered by booking ID
+     */
+    public List<BookingDetails> getBookingDetailsPage(int afterBookingId, int limit) {
+        List<BookingDetails> details = new ArrayList<>();
+        String sql = BOOKING_DETAILS_SQL + " WHERE b.id > ? ORDER BY b.id LIMIT ?";
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, afterBookingId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    details.add(mapBookingDetails(rs));
+                }
             }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return details;
+    }
+
+    // Builds a BookingDetails from the current row of a BOOKING_DETAILS_SQL result set
+    private BookingDetails mapBookingDetails(ResultSet rs) throws SQLException {
+        BookingDetails details = new BookingDetails(
+            rs.getInt("id"),
+            rs.getInt("user_id"),
+            rs.getInt("flight_id"),
+            rs.getInt("num_seats"),
+            rs.getString("booking_date"),
+            rs.getString("status"),
+            rs.getString("flight_number"),
+            rs.getString("origin"),
+            rs.getString("destination"),
+            rs.getDouble("price")
+        );
+        double fare = rs.getDouble("fare");
+        if (!rs.wasNull()) {
+            details.setFare(fare);
         }
-        return bookings;
+        return details;
+    }
+
+    // Builds a Booking from the current row of a bookings result set
+    private Booking mapBooking(ResultSet rs) throws SQLException {
+        Booking booking = new Booking(
+            rs.getInt("id"),
+            rs.getInt("user_id"),
+            rs.getInt("flight_id"),
+            rs.getInt("num_seats"),
+            rs.getString("booking_date"),
+            rs.getString("status")
+        );
+        booking.setVersion(rs.getInt("version"));
+        double fare = rs.getDouble("fare");
+        if (!rs.wasNull()) {
+            booking.setFare(fare);
+        }
+        return booking;
     }
 
-    // Modified cancelBooking to handle partial cancellation and return flightId and seats cancelled
+    /**
+     * Cancels seats from a user's booking and releases them on the flight in one transaction.
+     * Cancelling every seat deletes the booking. The flight's booked_seats is decremented
+     * in place rather than rewritten, so concurrent bookings on the same flight are not lost.
+     * @return {flightId, seatsCancelled}, or null if the booking is not the user's,
+     *         the seat count is invalid or the transaction failed
+     */
     public int[] cancelBooking(int bookingId, int userId, int numSeatsToCancel) {
         String selectSql = "SELECT flight_id, num_seats FROM bookings WHERE id = ? AND user_id = ?";
-        String updateSql = "UPDATE bookings SET num_seats = ? WHERE id = ?";
+        String updateSql = "UPDATE bookings SET num_seats = num_seats - ?, version = version + 1 WHERE id = ?";
         String deleteSql = "DELETE FROM bookings WHERE id = ?";
 
-        int flightId = -1;
-        int actualSeatsCancelled = 0;
-
-        try (PreparedStatement selectPstmt = connection.prepareStatement(selectSql)) {
-            selectPstmt.setInt(1, bookingId);
-            selectPstmt.setInt(2, userId);
-            ResultSet rs = selectPstmt.executeQuery();
+        return awaitCommit(submitWrite(conn -> {
+            int flightId;
+            int currentNumSeats;
+            try (PreparedStatement selectPstmt = conn.prepareStatement(selectSql)) {
+                selectPstmt.setInt(1, bookingId);
+                selectPstmt.setInt(2, userId);
+                try (ResultSet rs = selectPstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        // Booking not found or does not belong to the user
+                        System.out.println("Attempted to cancel booking ID " + bookingId + " for user ID " + userId + ", but verification failed.");
+                        return null;
+                    }
+                    flightId = rs.getInt("flight_id");
+                    currentNumSeats = rs.getInt("num_seats");
+                }
+            }
 
-            if (rs.next()) {
-                flightId = rs.getInt("flight_id");
-                int currentNumSeats = rs.getInt("num_seats");
-                rs.close();
+            // Validate numSeatsToCancel
+            if (numSeatsToCancel <= 0 || numSeatsToCancel > currentNumSeats) {
+                System.err.println("Invalid number of seats to cancel: " + numSeatsToCancel + " for booking ID: " + bookingId);
+                return null;
+            }
 
-                // Validate numSeatsToCancel
-                if (numSeatsToCancel <= 0 || numSeatsToCancel > currentNumSeats) {
-                    System.err.println("Invalid number of seats to cancel: " + numSeatsToCancel + " for booking ID: " + bookingId);
-                    return null; // Indicate failure due to invalid seats
+            if (numSeatsToCancel < currentNumSeats) {
+                // Partial cancellation
+                try (PreparedStatement updatePstmt = conn.prepareStatement(updateSql)) {
+                    updatePstmt.setInt(1, numSeatsToCancel);
+                    updatePstmt.setInt(2, bookingId);
+                    updatePstmt.executeUpdate();
                 }
+                System.out.println("Partially cancelled " + numSeatsToCancel + " seats for booking ID " + bookingId);
+            } else {
+                // Full cancellation
+                try (PreparedStatement deletePstmt = conn.prepareStatement(deleteSql)) {
+                    deletePstmt.setInt(1, bookingId);
+                    deletePstmt.executeUpdate();
+                }
+                System.out.println("Fully cancelled booking ID " + bookingId);
+            }
+            try (PreparedStatement releasePstmt = conn.prepareStatement(RELEASE_SEATS_SQL)) {
+                releasePstmt.setInt(1, numSeatsToCancel);
+                releasePstmt.setInt(2, flightId);
+                releasePstmt.executeUpdate();
+            }
+            return new int[]{flightId, numSeatsToCancel};
+        }));
+    }
 
-                if (numSeatsToCancel < currentNumSeats) {
-                    // Partial cancellation
-                    int remainingSeats = currentNumSeats - numSeatsToCancel;
-                    try (PreparedStatement updatePstmt = connection.prepareStatement(updateSql)) {
-                        updatePstmt.setInt(1, remainingSeats);
-                        updatePstmt.setInt(2, bookingId);
-                        int affectedRows = updatePstmt.executeUpdate();
-                        if (affectedRows > 0) {
-                            actualSeatsCancelled = numSeatsToCancel;
-                            System.out.println("Partially cancelled " + actualSeatsCancelled + " seats for booking ID " + bookingId);
-                            return new int[]{flightId, actualSeatsCancelled}; // Success
-                        }
+    /**
+     * @return The distinct flight IDs the given bookings are on; missing bookings are skipped
+     */
+    public Set<Integer> getFlightIdsForBookings(Collection<Integer> bookingIds) {
+        Set<Integer> flightIds = new HashSet<>();
+        List<Integer> ids = new ArrayList<>(bookingIds);
+        try (Connection conn = readConnection()) {
+            for (int start = 0; start < ids.size(); start += MAX_IN_PARAMETERS) {
+                List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IN_PARAMETERS));
+                String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT DISTINCT flight_id FROM bookings WHERE id IN (" + placeholders + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
                     }
-                } else {
-                    // Full cancellation (numSeatsToCancel == currentNumSeats)
-                    try (PreparedStatement deletePstmt = connection.prepareStatement(deleteSql)) {
-                        deletePstmt.setInt(1, bookingId);
-                        int affectedRows = deletePstmt.executeUpdate();
-                         if (affectedRows > 0) {
-                            actualSeatsCancelled = currentNumSeats; // Cancelled all seats
-                             System.out.println("Fully cancelled booking ID " + bookingId);
-                             return new int[]{flightId, actualSeatsCancelled}; // Success
-                         }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            flightIds.add(rs.getInt(1));
+                        }
                     }
                 }
-            } else {
-                // Booking not found or does not belong to the user
-                System.out.println("Attempted to cancel booking ID " + bookingId + " for user ID " + userId + ", but verification failed.");
-                return null; // Indicate failure
             }
-
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return flightIds;
+    }
+
+    /**
+     * Cancels whole bookings, for example every booking on a disrupted flight.
+     * All of them are deleted and their seats released in one transaction, with one
+     * relative seat update per affected flight. IDs that do not exist are skipped.
+     * @param bookingIds Bookings to cancel
+     * @return What was cancelled, or null if the transaction failed and nothing changed
+     */
+    public CancellationResult cancelBookings(Collection<Integer> bookingIds) {
+        return cancelBookings(bookingIds, false);
+    }
+
+    /**
+     * Same as cancelBookings, but with allOrNothing set, IDs that do not exist cancel
+     * nothing at all: the result is then empty.
+     */
+    public CancellationResult cancelBookings(Collection<Integer> bookingIds, boolean allOrNothing) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(bookingIds));
+        if (ids.isEmpty()) {
+            return new CancellationResult(new ArrayList<>(), new LinkedHashMap<>());
+        }
+
+        return awaitCommit(submitWrite(conn -> {
+            List<Integer> cancelled = new ArrayList<>();
+            Map<Integer, Integer> seatsByFlight = new LinkedHashMap<>();
+            for (int start = 0; start < ids.size(); start += MAX_IN_PARAMETERS) {
+                List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IN_PARAMETERS));
+                String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                try (PreparedStatement selectPstmt = conn.prepareStatement(
+                        "SELECT id, flight_id, num_seats FROM bookings WHERE id IN (" + placeholders + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        selectPstmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = selectPstmt.executeQuery()) {
+                        while (rs.next()) {
+                            cancelled.add(rs.getInt("id"));
+                            seatsByFlight.merge(rs.getInt("flight_id"), rs.getInt("num_seats"), Integer::sum);
+                        }
+                    }
+                }
+            }
+            if (allOrNothing && cancelled.size() < ids.size()) {
+                System.out.println("Cancelled none of " + ids.size() + " requested bookings: "
+                    + (ids.size() - cancelled.size()) + " not found");
+                return new CancellationResult(new ArrayList<>(), new LinkedHashMap<>());
+            }
 
-        return null; // Indicate general failure
+            try (PreparedStatement deletePstmt = conn.prepareStatement("DELETE FROM bookings WHERE id = ?")) {
+                for (int bookingId : cancelled) {
+                    deletePstmt.setInt(1, bookingId);
+                    deletePstmt.addBatch();
+                }
+                deletePstmt.executeBatch();
+            }
+            try (PreparedStatement releasePstmt = conn.prepareStatement(RELEASE_SEATS_SQL)) {
+                for (Map.Entry<Integer, Integer> flight : seatsByFlight.entrySet()) {
+                    releasePstmt.setInt(1, flight.getValue());
+                    releasePstmt.setInt(2, flight.getKey());
+                    releasePstmt.addBatch();
+                }
+                releasePstmt.executeBatch();
+            }
+            System.out.println("Cancelled " + cancelled.size() + " of " + ids.size() + " requested bookings");
+            return new CancellationResult(cancelled, seatsByFlight);
+        }));
     }
 
     public void close() {
-        try {
-             System.out.println("Attempting to close database connection...");
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                 System.out.println("Database connection closed.");
-            } else {
-                 System.out.println("Database connection is already null or closed. No action needed.");
+         System.out.println("Attempting to close database connection pool...");
+        if (pool != null && !pool.isClosed()) {
+            // Commit whatever is still queued before the writer connection goes away
+            if (groupCommit != null) {
+                groupCommit.close();
+                System.out.println(groupCommit.getMetricsSummary());
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            System.out.println(pool.getMetricsSummary());
+            System.out.println(userCache.getMetricsSummary());
+            System.out.println(credentials.getMetricsSummary());
+            credentials.shutdown();
+            pool.close();
+             System.out.println("Database connection pool closed.");
+        } else {
+             System.out.println("Database connection pool is already null or closed. No action needed.");
         }
     }
 
     public Flight getFlightById(int flightId) {
-        try {
-            String sql = "SELECT * FROM flights WHERE id = ?";
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        String sql = "SELECT * FROM flights WHERE id = ?";
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, flightId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                Flight flight = new Flight(
-                    rs.getString("flight_number"),
-                    rs.getString("origin"),
-                    rs.getString("destination"),
-                    rs.getInt("capacity"),
-                    rs.getDouble("price")
-                );
-                flight.setBookedSeats(rs.getInt("booked_seats"));
-                return flight;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapFlight(rs);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -652,11 +1374,13 @@ public class DatabaseManager {
 
     public int getFlightId(String flightNumber) {
         String sql = "SELECT id FROM flights WHERE flight_number = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, flightNumber);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("id");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("id");
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -667,21 +1391,45 @@ public class DatabaseManager {
     // New method to get all flights from the database
     public ArrayList<Flight> getAllFlightsFromDB() {
         ArrayList<Flight> flights = new ArrayList<>();
-        try {
-            String sql = "SELECT * FROM flights";
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        String sql = "SELECT * FROM flights";
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                Flight flight = new Flight(
-                    rs.getString("flight_number"),
-                    rs.getString("origin"),
-                    rs.getString("destination"),
-                    rs.getInt("capacity"),
-                    rs.getDouble("price")
-                );
-                flight.setBookedSeats(rs.getInt("booked_seats"));
-                flights.add(flight);
+                flights.add(mapFlight(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return flights;
+    }
+
+    /**
+     * Searches flights in the database. Slower fallback for when the in-memory
+     * inventory is not loaded; matches the same way as FlightSearchIndex.
+     * @param criteria The search filters
+     * @param limit Maximum number of flights to return
+     * @return Matching flights ordered by price, then flight number
+     */
+    public List<Flight> searchFlights(FlightSearchCriteria criteria, int limit) {
+        List<Flight> flights = new ArrayList<>();
+        String sql = "SELECT * FROM flights " +
+                     "WHERE LOWER(origin) LIKE ? ESCAPE '\\' AND LOWER(destination) LIKE ? ESCAPE '\\' " +
+                     "AND price BETWEEN ? AND ? AND capacity - booked_seats >= ? " +
+                     "ORDER BY price, flight_number LIMIT ?";
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, likePrefix(criteria.getOrigin()));
+            pstmt.setString(2, likePrefix(criteria.getDestination()));
+            pstmt.setDouble(3, criteria.getMinPrice());
+            pstmt.setDouble(4, criteria.getMaxPrice());
+            pstmt.setInt(5, criteria.getMinAvailableSeats());
+            pstmt.setInt(6, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    flights.add(mapFlight(rs));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -689,16 +1437,20 @@ public class DatabaseManager {
         return flights;
     }
 
+    // LIKE pattern matching values that start with prefix, with wildcards escaped
+    private static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
     private boolean userExists(String username) {
-        try {
-            String sql = "SELECT COUNT(*) FROM users WHERE username = ?";
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        String sql = "SELECT COUNT(*) FROM users WHERE username = ?";
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            int count = rs.getInt(1);
-            rs.close();
-            pstmt.close();
-            return count > 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int count = rs.getInt(1);
+                return count > 0;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
             return false; // Assume user doesn't exist in case of error
@@ -728,7 +1480,8 @@ public class DatabaseManager {
     // Method to delete a flight by flight number
     public boolean deleteFlight(String flightNumber) {
         String sql = "DELETE FROM flights WHERE flight_number = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = writeConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, flightNumber);
             int affectedRows = pstmt.executeUpdate();
             return affectedRows > 0;
@@ -738,30 +1491,22 @@ public class DatabaseManager {
         }
     }
 
-    // Method to get a User by username
+    // Method to get a User by username (read through the user cache; no password is loaded)
     public User getUserByUsername(String username) {
-        String sql = "SELECT id, username, password, email, phone_number, user_id, role FROM users WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        User cached = userCache.getByUsername(username);
+        if (cached != null) {
+            return cached;
+        }
+        String sql = "SELECT " + USER_PROFILE_COLUMNS + " FROM users WHERE username = ?";
+        long loadStamp = userCache.startLoad();
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                int id = rs.getInt("id");
-                String password = rs.getString("password");
-                String email = rs.getString("email");
-                String phoneNumber = rs.getString("phone_number");
-                String userId = rs.getString("user_id");
-                String role = rs.getString("role");
-
-                // Create the appropriate User subclass based on role
-                switch (role) {
-                    case "Administrator":
-                        return new Administrator(id, username, password, email, phoneNumber, userId);
-                    case "Agent":
-                        return new Agent(id, username, password, email, phoneNumber, userId);
-                    case "Customer":
-                    default:
-                        return new Customer(id, username, password, email, phoneNumber, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    User user = mapUserProfile(rs);
+                    userCache.put(user, loadStamp);
+                    return user;
                 }
             }
         } catch (SQLException e) {
@@ -774,280 +1519,209 @@ public class DatabaseManager {
     public List<Booking> getAllBookings() {
         List<Booking> bookings = new ArrayList<>();
         String sql = "SELECT * FROM bookings";
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-        try {
-            conn = getConnection();
-            if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in getAllBookings: Database connection is null or closed.");
-                 return bookings;
-            }
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                 Booking booking = new Booking(
-                    rs.getInt("id"),
-                    rs.getInt("user_id"),
-                    rs.getInt("flight_id"),
-                    rs.getInt("num_seats"),
-                    rs.getString("booking_date"),
-                    rs.getString("status")
-                );
-                bookings.add(booking);
+                bookings.add(mapBooking(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-             try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
         return bookings;
     }
 
-    // Method for Agent to cancel a booking by ID
-    public int[] agentCancelBooking(int bookingId) {
-        String selectSql = "SELECT flight_id, num_seats FROM bookings WHERE id = ?";
-        String deleteSql = "DELETE FROM bookings WHERE id = ?";
-
-        int flightId = -1;
-        int actualSeatsCancelled = 0;
-
-        try (PreparedStatement selectPstmt = connection.prepareStatement(selectSql)) {
-            selectPstmt.setInt(1, bookingId);
-            ResultSet rs = selectPstmt.executeQuery();
-
-            if (rs.next()) {
-                flightId = rs.getInt("flight_id");
-                int currentNumSeats = rs.getInt("num_seats");
-                rs.close();
-
-                try (PreparedStatement deletePstmt = connection.prepareStatement(deleteSql)) {
-                    deletePstmt.setInt(1, bookingId);
-                    int affectedRows = deletePstmt.executeUpdate();
-                     if (affectedRows > 0) {
-                        actualSeatsCancelled = currentNumSeats; // Cancelled all seats for this booking
-                         System.out.println("Agent cancelled booking ID " + bookingId);
-                         return new int[]{flightId, actualSeatsCancelled}; // Success
-                     }
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    public List<User> getAllUsers() {
+        String sql = "SELECT " + USER_PROFILE_COLUMNS + " FROM users";
+        return queryUsers(sql, "getAllUsers");
+    }
 
-        return null; // Indicate failure
+    // New method to get only users with the 'Customer' role
+    public List<User> getAllCustomerUsers() {
+        String sql = "SELECT " + USER_PROFILE_COLUMNS + " FROM users WHERE role = 'Customer'";
+        return queryUsers(sql, "getAllCustomerUsers");
     }
 
-    public List<User> getAllUsers() {
+    /**
+     * Gets one page of customer users using keyset pagination
+     * @param afterUserId ID of the last user on the previous page, or 0 for the first page
+     * @param limit Maximum number of users to return
+     * @return Customers with IDs greater than afterUserId, ordered by ID
+     */
+    public List<User> getCustomerUsersPage(int afterUserId, int limit) {
         List<User> users = new ArrayList<>();
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-        String sql = "SELECT id, username, password, email, phone_number, user_id, role FROM users";
-        try {
-            conn = getConnection();
-            if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in getAllUsers: Database connection is null or closed.");
-                 return users;
-            }
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
-            
-            while (rs.next()) {
-                User user = new User(
-                    rs.getInt("id"),
-                    rs.getString("username"),
-                    rs.getString("password"),
-                    rs.getString("email"),
-                    rs.getString("phone_number"),
-                    rs.getString("user_id"),
-                    rs.getString("role")
-                );
-                users.add(user);
+        String sql = "SELECT " + USER_PROFILE_COLUMNS + " FROM users " +
+                     "WHERE role = 'Customer' AND id > ? ORDER BY id LIMIT ?";
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, afterUserId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(mapUser(rs));
+                }
             }
         } catch (SQLException e) {
+            System.err.println("Error in getCustomerUsersPage: " + e.getMessage());
             e.printStackTrace();
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                // Do NOT close the connection here (conn.close())!
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
         return users;
     }
 
-    // New method to get only users with the 'Customer' role
-    public List<User> getAllCustomerUsers() {
+    // Runs a parameterless users query and maps every row to a plain User
+    private List<User> queryUsers(String sql, String caller) {
         List<User> users = new ArrayList<>();
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-        String sql = "SELECT id, username, password, email, phone_number, user_id, role FROM users WHERE role = 'Customer'";
-        try {
-            conn = getConnection();
-             if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in getAllCustomerUsers: Database connection is null or closed.");
-                 return users;
-            }
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
-            
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
             while (rs.next()) {
-                User user = new User(
-                    rs.getInt("id"),
-                    rs.getString("username"),
-                    rs.getString("password"),
-                    rs.getString("email"),
-                    rs.getString("phone_number"),
-                    rs.getString("user_id"),
-                    rs.getString("role")
-                );
-                users.add(user);
+                users.add(mapUser(rs));
             }
         } catch (SQLException e) {
+            System.err.println("Error in " + caller + ": " + e.getMessage());
             e.printStackTrace();
-        } finally {
-             try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                // Do NOT close the connection here (conn.close())!
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
         return users;
     }
 
+    // Builds a User from the current row of a USER_PROFILE_COLUMNS result set (password hashes stay in the database)
+    private User mapUser(ResultSet rs) throws SQLException {
+        return new User(
+            rs.getInt("id"),
+            rs.getString("username"),
+            null,
+            rs.getString("email"),
+            rs.getString("phone_number"),
+            rs.getString("user_id"),
+            rs.getString("role")
+        );
+    }
+
+    // Read through the user cache; no password is loaded
     public User getUserById(int userId) {
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        String sql = "SELECT id, username, password, email, phone_number, user_id, role FROM users WHERE id = ?";
-        try {
-            conn = getConnection();
-            if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in getUserById: Database connection is null or closed.");
-                 return null;
-            }
-            pstmt = conn.prepareStatement(sql);
-            
+        User cached = userCache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        String sql = "SELECT " + USER_PROFILE_COLUMNS + " FROM users WHERE id = ?";
+        long loadStamp = userCache.startLoad();
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
-            rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return new User(
-                    rs.getInt("id"),
-                    rs.getString("username"),
-                    rs.getString("password"),
-                    rs.getString("email"),
-                    rs.getString("phone_number"),
-                    rs.getString("user_id"),
-                    rs.getString("role")
-                );
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    User user = mapUserProfile(rs);
+                    userCache.put(user, loadStamp);
+                    return user;
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-                // Do NOT close the connection here (conn.close())!
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
         return null;
     }
 
+    // Builds the role's User subclass from a USER_PROFILE_COLUMNS row, without a password
+    private User mapUserProfile(ResultSet rs) throws SQLException {
+        return User.forRole(
+            rs.getInt("id"),
+            rs.getString("username"),
+            null,
+            rs.getString("email"),
+            rs.getString("phone_number"),
+            rs.getString("user_id"),
+            rs.getString("role")
+        );
+    }
+
+    public UserCache getUserCache() {
+        return userCache;
+    }
+
     public Booking getBookingById(int bookingId) {
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
         String sql = "SELECT * FROM bookings WHERE id = ?";
-        try {
-            conn = getConnection();
-             if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in getBookingById: Database connection is null or closed.");
-                 return null;
-            }
-            pstmt = conn.prepareStatement(sql);
-            
+        try (Connection conn = readConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, bookingId);
-            rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return new Booking(
-                    rs.getInt("id"),
-                    rs.getInt("user_id"),
-                    rs.getInt("flight_id"),
-                    rs.getInt("num_seats"),
-                    rs.getString("booking_date"),
-                    rs.getString("status")
-                );
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapBooking(rs);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-             try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
         return null;
     }
 
-    public boolean updateBooking(int bookingId, int newNumSeats) {
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        String sql = "UPDATE bookings SET num_seats = ? WHERE id = ?";
-        try {
-            conn = getConnection();
-             if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in updateBooking: Database connection is null or closed.");
-                 return false;
+    /**
+     * Changes a booking's seat count and moves the difference on the flight in one
+     * transaction, if the booking is still at expectedVersion. Extra seats are only
+     * taken if the flight still has room, using the same conditional UPDATE as
+     * reserveSeats; fewer seats are released relatively.
+     * @param expectedVersion The booking version the new seat count was decided from
+     * @return UPDATED, CONFLICT if the booking changed since it was read, REJECTED if it is
+     *         gone, the flight is full or newNumSeats is not positive, FAILED on a database error
+     */
+    public UpdateStatus updateBooking(int bookingId, int expectedVersion, int newNumSeats) {
+        if (newNumSeats <= 0) {
+            return UpdateStatus.REJECTED;
+        }
+        String selectSql = "SELECT flight_id, num_seats, version FROM bookings WHERE id = ?";
+        String reserveSql = "UPDATE flights SET booked_seats = booked_seats + ? " +
+                            "WHERE id = ? AND booked_seats + ? <= capacity";
+        String updateSql = "UPDATE bookings SET num_seats = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+        UpdateStatus status = awaitCommit(submitWrite(conn -> {
+            int flightId;
+            int seatDelta;
+            try (PreparedStatement selectPstmt = conn.prepareStatement(selectSql)) {
+                selectPstmt.setInt(1, bookingId);
+                try (ResultSet rs = selectPstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return UpdateStatus.REJECTED;
+                    }
+                    if (rs.getInt("version") != expectedVersion) {
+                        return UpdateStatus.CONFLICT;
+                    }
+                    flightId = rs.getInt("flight_id");
+                    seatDelta = newNumSeats - rs.getInt("num_seats");
+                }
             }
-            pstmt = conn.prepareStatement(sql);
-            
-            pstmt.setInt(1, newNumSeats);
-            pstmt.setInt(2, bookingId);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        } finally {
-            try {
-                if (pstmt != null) pstmt.close();
-                 // Do NOT close the connection here (conn.close())!
-            } catch (SQLException e) {
-                e.printStackTrace();
+
+            if (seatDelta > 0) {
+                try (PreparedStatement reservePstmt = conn.prepareStatement(reserveSql)) {
+                    reservePstmt.setInt(1, seatDelta);
+                    reservePstmt.setInt(2, flightId);
+                    reservePstmt.setInt(3, seatDelta);
+                    if (reservePstmt.executeUpdate() == 0) {
+                        return UpdateStatus.REJECTED; // Not enough seats left
+                    }
+                }
+            } else if (seatDelta < 0) {
+                try (PreparedStatement releasePstmt = conn.prepareStatement(RELEASE_SEATS_SQL)) {
+                    releasePstmt.setInt(1, -seatDelta);
+                    releasePstmt.setInt(2, flightId);
+                    releasePstmt.executeUpdate();
+                }
             }
-        }
+            try (PreparedStatement updatePstmt = conn.prepareStatement(updateSql)) {
+                updatePstmt.setInt(1, newNumSeats);
+                updatePstmt.setInt(2, bookingId);
+                updatePstmt.setInt(3, expectedVersion);
+                updatePstmt.executeUpdate();
+            }
+            return UpdateStatus.UPDATED;
+        }));
+        return status != null ? status : UpdateStatus.FAILED;
     }
 
     // New method for Administrator to update a user's role
     public boolean updateUserRole(int userId, String newRole) {
         String sql = "UPDATE users SET role = ? WHERE id = ?";
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        try {
-            conn = getConnection();
-            if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in updateUserRole: Database connection is null or closed.");
-                 return false;
-            }
-            pstmt = conn.prepareStatement(sql);
+        try (Connection conn = writeConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, newRole);
             pstmt.setInt(2, userId);
             int affectedRows = pstmt.executeUpdate();
@@ -1056,45 +1730,36 @@ public class DatabaseManager {
             e.printStackTrace();
             return false;
         } finally {
-            try {
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            userCache.invalidate(userId);
         }
     }
 
     // New method to update booking status
     public boolean updateBookingStatus(int bookingId, String status) {
-        String sql = "UPDATE bookings SET status = ? WHERE id = ?";
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        try {
-            conn = getConnection();
-            if (conn == null || conn.isClosed()) {
-                 System.err.println("Error in updateBookingStatus: Database connection is null or closed.");
-                 return false;
-            }
-            pstmt = conn.prepareStatement(sql);
+        return setBookingStatus(bookingId, status) == UpdateStatus.UPDATED;
+    }
+
+    /**
+     * Sets a booking's status
+     * @return UPDATED, REJECTED if the booking does not exist, FAILED on a database error
+     */
+    public UpdateStatus setBookingStatus(int bookingId, String status) {
+        String sql = "UPDATE bookings SET status = ?, version = version + 1 WHERE id = ?";
+        try (Connection conn = writeConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, status);
             pstmt.setInt(2, bookingId);
             int affectedRows = pstmt.executeUpdate();
-            return affectedRows > 0;
+            return affectedRows > 0 ? UpdateStatus.UPDATED : UpdateStatus.REJECTED;
         } catch (SQLException e) {
             e.printStackTrace();
-            return false;
-        } finally {
-            try {
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            return UpdateStatus.FAILED;
         }
     }
 
     // Add method to delete a user
     public boolean deleteUser(int userId) {
-        return executeWithRetry(conn -> {
+        Boolean deleted = executeWithRetry(conn -> {
             // First check if user has any bookings
             String checkBookingsSql = "SELECT COUNT(*) FROM bookings WHERE user_id = ?";
             try (PreparedStatement checkStmt = conn.prepareStatement(checkBookingsSql)) {
@@ -1114,6 +1779,8 @@ public class DatabaseManager {
                 return affectedRows > 0;
             }
         });
+        userCache.invalidate(userId);
+        return deleted != null && deleted;
     }
 
     /**
@@ -1125,27 +1792,34 @@ public class DatabaseManager {
      * @return The generated passenger ID, or -1 if failed
      */
     public int savePassenger(String name, String passportNumber, String dateOfBirth, String specialRequests) {
+        Integer passengerId = awaitCommit(savePassengerAsync(name, passportNumber, dateOfBirth, specialRequests));
+        return passengerId != null ? passengerId : -1;
+    }
+
+    /**
+     * Queues a passenger insert for the next group commit
+     * @return Completes with the generated passenger ID (-1 if none was returned) once committed
+     */
+    public CompletableFuture<Integer> savePassengerAsync(String name, String passportNumber, String dateOfBirth, String specialRequests) {
         String sql = "INSERT INTO passengers (name, passport_number, date_of_birth, special_requests) VALUES (?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            pstmt.setString(1, name);
-            pstmt.setString(2, passportNumber);
-            pstmt.setString(3, dateOfBirth);
-            pstmt.setString(4, specialRequests);
-            
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        return rs.getInt(1);
+        return submitWrite(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, name);
+                pstmt.setString(2, passportNumber);
+                pstmt.setString(3, dateOfBirth);
+                pstmt.setString(4, specialRequests);
+
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows > 0) {
+                    try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            return rs.getInt(1);
+                        }
                     }
                 }
+                return -1;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return -1;
+        });
     }
 
     /**
@@ -1155,18 +1829,76 @@ public class DatabaseManager {
      * @return true if successful
      */
     public boolean linkPassengerToBooking(int bookingId, int passengerId) {
+        return Boolean.TRUE.equals(awaitCommit(linkPassengerToBookingAsync(bookingId, passengerId)));
+    }
+
+    /**
+     * Queues a booking-passenger link for the next group commit
+     * @return Completes with whether a row was inserted once committed
+     */
+    public CompletableFuture<Boolean> linkPassengerToBookingAsync(int bookingId, int passengerId) {
         String sql = "INSERT INTO booking_passengers (booking_id, passenger_id) VALUES (?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, bookingId);
-            pstmt.setInt(2, passengerId);
-            
-            return pstmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+        return submitWrite(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, bookingId);
+                pstmt.setInt(2, passengerId);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Saves a booking's passengers and links them to it in one transaction.
+     * The links go in as one JDBC batch. The passenger inserts reuse a single
+     * prepared statement row by row, because the driver only reports the last
+     * generated key for a batch.
+     * @param bookingId The booking ID
+     * @param passengers Passengers to insert, in order
+     * @return The generated passenger IDs in the same order, or null if nothing was saved
+     */
+    public int[] savePassengersForBooking(int bookingId, List<Passenger> passengers) {
+        return awaitCommit(savePassengersForBookingAsync(bookingId, passengers));
+    }
+
+    /**
+     * Queues a booking's passenger inserts and links for the next group commit
+     * @return Completes with the generated passenger IDs once committed
+     */
+    public CompletableFuture<int[]> savePassengersForBookingAsync(int bookingId, List<Passenger> passengers) {
+        // One mutation, so the inserts and links share a savepoint and land together
+        return submitWrite(conn -> insertPassengers(conn, bookingId, passengers));
+    }
+
+    // Inserts passengers and links them to a booking on the caller's transaction; returns their IDs
+    private static int[] insertPassengers(Connection conn, int bookingId, List<Passenger> passengers) throws SQLException {
+        String insertSql = "INSERT INTO passengers (name, passport_number, date_of_birth, special_requests) VALUES (?, ?, ?, ?)";
+        String linkSql = "INSERT INTO booking_passengers (booking_id, passenger_id) VALUES (?, ?)";
+        int[] passengerIds = new int[passengers.size()];
+        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < passengers.size(); i++) {
+                Passenger passenger = passengers.get(i);
+                insertStmt.setString(1, passenger.getName());
+                insertStmt.setString(2, passenger.getPassportNumber());
+                insertStmt.setString(3, passenger.getDateOfBirth());
+                insertStmt.setString(4, passenger.getSpecialRequests());
+                insertStmt.executeUpdate();
+                try (ResultSet rs = insertStmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        throw new SQLException("No ID generated for passenger " + (i + 1));
+                    }
+                    passengerIds[i] = rs.getInt(1);
+                }
+            }
+        }
+        try (PreparedStatement linkStmt = conn.prepareStatement(linkSql)) {
+            for (int passengerId : passengerIds) {
+                linkStmt.setInt(1, bookingId);
+                linkStmt.setInt(2, passengerId);
+                linkStmt.addBatch();
+            }
+            linkStmt.executeBatch();
         }
+        return passengerIds;
     }
 
     /**
@@ -1179,22 +1911,22 @@ public class DatabaseManager {
         String sql = "SELECT p.* FROM passengers p " +
                     "JOIN booking_passengers bp ON p.passenger_id = bp.passenger_id " +
                     "WHERE bp.booking_id = ?";
-        
-        try (Connection conn = getConnection();
+
+        try (Connection conn = readConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
+
             pstmt.setInt(1, bookingId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Passenger passenger = new Passenger(
-                    rs.getInt("passenger_id"),
-                    rs.getString("name"),
-                    rs.getString("passport_number"),
-                    rs.getString("date_of_birth")
-                );
-                passenger.setSpecialRequests(rs.getString("special_requests"));
-                passengers.add(passenger);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Passenger passenger = new Passenger(
+                        rs.getInt("passenger_id"),
+                        rs.getString("name"),
+                        rs.getString("passport_number"),
+                        rs.getString("date_of_birth")
+                    );
+                    passenger.setSpecialRequests(rs.getString("special_requests"));
+                    passengers.add(passenger);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -1211,24 +1943,24 @@ public class DatabaseManager {
      * @param specialRequests New special requests
      * @return true if successful
      */
-    public boolean updatePassenger(int passengerId, String name, String passportNumber, 
+    public boolean updatePassenger(int passengerId, String name, String passportNumber,
                                  String dateOfBirth, String specialRequests) {
         String sql = "UPDATE passengers SET name = ?, passport_number = ?, " +
                     "date_of_birth = ?, special_requests = ? WHERE passenger_id = ?";
-        
-        try (Connection conn = getConnection();
+
+        try (Connection conn = writeConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
+
             pstmt.setString(1, name);
             pstmt.setString(2, passportNumber);
             pstmt.setString(3, dateOfBirth);
             pstmt.setString(4, specialRequests);
             pstmt.setInt(5, passengerId);
-            
+
             return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+/**
+ * Thrown when the database cannot be opened, e.g. because the JDBC driver is
+ * missing or the file cannot be reached. The core never shows dialogs itself;
+ * the GUI turns this into an error message and a headless server fails fast.
+ */
+public class DatabaseUnavailableException extends RuntimeException {
+    public enum Reason {
+        DRIVER_NOT_FOUND("Driver Error"),
+        CONNECTION_FAILED("Connection Error"),
+        INITIALIZATION_FAILED("Unexpected Error");
+
+        private final String title;
+
+        Reason(String title) {
+            this.title = title;
+        }
+
+        // Short heading for error dialogs and logs
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private final Reason reason;
+
+    public DatabaseUnavailableException(Reason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Load-factor fare buckets: a FareRule that multiplies the fare by the
+ * multiplier of the highest bucket the flight's booked seats / capacity has
+ * reached. Buckets are written as "threshold:multiplier" pairs in ascending
+ * order, e.g. "0.5:1.15,0.75:1.35,0.9:1.6". Below the first threshold the
+ * multiplier is 1. That spec is how buckets are stored in flights.fare_buckets
+ * and given in schedule imports.
+ *
+ * PricingEngine applies a flight's own buckets, or its default buckets for
+ * flights that have none (-Dflight.pricing.fareBuckets).
+ */
+public final class FareBuckets implements FareRule {
+    public static final FareBuckets FLAT = new FareBuckets(new double[0], new double[0]);
+
+    private final double[] thresholds;
+    private final double[] multipliers;
+
+    private FareBuckets(double[] thresholds, double[] multipliers) {
+        this.thresholds = thresholds;
+        this.multipliers = multipliers;
+    }
+
+    /**
+     * Parses a "threshold:multiplier,..." spec
+     * @throws IllegalArgumentException if the spec is malformed, thresholds are outside (0, 1]
+     *         or not ascending, or a multiplier is not positive
+     */
+    public static FareBuckets parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return FLAT;
+        }
+        String[] pairs = spec.split(",");
+        double[] thresholds = new double[pairs.length];
+        double[] multipliers = new double[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            String[] parts = pairs[i].trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Fare bucket must be threshold:multiplier: " + pairs[i]);
+            }
+            try {
+                thresholds[i] = Double.parseDouble(parts[0].trim());
+                multipliers[i] = Double.parseDouble(parts[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Fare bucket must be threshold:multiplier: " + pairs[i], e);
+            }
+            if (thresholds[i] <= 0 || thresholds[i] > 1 || (i > 0 && thresholds[i] <= thresholds[i - 1])) {
+                throw new IllegalArgumentException("Fare bucket thresholds must be ascending and in (0, 1]: " + spec);
+            }
+            if (multipliers[i] <= 0) {
+                throw new IllegalArgumentException("Fare bucket multipliers must be positive: " + spec);
+            }
+        }
+        return new FareBuckets(thresholds, multipliers);
+    }
+
+    @Override
+    public double apply(double fare, double distanceKm, int routeKey, double loadFactor) {
+        return fare * multiplier(bucketFor(loadFactor));
+    }
+
+    /**
+     * Bucket for a load factor: 0 below the first threshold, i + 1 once threshold i is reached
+     */
+    public int bucketFor(double loadFactor) {
+        // A handful of buckets at most; a linear scan beats a binary search here
+        int bucket = 0;
+        while (bucket < thresholds.length && loadFactor >= thresholds[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    public double multiplier(int bucket) {
+        return bucket == 0 ? 1.0 : multipliers[bucket - 1];
+    }
+
+    // Smallest multiplier any bucket applies, for price lower bounds
+    public double getMinMultiplier() {
+        double min = 1.0;
+        for (double multiplier : multipliers) {
+            min = Math.min(min, multiplier);
+        }
+        return min;
+    }
+
+    public boolean isFlat() {
+        return thresholds.length == 0;
+    }
+
+    /**
+     * @return The spec this was parsed from, in canonical form ("" when flat)
+     */
+    public String toSpec() {
+        StringBuilder spec = new StringBuilder();
+        for (int i = 0; i < thresholds.length; i++) {
+            if (i > 0) {
+                spec.append(',');
+            }
+            spec.append(String.format(Locale.ROOT, "%s:%s", thresholds[i], multipliers[i]));
+        }
+        return spec.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof FareBuckets)) {
+            return false;
+        }
+        FareBuckets buckets = (FareBuckets) other;
+        return Arrays.equals(thresholds, buckets.thresholds) && Arrays.equals(multipliers, buckets.multipliers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(thresholds) + Arrays.hashCode(multipliers);
+    }
+
+    @Override
+    public String toString() {
+        return isFlat() ? "FareBuckets[flat]" : "FareBuckets[" + toSpec() + "]";
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * One step of a PricingEngine fare calculation. Rules run in order, each taking
+ * the fare so far and returning the new fare. They see only primitives, so a
+ * price is computed without allocating.
+ */
+@FunctionalInterface
+public interface FareRule {
+    /**
+     * @param fare The fare produced by the previous rules (0 for the first)
+     * @param distanceKm Great-circle distance of the route
+     * @param routeKey Stable ID of the (origin, destination) pair
+     * @param loadFactor Booked seats / capacity, 0 to 1
+     */
+    double apply(double fare, double distanceKm, int routeKey, double loadFactor);
+
+    /**
+     * Adds a flat rate per kilometer
+     */
+    static FareRule perKm(double ratePerKm) {
+        return (fare, distanceKm, routeKey, loadFactor) -> fare + distanceKm * ratePerKm;
+    }
+
+    /**
+     * Raises the fare once the flight is fuller than the threshold, growing linearly
+     * to maxSurcharge (e.g. 0.5 for +50%) when it is full
+     */
+    static FareRule loadFactorSurcharge(double threshold, double maxSurcharge) {
+        if (threshold < 0 || threshold >= 1) {
+            throw new IllegalArgumentException("Load factor threshold must be in [0, 1): " + threshold);
+        }
+        if (maxSurcharge < 0) {
+            throw new IllegalArgumentException("Load factor surcharge must not be negative: " + maxSurcharge);
+        }
+        return (fare, distanceKm, routeKey, loadFactor) -> {
+            if (loadFactor <= threshold) {
+                return fare;
+            }
+            double over = (Math.min(loadFactor, 1.0) - threshold) / (1.0 - threshold);
+            return fare * (1.0 + maxSurcharge * over);
+        };
+    }
+
+    /**
+     * Spreads fares by up to +/- fraction around the fare so far. The offset is a
+     * hash of the seed and the route, so a route always gets the same price for a
+     * given seed. There is no shared Random, and the result is reproducible.
+     */
+    static FareRule routeVariation(double fraction, long seed) {
+        return (fare, distanceKm, routeKey, loadFactor) -> {
+            // SplitMix64 finalizer: spreads consecutive route keys across the whole range
+            long z = seed + (routeKey + 1) * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            z = z ^ (z >>> 31);
+            double unit = (z >>> 11) * 0x1.0p-53; // [0, 1)
+            return fare + fare * fraction * (unit * 2 - 1);
+        };
+    }
+}
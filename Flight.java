@@ -1,10 +1,24 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Flight {
+    private int id = -1; // Database ID, -1 until the flight has been saved
     private String flightNumber;
     private String departure;
     private String destination;
     private int capacity;
-    private int bookedSeats;
+    // Atomic so concurrent bookings and cancellations on a shared Flight never lose an update
+    private final AtomicInteger bookedSeats = new AtomicInteger();
+    // Base fare, as stored in the database; the live fare adjusts it for the load factor
     private double price;
+    // The flight's own fare buckets, or null for the pricing engine's default ones
+    private volatile FareBuckets fareBuckets;
+    // Prices the live fare; null until the flight joins an inventory or is read from the
+    // database, and until then the live fare is the base fare
+    private volatile PricingEngine pricing;
+    // Live fare, kept current on every seat change instead of recomputed on read
+    private volatile double currentFare;
+    // Bumped by every absolute write to the flight row; relative seat changes leave it alone
+    private int version;
 
     public Flight(String flightNumber, String departure, String destination, int capacity, double price) {
         this.flightNumber = flightNumber;
@@ -12,13 +26,18 @@ public class Flight {
         this.destination = destination;
         this.capacity = capacity;
         this.price = price;
+        refreshFare();
     }
 
     public int getAvailableSeats() {
-        return capacity - bookedSeats;
+        return capacity - bookedSeats.get();
     }
 
     // Getters
+    public int getId() {
+        return id;
+    }
+
     public String getFlightNumber() {
         return flightNumber;
     }
@@ -36,25 +55,95 @@ public class Flight {
     }
 
     public int getBookedSeats() {
-        return bookedSeats;
+        return bookedSeats.get();
     }
 
+    /**
+     * @return The live fare: the base fare adjusted by the pricing engine for the current load factor
+     */
     public double getPrice() {
+        return currentFare;
+    }
+
+    public double getBaseFare() {
         return price;
     }
 
+    // The flight's own fare buckets, or null if it uses the pricing engine's default ones
+    public FareBuckets getFareBuckets() {
+        return fareBuckets;
+    }
+
+    /**
+     * @return The lowest live fare the flight can reach at any load factor
+     */
+    public double getLowestFare() {
+        PricingEngine engine = pricing;
+        return engine == null ? price : engine.lowestFare(price, fareBuckets);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
     // Setters
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public void setBookedSeats(int bookedSeats) {
-        this.bookedSeats = bookedSeats;
+        this.bookedSeats.set(bookedSeats);
+        refreshFare();
+    }
+
+    /**
+     * Atomically adds to the booked seat count
+     * @param seatDelta Seats booked (positive) or released (negative)
+     * @return The new booked seat count
+     */
+    public int addBookedSeats(int seatDelta) {
+        int booked = bookedSeats.addAndGet(seatDelta);
+        refreshFare();
+        return booked;
     }
 
+    // Sets the base fare
     public void setPrice(double price) {
         this.price = price;
+        refreshFare();
+    }
+
+    // Sets the flight's own fare buckets; null for the pricing engine's default ones
+    public void setFareBuckets(FareBuckets fareBuckets) {
+        this.fareBuckets = fareBuckets;
+        refreshFare();
+    }
+
+    public void setPricing(PricingEngine pricing) {
+        this.pricing = pricing;
+        refreshFare();
+    }
+
+    // Recomputes the live fare from the current seat count. Concurrent seat changes may
+    // finish in any order, so retry until the count did not move while we computed; the
+    // last writer then always reflects the latest count.
+    private void refreshFare() {
+        int booked;
+        do {
+            booked = bookedSeats.get();
+            PricingEngine engine = pricing;
+            double loadFactor = capacity > 0 ? Math.min(1.0, (double) booked / capacity) : 0.0;
+            currentFare = engine == null ? price : engine.liveFare(price, loadFactor, fareBuckets);
+        } while (bookedSeats.get() != booked);
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
     }
 
     @Override
     public String toString() {
         return String.format("Flight %s: %s to %s (Capacity: %d, Booked: %d, Available: %d, Price: $%.2f)",
-            flightNumber, departure, destination, capacity, bookedSeats, getAvailableSeats(), price);
+            flightNumber, departure, destination, capacity, getBookedSeats(), getAvailableSeats(), getPrice());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,172 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index of all flights, keyed by database ID and by flight number,
+ * plus a FlightSearchIndex for route search. BookingSystem keeps it in sync on
+ * every write path so catalog reads do not need to go to the database.
+ */
+public class FlightInventory {
+    // Sorted by ID so the catalog can be listed and paged in table order
+    private final ConcurrentNavigableMap<Integer, Flight> flightsById = new ConcurrentSkipListMap<>();
+    private final Map<String, Flight> flightsByNumber = new ConcurrentHashMap<>();
+    private final FlightSearchIndex searchIndex = new FlightSearchIndex();
+    // Flights whose live fare changed since they were indexed. Re-filing a flight costs
+    // several skip-list updates, so bookings only mark it and the next search does it.
+    private final Set<Flight> repriced = ConcurrentHashMap.newKeySet();
+    // Prices the live fares of indexed flights; null keeps every flight at its base fare
+    private final PricingEngine pricing;
+
+    public FlightInventory() {
+        this(null);
+    }
+
+    public FlightInventory(PricingEngine pricing) {
+        this.pricing = pricing;
+    }
+
+    /**
+     * Replaces the whole index with the given flights
+     * @param flights Flights loaded from the database
+     */
+    public synchronized void load(Collection<Flight> flights) {
+        flightsById.clear();
+        flightsByNumber.clear();
+        searchIndex.clear();
+        repriced.clear();
+        for (Flight flight : flights) {
+            put(flight);
+        }
+    }
+
+    /**
+     * Adds or replaces a flight. Flights without a database ID are only
+     * indexed by flight number and are not listed by getAll or getPage.
+     * @param flight The flight to index
+     */
+    public synchronized void put(Flight flight) {
+        if (pricing != null) {
+            flight.setPricing(pricing);
+        }
+        Flight previous = flightsByNumber.put(flight.getFlightNumber(), flight);
+        if (previous != null && previous.getId() != flight.getId()) {
+            flightsById.remove(previous.getId());
+        }
+        if (flight.getId() >= 0) {
+            flightsById.put(flight.getId(), flight);
+        }
+        searchIndex.add(flight);
+    }
+
+    /**
+     * Removes a flight from every index
+     * @param flightNumber The flight number
+     * @return The removed flight, or null if it was not indexed
+     */
+    public synchronized Flight remove(String flightNumber) {
+        Flight removed = flightsByNumber.remove(flightNumber);
+        if (removed != null) {
+            flightsById.remove(removed.getId());
+            searchIndex.remove(flightNumber);
+        }
+        return removed;
+    }
+
+    /**
+     * Applies a seat change to the indexed flight after it was committed to the database
+     * @param flightId The flight ID
+     * @param seatDelta Seats booked (positive) or released (negative)
+     */
+    public void adjustBookedSeats(int flightId, int seatDelta) {
+        Flight flight = flightsById.get(flightId);
+        if (flight != null) {
+            double fare = flight.getPrice();
+            flight.addBookedSeats(seatDelta);
+            // With fare buckets alone the live fare only moves when the flight crosses a
+            // bucket threshold, and only then does its price key in the search index go stale
+            if (flight.getPrice() != fare) {
+                repriced.add(flight);
+            }
+        }
+    }
+
+    /**
+     * Re-files a flight in the search index under its current live fare
+     */
+    public synchronized void reindexPrice(Flight flight) {
+        // Skip flights that were replaced or removed in the meantime
+        if (flightsByNumber.get(flight.getFlightNumber()) == flight) {
+            searchIndex.add(flight);
+        }
+    }
+
+    public Flight findById(int flightId) {
+        return flightsById.get(flightId);
+    }
+
+    public Flight findByNumber(String flightNumber) {
+        return flightNumber == null ? null : flightsByNumber.get(flightNumber);
+    }
+
+    /**
+     * @return All flights ordered by database ID, the same order the flights table returns them
+     */
+    public ArrayList<Flight> getAll() {
+        return new ArrayList<>(flightsById.values());
+    }
+
+    /**
+     * Returns the flights that follow the given ID, for keyset-paged tables
+     * @param afterFlightId ID of the last flight already shown, or -1 for the first page
+     * @param limit Maximum number of flights to return
+     * @return Up to limit flights ordered by database ID
+     */
+    public List<Flight> getPage(int afterFlightId, int limit) {
+        List<Flight> page = new ArrayList<>(Math.min(limit, flightsById.size()));
+        for (Flight flight : flightsById.tailMap(afterFlightId, false).values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(flight);
+        }
+        return page;
+    }
+
+    /**
+     * Searches the inventory by route, price and free seats
+     * @param criteria The search filters
+     * @param limit Maximum number of flights to return
+     * @return Matching flights, cheapest first
+     */
+    public List<Flight> search(FlightSearchCriteria criteria, int limit) {
+        if (!repriced.isEmpty()) {
+            reindexRepriced();
+        }
+        return searchIndex.search(criteria, limit);
+    }
+
+    // Re-files every flight marked by adjustBookedSeats. Each one is unmarked before its
+    // fare is read, so a bucket change racing with this marks it again for the next search.
+    private synchronized void reindexRepriced() {
+        for (Iterator<Flight> it = repriced.iterator(); it.hasNext(); ) {
+            Flight flight = it.next();
+            it.remove();
+            reindexPrice(flight);
+        }
+    }
+
+    public int size() {
+        return flightsByNumber.size();
+    }
+
+    public boolean isEmpty() {
+        return flightsByNumber.isEmpty();
+    }
+}
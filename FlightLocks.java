@@ -0,0 +1,119 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped read/write locks keyed by flight ID. Operations on different flights
+ * usually get different stripes and never wait on each other. The stripe count is
+ * fixed (-Dflight.locks.stripes, default 64, rounded up to a power of two), so
+ * memory does not grow with the catalog. Two flights can share a stripe, which
+ * only costs some parallelism.
+ *
+ * Bookings, modifications and cancellations take the shared side. Their database
+ * statements are conditional or relative and their inventory updates are atomic
+ * adds, so they commute, and several of them can share one group commit.
+ * Anything that writes an absolute seat count or replaces the flight takes the
+ * exclusive side. That serializes it against every seat change on the flight.
+ */
+public class FlightLocks {
+    private static final int DEFAULT_STRIPES = Integer.getInteger("flight.locks.stripes", 64);
+
+    private final ReentrantReadWriteLock[] stripes;
+    private final int mask;
+
+    public FlightLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public FlightLocks(int stripeCount) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Runs a seat change (booking, modification, cancellation) on one flight
+     */
+    public <T> T withSeatChange(int flightId, Supplier<T> action) {
+        return withLock(stripes[stripeFor(flightId)].readLock(), action);
+    }
+
+    /**
+     * Runs an operation that must not overlap any other change to the flight
+     */
+    public <T> T withExclusive(int flightId, Supplier<T> action) {
+        return withLock(stripes[stripeFor(flightId)].writeLock(), action);
+    }
+
+    /**
+     * Runs a seat change that spans several flights, such as a bulk cancellation.
+     * Stripes are taken in ascending order, so it cannot deadlock with another
+     * multi-flight operation or with an exclusive one.
+     */
+    public <T> T withSeatChanges(Collection<Integer> flightIds, Supplier<T> action) {
+        TreeSet<Integer> needed = new TreeSet<>();
+        for (int flightId : flightIds) {
+            needed.add(stripeFor(flightId));
+        }
+        List<Lock> held = new ArrayList<>(needed.size());
+        try {
+            for (int stripe : needed) {
+                Lock lock = stripes[stripe].readLock();
+                lock.lock();
+                held.add(lock);
+            }
+            return action.get();
+        } finally {
+            for (Lock lock : held) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs an operation that must not overlap a change to any flight, such as
+     * rebuilding the inventory from the database. Every stripe is taken in
+     * ascending order, like withSeatChanges, so it cannot deadlock with it.
+     */
+    public <T> T withAllExclusive(Supplier<T> action) {
+        List<Lock> held = new ArrayList<>(stripes.length);
+        try {
+            for (ReentrantReadWriteLock stripe : stripes) {
+                Lock lock = stripe.writeLock();
+                lock.lock();
+                held.add(lock);
+            }
+            return action.get();
+        } finally {
+            for (Lock lock : held) {
+                lock.unlock();
+            }
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private static <T> T withLock(Lock lock, Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Spreads sequential IDs across stripes
+    private int stripeFor(int flightId) {
+        int h = flightId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,440 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Bulk loader for flight schedules. Rows are parsed lazily and fed straight into
+ * DatabaseManager.importFlights, so a file with thousands of flights is written
+ * in one transaction through a batched prepared statement without first being
+ * read into memory. A malformed row fails the whole import and nothing is kept.
+ *
+ * Accepted formats, chosen by file extension:
+ *   .csv   header row naming flight_number, origin, destination, capacity, price
+ *          (any order, extra columns ignored), then one flight per line
+ *   .json  an array of objects with those keys (flightNumber also accepted)
+ *
+ * An optional fare_buckets column (fareBuckets in JSON) gives a flight its own
+ * load-factor fare buckets, e.g. "0.5:1.1,0.9:1.5" (quoted in CSV). Rows without
+ * it keep the buckets the flight already has.
+ *
+ * Rows per batch come from -Dflight.import.batchSize (default 500).
+ * Run it on its own with: java FlightScheduleImporter schedule.csv
+ */
+public class FlightScheduleImporter {
+    private static final int DEFAULT_BATCH_SIZE = Integer.getInteger("flight.import.batchSize", 500);
+
+    /**
+     * Receives progress after each batch is sent to the database
+     */
+    public interface ProgressListener {
+        void onProgress(long rowsProcessed, long elapsedNanos);
+    }
+
+    /**
+     * Outcome of a finished import
+     */
+    public static class Summary {
+        private final long rowsRead;
+        private final long flightsWritten;
+        private final long elapsedNanos;
+
+        Summary(long rowsRead, long flightsWritten, long elapsedNanos) {
+            this.rowsRead = rowsRead;
+            this.flightsWritten = flightsWritten;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRowsRead() { return rowsRead; }
+        public long getFlightsWritten() { return flightsWritten; }
+        // Rows that matched an existing flight but changed nothing or would not fit its booked seats
+        public long getRowsSkipped() { return rowsRead - flightsWritten; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : rowsRead * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Imported %,d row(s): %,d flight(s) written, %,d skipped in %.2f s (%,.0f rows/s)",
+                rowsRead, flightsWritten, getRowsSkipped(), elapsedNanos / 1e9, getRowsPerSecond());
+        }
+    }
+
+    private final DatabaseManager dbManager;
+    private final int batchSize;
+
+    public FlightScheduleImporter(DatabaseManager dbManager) {
+        this(dbManager, DEFAULT_BATCH_SIZE);
+    }
+
+    public FlightScheduleImporter(DatabaseManager dbManager, int batchSize) {
+        this.dbManager = dbManager;
+        this.batchSize = batchSize;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: java FlightScheduleImporter <schedule.csv|schedule.json>");
+            System.exit(2);
+        }
+        DatabaseManager db;
+        try {
+            db = new DatabaseManager();
+        } catch (DatabaseUnavailableException e) {
+            System.err.println(e.getReason().getTitle() + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Summary summary;
+        try {
+            summary = new FlightScheduleImporter(db).importFile(Paths.get(args[0]), (rows, elapsed) ->
+                System.out.printf("  %,d rows (%,.0f rows/s)%n", rows, rows * 1_000_000_000.0 / Math.max(1, elapsed)));
+        } finally {
+            db.close();
+        }
+        if (summary == null) {
+            System.exit(1);
+        }
+        System.out.println(summary);
+    }
+
+    /**
+     * Imports a .csv or .json schedule file
+     * @return The import summary, or null if the file could not be read or the import failed
+     */
+    public Summary importFile(Path file, ProgressListener listener) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (name.endsWith(".json")) {
+                return importJson(reader, listener);
+            }
+            if (name.endsWith(".csv")) {
+                return importCsv(reader, listener);
+            }
+            System.err.println("Unsupported schedule file (expected .csv or .json): " + file);
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public Summary importCsv(Reader reader, ProgressListener listener) {
+        return run(new CsvRows(reader), listener);
+    }
+
+    public Summary importJson(Reader reader, ProgressListener listener) {
+        return run(new JsonRows(reader), listener);
+    }
+
+    private Summary run(RowIterator rows, ProgressListener listener) {
+        long start = System.nanoTime();
+        long written = dbManager.importFlights(rows, batchSize, listener == null ? null
+            : processed -> listener.onProgress(processed, System.nanoTime() - start));
+        if (written < 0) {
+            return null;
+        }
+        return new Summary(rows.rowsRead, written, System.nanoTime() - start);
+    }
+
+    // Builds and validates one flight from its named fields
+    private static Flight toFlight(Map<String, String> fields, String where) {
+        String flightNumber = required(fields, "flight_number", where);
+        String origin = required(fields, "origin", where);
+        String destination = required(fields, "destination", where);
+        int capacity;
+        double price;
+        try {
+            capacity = Integer.parseInt(required(fields, "capacity", where));
+            price = Double.parseDouble(required(fields, "price", where));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(where + ": capacity and price must be numbers", e);
+        }
+        if (capacity <= 0 || price < 0) {
+            throw new IllegalArgumentException(where + ": capacity must be positive and price not negative");
+        }
+        if (origin.equalsIgnoreCase(destination)) {
+            throw new IllegalArgumentException(where + ": origin and destination are the same");
+        }
+        Flight flight = new Flight(flightNumber, origin, destination, capacity, price);
+        String fareBuckets = fields.get("fare_buckets");
+        if (fareBuckets != null && !fareBuckets.isBlank()) {
+            try {
+                flight.setFareBuckets(FareBuckets.parse(fareBuckets));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(where + ": " + e.getMessage(), e);
+            }
+        }
+        return flight;
+    }
+
+    private static String required(Map<String, String> fields, String key, String where) {
+        String value = fields.get(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(where + ": missing " + key);
+        }
+        return value.trim();
+    }
+
+    // Maps the accepted spellings of a column name onto the one toFlight expects
+    private static String normalizeKey(String key) {
+        String normalized = key.trim().toLowerCase(Locale.ROOT);
+        switch (normalized) {
+            case "flightnumber":
+                return "flight_number";
+            case "farebuckets":
+                return "fare_buckets";
+            default:
+                return normalized;
+        }
+    }
+
+    // Iterator that parses one row ahead and counts what it hands out
+    private abstract static class RowIterator implements Iterator<Flight> {
+        long rowsRead;
+        private Flight next;
+        private boolean done;
+
+        // Parses the next flight, or returns null at the end of the input
+        abstract Flight parseNext() throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    next = parseNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Flight next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Flight flight = next;
+            next = null;
+            rowsRead++;
+            return flight;
+        }
+    }
+
+    private static final class CsvRows extends RowIterator {
+        private final BufferedReader reader;
+        private String[] header;
+        private int lineNumber;
+
+        CsvRows(Reader reader) {
+            this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        }
+
+        @Override
+        Flight parseNext() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] cells = splitLine(line);
+                if (header == null) {
+                    header = cells;
+                    for (int i = 0; i < header.length; i++) {
+                        header[i] = normalizeKey(header[i]);
+                    }
+                    continue;
+                }
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < header.length && i < cells.length; i++) {
+                    fields.put(header[i], cells[i]);
+                }
+                return toFlight(fields, "line " + lineNumber);
+            }
+            return null;
+        }
+
+        // Splits one CSV line; fields may be quoted, with "" for a literal quote
+        private String[] splitLine(String line) {
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        cell.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else {
+                    cell.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("line " + lineNumber + ": unterminated quote");
+            }
+            cells.add(cell.toString());
+            return cells.toArray(new String[0]);
+        }
+    }
+
+    // Streams the objects of a top-level JSON array; values must be strings, numbers, booleans or null
+    private static final class JsonRows extends RowIterator {
+        private final PushbackReader reader;
+        private boolean started;
+        private int objectNumber;
+
+        JsonRows(Reader reader) {
+            this.reader = new PushbackReader(reader instanceof BufferedReader ? reader : new BufferedReader(reader));
+        }
+
+        @Override
+        Flight parseNext() throws IOException {
+            if (!started) {
+                expect('[');
+                started = true;
+                int c = skipWhitespace();
+                if (c == ']') {
+                    return null;
+                }
+                reader.unread(c);
+            } else {
+                int c = skipWhitespace();
+                if (c == ']') {
+                    return null;
+                }
+                if (c != ',') {
+                    throw error("expected ',' or ']'");
+                }
+            }
+            objectNumber++;
+            return toFlight(readObject(), "object " + objectNumber);
+        }
+
+        private Map<String, String> readObject() throws IOException {
+            Map<String, String> fields = new HashMap<>();
+            expect('{');
+            int c = skipWhitespace();
+            if (c == '}') {
+                return fields;
+            }
+            reader.unread(c);
+            while (true) {
+                expect('"');
+                String key = readString();
+                expect(':');
+                fields.put(normalizeKey(key), readValue());
+                c = skipWhitespace();
+                if (c == '}') {
+                    return fields;
+                }
+                if (c != ',') {
+                    throw error("expected ',' or '}'");
+                }
+            }
+        }
+
+        private String readValue() throws IOException {
+            int c = skipWhitespace();
+            if (c == '"') {
+                return readString();
+            }
+            StringBuilder literal = new StringBuilder();
+            while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                literal.append((char) c);
+                c = reader.read();
+            }
+            if (c != -1) {
+                reader.unread(c);
+            }
+            String value = literal.toString();
+            if (value.isEmpty() || value.startsWith("[") || value.startsWith("{")) {
+                throw error("expected a string or number");
+            }
+            return value.equals("null") ? null : value;
+        }
+
+        // Reads the rest of a string whose opening quote was already consumed
+        private String readString() throws IOException {
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                int c = reader.read();
+                if (c == -1) {
+                    throw error("unterminated string");
+                }
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c == '\\') {
+                    int escaped = reader.read();
+                    switch (escaped) {
+                        case 'n': value.append('\n'); break;
+                        case 't': value.append('\t'); break;
+                        case 'r': value.append('\r'); break;
+                        case 'b': value.append('\b'); break;
+                        case 'f': value.append('\f'); break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) {
+                                int h = reader.read();
+                                if (h == -1) {
+                                    throw error("unterminated string");
+                                }
+                                hex[i] = (char) h;
+                            }
+                            value.append((char) Integer.parseInt(new String(hex), 16));
+                            break;
+                        case -1: throw error("unterminated string");
+                        default: value.append((char) escaped);
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            if (skipWhitespace() != expected) {
+                throw error("expected '" + expected + "'");
+            }
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            do {
+                c = reader.read();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("object " + Math.max(1, objectNumber) + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Filters for a flight search. Origin and destination match city names by
+ * case-insensitive prefix, so partial input from a search box still finds
+ * flights; empty or null means any city.
+ */
+public class FlightSearchCriteria {
+    public static final double ANY_MAX_PRICE = Double.MAX_VALUE;
+
+    private final String origin;
+    private final String destination;
+    private final double minPrice;
+    private final double maxPrice;
+    private final int minAvailableSeats;
+
+    public FlightSearchCriteria(String origin, String destination) {
+        this(origin, destination, 0, ANY_MAX_PRICE, 0);
+    }
+
+    public FlightSearchCriteria(String origin, String destination, double minPrice, double maxPrice, int minAvailableSeats) {
+        this.origin = normalize(origin);
+        this.destination = normalize(destination);
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.minAvailableSeats = minAvailableSeats;
+    }
+
+    // Lower-cased and trimmed, or empty for "any city"
+    static String normalize(String city) {
+        return city == null ? "" : city.trim().toLowerCase();
+    }
+
+    /**
+     * @return true if the flight passes every filter
+     */
+    public boolean matches(Flight flight) {
+        return normalize(flight.getDeparture()).startsWith(origin)
+            && normalize(flight.getDestination()).startsWith(destination)
+            && flight.getPrice() >= minPrice
+            && flight.getPrice() <= maxPrice
+            && flight.getAvailableSeats() >= minAvailableSeats;
+    }
+
+    public boolean hasOrigin() { return !origin.isEmpty(); }
+    public boolean hasDestination() { return !destination.isEmpty(); }
+
+    // Getters
+    public String getOrigin() { return origin; }
+    public String getDestination() { return destination; }
+    public double getMinPrice() { return minPrice; }
+    public double getMaxPrice() { return maxPrice; }
+    public int getMinAvailableSeats() { return minAvailableSeats; }
+
+    @Override
+    public String toString() {
+        return String.format("FlightSearch[from '%s' to '%s', $%.2f-%s, %d+ seats]", origin, destination, minPrice,
+            maxPrice == ANY_MAX_PRICE ? "any" : String.format("$%.2f", maxPrice), minAvailableSeats);
+    }
+}
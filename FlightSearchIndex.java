@@ -0,0 +1,205 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Price-ordered indexes over the flight inventory for route search.
+ * Flights are indexed by route (origin and destination), by origin, by
+ * destination and overall, each sorted by price. A search picks the
+ * narrowest index its filters allow, seeks to the minimum price and walks
+ * forward until the maximum price or the result limit, so it only touches
+ * flights on the requested routes. Seat availability changes on every
+ * booking, so it is checked while walking rather than indexed.
+ * Writes are serialized by FlightInventory; searches can run concurrently.
+ */
+public class FlightSearchIndex {
+    // Separates origin and destination in route keys; cannot appear in a city name
+    private static final char ROUTE_SEPARATOR = '\u0000';
+
+    /**
+     * Sort key captured when a flight is indexed, so a later price change
+     * cannot corrupt the ordering before the flight is re-indexed. The live
+     * fare moves with the load factor; FlightInventory re-indexes a flight
+     * that changed fare bucket before its next search.
+     */
+    private static final class PriceKey implements Comparable<PriceKey> {
+        final double price;
+        final String flightNumber;
+
+        PriceKey(double price, String flightNumber) {
+            this.price = price;
+            this.flightNumber = flightNumber;
+        }
+
+        @Override
+        public int compareTo(PriceKey other) {
+            int byPrice = Double.compare(price, other.price);
+            return byPrice != 0 ? byPrice : flightNumber.compareTo(other.flightNumber);
+        }
+    }
+
+    // Where a flight was indexed, so it can be removed again
+    private static final class Entry {
+        final PriceKey key;
+        final String origin;
+        final String destination;
+
+        Entry(PriceKey key, String origin, String destination) {
+            this.key = key;
+            this.origin = origin;
+            this.destination = destination;
+        }
+    }
+
+    private final NavigableMap<PriceKey, Flight> byPrice = new ConcurrentSkipListMap<>();
+    // City maps are sorted so a typed prefix can be resolved to every matching city
+    private final NavigableMap<String, NavigableMap<PriceKey, Flight>> byOrigin = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, NavigableMap<PriceKey, Flight>> byDestination = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableMap<PriceKey, Flight>> byRoute = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public void clear() {
+        byPrice.clear();
+        byOrigin.clear();
+        byDestination.clear();
+        byRoute.clear();
+        entries.clear();
+    }
+
+    /**
+     * Indexes a flight, replacing any earlier entry with the same flight number
+     */
+    public void add(Flight flight) {
+        remove(flight.getFlightNumber());
+        String origin = FlightSearchCriteria.normalize(flight.getDeparture());
+        String destination = FlightSearchCriteria.normalize(flight.getDestination());
+        PriceKey key = new PriceKey(flight.getPrice(), flight.getFlightNumber());
+
+        byPrice.put(key, flight);
+        byOrigin.computeIfAbsent(origin, city -> new ConcurrentSkipListMap<>()).put(key, flight);
+        byDestination.computeIfAbsent(destination, city -> new ConcurrentSkipListMap<>()).put(key, flight);
+        byRoute.computeIfAbsent(routeKey(origin, destination), route -> new ConcurrentSkipListMap<>()).put(key, flight);
+        entries.put(flight.getFlightNumber(), new Entry(key, origin, destination));
+    }
+
+    /**
+     * Removes a flight from every index
+     */
+    public void remove(String flightNumber) {
+        Entry entry = entries.remove(flightNumber);
+        if (entry == null) {
+            return;
+        }
+        byPrice.remove(entry.key);
+        removeFrom(byOrigin, entry.origin, entry.key);
+        removeFrom(byDestination, entry.destination, entry.key);
+        removeFrom(byRoute, routeKey(entry.origin, entry.destination), entry.key);
+    }
+
+    private static void removeFrom(Map<String, NavigableMap<PriceKey, Flight>> index, String city, PriceKey key) {
+        NavigableMap<PriceKey, Flight> flights = index.get(city);
+        if (flights != null) {
+            flights.remove(key);
+            if (flights.isEmpty()) {
+                index.remove(city);
+            }
+        }
+    }
+
+    /**
+     * Finds flights matching the criteria, cheapest first
+     * @param criteria The search filters
+     * @param limit Maximum number of flights to return
+     * @return Matching flights ordered by price, then flight number
+     */
+    public List<Flight> search(FlightSearchCriteria criteria, int limit) {
+        List<NavigableMap<PriceKey, Flight>> sources = new ArrayList<>();
+        if (criteria.hasOrigin() && criteria.hasDestination()) {
+            for (String origin : citiesStartingWith(byOrigin, criteria.getOrigin())) {
+                for (String destination : citiesStartingWith(byDestination, criteria.getDestination())) {
+                    NavigableMap<PriceKey, Flight> route = byRoute.get(routeKey(origin, destination));
+                    if (route != null) {
+                        sources.add(route);
+                    }
+                }
+            }
+        } else if (criteria.hasOrigin()) {
+            for (String origin : citiesStartingWith(byOrigin, criteria.getOrigin())) {
+                sources.add(byOrigin.get(origin));
+            }
+        } else if (criteria.hasDestination()) {
+            for (String destination : citiesStartingWith(byDestination, criteria.getDestination())) {
+                sources.add(byDestination.get(destination));
+            }
+        } else {
+            sources.add(byPrice);
+        }
+
+        // Each source is already in price order; merge them so the overall result is too
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, sources.size()),
+            Comparator.comparing((Cursor cursor) -> cursor.head));
+        PriceKey from = new PriceKey(criteria.getMinPrice(), "");
+        for (NavigableMap<PriceKey, Flight> source : sources) {
+            if (source == null) {
+                continue; // City removed concurrently
+            }
+            Cursor cursor = new Cursor(source.tailMap(from, true).entrySet().iterator());
+            if (cursor.advance(criteria.getMaxPrice())) {
+                cursors.add(cursor);
+            }
+        }
+
+        List<Flight> results = new ArrayList<>();
+        while (!cursors.isEmpty() && results.size() < limit) {
+            Cursor cursor = cursors.poll();
+            if (cursor.flight.getAvailableSeats() >= criteria.getMinAvailableSeats()) {
+                results.add(cursor.flight);
+            }
+            if (cursor.advance(criteria.getMaxPrice())) {
+                cursors.add(cursor);
+            }
+        }
+        return results;
+    }
+
+    // All indexed cities whose normalized name starts with the prefix
+    private static Collection<String> citiesStartingWith(NavigableMap<String, ?> index, String prefix) {
+        return index.subMap(prefix, true, prefix + Character.MAX_VALUE, true).keySet();
+    }
+
+    private static String routeKey(String origin, String destination) {
+        return origin + ROUTE_SEPARATOR + destination;
+    }
+
+    // Walks one price-ordered index during a merge
+    private static final class Cursor {
+        private final Iterator<Map.Entry<PriceKey, Flight>> iterator;
+        PriceKey head;
+        Flight flight;
+
+        Cursor(Iterator<Map.Entry<PriceKey, Flight>> iterator) {
+            this.iterator = iterator;
+        }
+
+        // Moves to the next flight; false once past maxPrice or out of flights
+        boolean advance(double maxPrice) {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            Map.Entry<PriceKey, Flight> next = iterator.next();
+            if (next.getKey().price > maxPrice) {
+                return false;
+            }
+            head = next.getKey();
+            flight = next.getValue();
+            return true;
+        }
+    }
+}
@@ -3,6 +3,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList; // To safely manage a list of windows
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
@@ -13,6 +14,7 @@ import javax.swing.event.DocumentListener;
 public class FlightSystemGUI extends JFrame {
     // Main application components
     private BookingSystem system;
+    private AsyncBookingService asyncService; // Runs database work off the event thread
     private User loggedInUser;
     private JPanel cardPanel;
     private CardLayout cardLayout;
@@ -33,6 +35,17 @@ public class FlightSystemGUI extends JFrame {
     private JButton logoutButton;
     private JButton updateProfileButton;
     private JButton bookButton;
+    private JLabel flightStatusLabel;
+    private AsyncBookingService.LatestRequest<List<Flight>> flightListRequest;
+
+    // Flight search bar components
+    private static final int MAX_SEARCH_RESULTS = Integer.getInteger("flight.search.maxResults", 500);
+    private JTextField searchOriginField;
+    private JTextField searchDestinationField;
+    private JTextField searchMinPriceField;
+    private JTextField searchMaxPriceField;
+    private JTextField searchMinSeatsField;
+    private Timer searchDebounceTimer;
 
     // Flight management panel components
     private JTextField agentFlightNumberField;
@@ -40,12 +53,13 @@ public class FlightSystemGUI extends JFrame {
     private JTextField agentDestinationField;
     private JTextField agentCapacityField;
     private JTable agentFlightTable;
-    private DefaultTableModel agentFlightTableModel;
+    private PagedTableModel<Flight> agentFlightTableModel;
 
     // Admin panel components
     private JPanel adminPanel;
     private JLabel adminLabel;
     private JTextField manageUserIdField;
+    private AsyncBookingService.LatestRequest<List<User>> adminUserRequest;
 
     // Agent panel components
     private JPanel agentPanel;
@@ -56,6 +70,7 @@ public class FlightSystemGUI extends JFrame {
 
     public FlightSystemGUI() {
         system = new BookingSystem();
+        asyncService = new AsyncBookingService(system);
         loggedInUser = null;
         openUserWindows = new CopyOnWriteArrayList<>();
 
@@ -68,6 +83,7 @@ public class FlightSystemGUI extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
+                asyncService.shutdown();
                 system.getDbManager().close();
             }
         });
@@ -140,7 +156,10 @@ public class FlightSystemGUI extends JFrame {
         flightListModel = new DefaultListModel<>();
         flightList = new JList<>(flightListModel);
         JScrollPane scrollPane = new JScrollPane(flightList);
-        panel.add(scrollPane, gbcFlight);
+        JPanel flightListPanel = new JPanel(new BorderLayout(0, 5));
+        flightListPanel.add(createFlightSearchBar(), BorderLayout.NORTH);
+        flightListPanel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(flightListPanel, gbcFlight);
 
         // Handle flight selection
         flightList.addListSelectionListener(e -> {
@@ -225,6 +244,18 @@ public class FlightSystemGUI extends JFrame {
 
         displayButton = new JButton("Refresh Flights");
 
+        // Loading indicator for the flight list
+        flightStatusLabel = new JLabel(" ");
+        gbcFlight.gridx = 0;
+        gbcFlight.gridy = 5;
+        gbcFlight.gridwidth = 2;
+        gbcFlight.anchor = GridBagConstraints.CENTER;
+        panel.add(flightStatusLabel, gbcFlight);
+        flightListRequest = new AsyncBookingService.LatestRequest<>(busy -> {
+            flightStatusLabel.setText(busy ? "Loading flights..." : " ");
+            displayButton.setEnabled(!busy);
+        });
+
         gbcFlight.gridx = 0; 
         gbcFlight.gridy = 4; 
         gbcFlight.gridwidth = 2; 
@@ -241,6 +272,67 @@ public class FlightSystemGUI extends JFrame {
         return panel;
     }
 
+    // Search bar above the flight list; results update as the customer types
+    private JPanel createFlightSearchBar() {
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        searchOriginField = new JTextField(7);
+        searchDestinationField = new JTextField(7);
+        searchMinPriceField = new JTextField(4);
+        searchMaxPriceField = new JTextField(4);
+        searchMinSeatsField = new JTextField(3);
+
+        searchPanel.add(new JLabel("From:"));
+        searchPanel.add(searchOriginField);
+        searchPanel.add(new JLabel("To:"));
+        searchPanel.add(searchDestinationField);
+        searchPanel.add(new JLabel("Price $:"));
+        searchPanel.add(searchMinPriceField);
+        searchPanel.add(new JLabel("-"));
+        searchPanel.add(searchMaxPriceField);
+        searchPanel.add(new JLabel("Seats:"));
+        searchPanel.add(searchMinSeatsField);
+
+        // Wait for a short pause in typing so each keystroke doesn't start a search
+        searchDebounceTimer = new Timer(150, e -> displayFlights());
+        searchDebounceTimer.setRepeats(false);
+        DocumentListener searchListener = new DocumentListener() {
+            public void changedUpdate(DocumentEvent e) { searchDebounceTimer.restart(); }
+            public void removeUpdate(DocumentEvent e) { searchDebounceTimer.restart(); }
+            public void insertUpdate(DocumentEvent e) { searchDebounceTimer.restart(); }
+        };
+        for (JTextField field : new JTextField[]{searchOriginField, searchDestinationField,
+                searchMinPriceField, searchMaxPriceField, searchMinSeatsField}) {
+            field.getDocument().addDocumentListener(searchListener);
+        }
+        return searchPanel;
+    }
+
+    // Builds search criteria from the search bar; blank or invalid numbers mean "any"
+    private FlightSearchCriteria currentSearchCriteria() {
+        return new FlightSearchCriteria(
+            searchOriginField.getText(),
+            searchDestinationField.getText(),
+            parseSearchNumber(searchMinPriceField, 0),
+            parseSearchNumber(searchMaxPriceField, FlightSearchCriteria.ANY_MAX_PRICE),
+            (int) parseSearchNumber(searchMinSeatsField, 0));
+    }
+
+    private double parseSearchNumber(JTextField field, double defaultValue) {
+        String text = field.getText().trim();
+        if (text.isEmpty()) {
+            field.setForeground(UIManager.getColor("TextField.foreground"));
+            return defaultValue;
+        }
+        try {
+            double value = Double.parseDouble(text);
+            field.setForeground(UIManager.getColor("TextField.foreground"));
+            return value;
+        } catch (NumberFormatException e) {
+            field.setForeground(Color.RED); // Ignored until it is fixed
+            return defaultValue;
+        }
+    }
+
     private void performLogin() {
         String username = userField.getText().trim();
         String password = new String(passwordField.getPassword()).trim();
@@ -250,7 +342,18 @@ public class FlightSystemGUI extends JFrame {
             return;
         }
 
-        loggedInUser = system.getUserService().authenticateUser(username, password);
+        loginButton.setEnabled(false);
+        AsyncBookingService.onEdt(asyncService.authenticateUser(username, password), user -> {
+            loginButton.setEnabled(true);
+            completeLogin(user);
+        }, error -> {
+            loginButton.setEnabled(true);
+            showAsyncError(this, "Login failed", error);
+        });
+    }
+
+    private void completeLogin(User user) {
+        loggedInUser = user;
 
         if (loggedInUser != null) {
             JOptionPane.showMessageDialog(this, "Login successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
@@ -285,7 +388,14 @@ public class FlightSystemGUI extends JFrame {
         loggedInUser = null;
         cardLayout.show(cardPanel, "Login");
         JOptionPane.showMessageDialog(this, "Logged out successfully.", "Logout", JOptionPane.INFORMATION_MESSAGE);
+        flightListRequest.cancel(); // Drop any refresh still running for the previous user
         flightListModel.clear();
+        searchOriginField.setText("");
+        searchDestinationField.setText("");
+        searchMinPriceField.setText("");
+        searchMaxPriceField.setText("");
+        searchMinSeatsField.setText("");
+        searchDebounceTimer.stop(); // Clearing the fields re-armed it
         bookingFlightIdField.setText("");
         bookingNumSeatsField.setText("");
     }
@@ -304,7 +414,7 @@ public class FlightSystemGUI extends JFrame {
     private void openMyBookingsWindow() {
         if (loggedInUser != null) {
             // Pass the BookingSystem instance instead of DatabaseManager
-            MyBookingsWindow bookingsWindow = new MyBookingsWindow(system, loggedInUser, this);
+            MyBookingsWindow bookingsWindow = new MyBookingsWindow(asyncService, loggedInUser, this);
             bookingsWindow.setVisible(true);
             // Add the bookings window to the list of open user windows
             openUserWindows.add(bookingsWindow);
@@ -313,22 +423,33 @@ public class FlightSystemGUI extends JFrame {
         }
     }
 
+    // Lists flights matching the search bar, cheapest first. Runs in the background;
+    // a newer search cancels an older one still in flight
     public void displayFlights() {
-        flightListModel.clear();
-
-        ArrayList<Flight> flights = system.getAllFlights();
-        if (flights.isEmpty()) {
-            // You might want to add a message to the list or status bar instead
-            System.out.println("No flights available.");
-        } else {
-            for (Flight flight : flights) {
-                // Format the flight string to include ID at the start
-                String flightInfo = String.format("ID: %d - %s", 
-                    system.getDbManager().getFlightId(flight.getFlightNumber()),
-                    flight.toString());
-                flightListModel.addElement(flightInfo);
+        searchDebounceTimer.stop();
+        // Ask for one extra result to tell whether the list was cut off
+        flightListRequest.load(asyncService.searchFlights(currentSearchCriteria(), MAX_SEARCH_RESULTS + 1), flights -> {
+            flightListModel.clear();
+            if (flights.isEmpty()) {
+                flightStatusLabel.setText("No flights match the search.");
+            } else {
+                List<Flight> shown = flights.size() > MAX_SEARCH_RESULTS ? flights.subList(0, MAX_SEARCH_RESULTS) : flights;
+                for (Flight flight : shown) {
+                    // Format the flight string to include ID at the start
+                    String flightInfo = String.format("ID: %d - %s", flight.getId(), flight.toString());
+                    flightListModel.addElement(flightInfo);
+                }
+                flightStatusLabel.setText(flights.size() > MAX_SEARCH_RESULTS
+                    ? "Showing the " + MAX_SEARCH_RESULTS + " cheapest matches; refine the search to see more."
+                    : flights.size() + " flight(s) found.");
             }
-        }
+        }, error -> showAsyncError(this, "Failed to load flights", error));
+    }
+
+    // Reports a failed background call on the event thread
+    static void showAsyncError(Component parent, String message, Throwable error) {
+        error.printStackTrace();
+        JOptionPane.showMessageDialog(parent, message + ": " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
     }
 
     private void handleBookFlight() {
@@ -354,24 +475,26 @@ public class FlightSystemGUI extends JFrame {
             passengerDialog.setVisible(true);
 
             if (passengerDialog.isConfirmed()) {
-                // Create the booking
-                boolean success = system.createBooking(loggedInUser, flightId, numSeats);
-                if (success) {
-                    List<Booking> userBookings = system.getUserBookings(loggedInUser);
-                    Booking latestBooking = null;
-                    if (!userBookings.isEmpty()) {
-                        latestBooking = userBookings.get(userBookings.size() - 1);
-                    }
-
-                    if (latestBooking != null) {
-                        // Link passengers to the booking using PassengerService
-                        List<Passenger> passengers = passengerDialog.getPassengers();
-                        for (Passenger passenger : passengers) {
-                            system.getPassengerService().linkPassengerToBooking(latestBooking.getBookingId(), passenger.getPassengerId());
-                        }
-
-                        // Show payment window
-                        PaymentWindow paymentWindow = new PaymentWindow(this, system, latestBooking.getBookingId());
+                User bookingUser = loggedInUser;
+                List<Passenger> passengers = passengerDialog.getPassengers();
+                bookButton.setEnabled(false);
+
+                // Book the seats and save the passengers in one transaction off the event thread;
+                // if a passenger cannot be saved, no seats are taken
+                CompletableFuture<ReservationResult> bookingFuture = asyncService.submit(
+                    () -> system.reserveBooking(bookingUser, flightId, numSeats, passengers));
+
+                AsyncBookingService.onEdt(bookingFuture, reservation -> {
+                    bookButton.setEnabled(true);
+                    if (reservation.isReserved()) {
+                        Booking newBooking = reservation.getBooking();
+                        // Show payment window for the fare quoted when the seats were booked; like
+                        // BookingDetails, fall back to the flight's base fare if none was recorded
+                        Flight bookedFlight = system.findFlightById(flightId);
+                        double fare = newBooking.hasFare() ? newBooking.getFare()
+                            : bookedFlight != null ? bookedFlight.getBaseFare() : 0;
+                        PaymentWindow paymentWindow = new PaymentWindow(this, asyncService, newBooking.getBookingId(),
+                            fare * newBooking.getNumSeats());
                         paymentWindow.setVisible(true);
 
                         // Refresh the display
@@ -379,11 +502,13 @@ public class FlightSystemGUI extends JFrame {
                         bookingFlightIdField.setText("");
                         bookingNumSeatsField.setText("");
                     } else {
-                        JOptionPane.showMessageDialog(this, "Booking created, but could not retrieve booking details for payment.");
+                        JOptionPane.showMessageDialog(this, "Failed to create booking: " + reservation.getMessage(),
+                            "Booking Error", JOptionPane.ERROR_MESSAGE);
                     }
-                } else {
-                    JOptionPane.showMessageDialog(this, "Failed to create booking. Please try again.");
-                }
+                }, error -> {
+                    bookButton.setEnabled(true);
+                    showAsyncError(this, "Failed to create booking", error);
+                });
             }
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "Please enter valid numbers for flight ID and seats.");
@@ -463,17 +588,18 @@ public class FlightSystemGUI extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
             if (confirm == JOptionPane.YES_OPTION) {
-                boolean success = system.getDbManager().deleteUser(userId);
-                if (success) {
-                    JOptionPane.showMessageDialog(panel, "User deleted successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    // Refresh the user table
-                    populateAdminUserTable(adminUserTableModel);
-                } else {
-                    JOptionPane.showMessageDialog(panel, 
-                        "Failed to delete user. The user may have existing bookings or the account is protected.",
-                        "Delete Error", 
-                        JOptionPane.ERROR_MESSAGE);
-                }
+                AsyncBookingService.onEdt(asyncService.deleteUser(userId), success -> {
+                    if (success) {
+                        JOptionPane.showMessageDialog(panel, "User deleted successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        // Refresh the user table
+                        populateAdminUserTable(adminUserTableModel);
+                    } else {
+                        JOptionPane.showMessageDialog(panel, 
+                            "Failed to delete user. The user may have existing bookings or the account is protected.",
+                            "Delete Error", 
+                            JOptionPane.ERROR_MESSAGE);
+                    }
+                }, error -> showAsyncError(panel, "Failed to delete user", error));
             }
         });
 
@@ -541,26 +667,25 @@ public class FlightSystemGUI extends JFrame {
                 return;
             }
 
-            // Call DatabaseManager directly
-            long result = system.getDbManager().registerUser(username, password, email, phone, userId, role);
-
-            if (result > 0) {
-                JOptionPane.showMessageDialog(panel, "User created successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                // Clear fields
-                createUsernameField.setText("");
-                createPasswordField.setText("");
-                createEmailField.setText("");
-                createPhoneField.setText("");
-                createUserIdField.setText("");
-                createRoleCombo.setSelectedIndex(0); // Reset to Customer
-                // Refresh the user table
-                populateAdminUserTable(adminUserTableModel);
-            } else {
-                String errorMessage = "Failed to create user.";
-                if (result == -1) errorMessage = "Registration failed: Username already exists.";
-                if (result == -2) errorMessage = "Registration failed: User ID already exists.";
-                JOptionPane.showMessageDialog(panel, errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            AsyncBookingService.onEdt(asyncService.registerUser(username, password, email, phone, userId, role), result -> {
+                if (result > 0) {
+                    JOptionPane.showMessageDialog(panel, "User created successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    // Clear fields
+                    createUsernameField.setText("");
+                    createPasswordField.setText("");
+                    createEmailField.setText("");
+                    createPhoneField.setText("");
+                    createUserIdField.setText("");
+                    createRoleCombo.setSelectedIndex(0); // Reset to Customer
+                    // Refresh the user table
+                    populateAdminUserTable(adminUserTableModel);
+                } else {
+                    String errorMessage = "Failed to create user.";
+                    if (result == -1) errorMessage = "Registration failed: Username already exists.";
+                    if (result == -2) errorMessage = "Registration failed: User ID already exists.";
+                    JOptionPane.showMessageDialog(panel, errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, error -> showAsyncError(panel, "Failed to create user", error));
         });
 
         // --- Manage User Access Section ---
@@ -607,18 +732,17 @@ public class FlightSystemGUI extends JFrame {
             try {
                 int userId = Integer.parseInt(userIdText);
 
-                // Call DatabaseManager directly
-                boolean success = system.getDbManager().updateUserRole(userId, newRole);
-
-                if (success) {
-                    JOptionPane.showMessageDialog(panel, "User role updated successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    // Clear fields and refresh table
-                    manageUserIdField.setText("");
-                    newUserRoleCombo.setSelectedIndex(0); // Reset to Customer
-                    populateAdminUserTable(adminUserTableModel);
-                } else {
-                    JOptionPane.showMessageDialog(panel, "Failed to update user role. User ID might not exist.", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                AsyncBookingService.onEdt(asyncService.updateUserRole(userId, newRole), success -> {
+                    if (success) {
+                        JOptionPane.showMessageDialog(panel, "User role updated successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        // Clear fields and refresh table
+                        manageUserIdField.setText("");
+                        newUserRoleCombo.setSelectedIndex(0); // Reset to Customer
+                        populateAdminUserTable(adminUserTableModel);
+                    } else {
+                        JOptionPane.showMessageDialog(panel, "Failed to update user role. User ID might not exist.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, error -> showAsyncError(panel, "Failed to update user role", error));
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(panel, "Invalid User ID.", "Input Error", JOptionPane.WARNING_MESSAGE);
             }
@@ -639,6 +763,10 @@ public class FlightSystemGUI extends JFrame {
         panel.add(contentPanel, BorderLayout.CENTER);
 
         // Initial population of the user table
+        adminUserRequest = new AsyncBookingService.LatestRequest<>(busy -> {
+            refreshUsersButton.setEnabled(!busy);
+            panel.setCursor(Cursor.getPredefinedCursor(busy ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+        });
         populateAdminUserTable(adminUserTableModel);
 
         // Add a logout button to the admin panel (keep at the bottom) - This will be in the SOUTH of the main 'panel'
@@ -653,18 +781,19 @@ public class FlightSystemGUI extends JFrame {
 
     // Helper method to populate the admin user table
     private void populateAdminUserTable(DefaultTableModel tableModel) {
-        tableModel.setRowCount(0);
-        List<User> users = system.getUserService().getAllUsers();
-        for (User user : users) {
-            tableModel.addRow(new Object[]{
-                user.getId(),
-                user.getUsername(),
-                user.getEmail(),
-                user.getPhoneNumber(),
-                user.getUserId(),
-                user.getRole()
-            });
-        }
+        adminUserRequest.load(asyncService.getAllUsers(), users -> {
+            tableModel.setRowCount(0);
+            for (User user : users) {
+                tableModel.addRow(new Object[]{
+                    user.getId(),
+                    user.getUsername(),
+                    user.getEmail(),
+                    user.getPhoneNumber(),
+                    user.getUserId(),
+                    user.getRole()
+                });
+            }
+        }, error -> showAsyncError(this, "Failed to load users", error));
     }
 
     // Placeholder Agent Panel
@@ -717,24 +846,34 @@ public class FlightSystemGUI extends JFrame {
 
         // --- Flight List Table ---
         String[] columnNames = {"ID", "Flight Number", "Origin", "Destination", "Capacity", "Booked Seats", "Available Seats"};
-        agentFlightTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Rows are paged out of the flight inventory as the table scrolls
+        agentFlightTableModel = new PagedTableModel<>(asyncService, columnNames,
+            (after, limit) -> system.getFlightsPage(after == null ? -1 : after.getId(), limit),
+            (flight, column) -> {
+                switch (column) {
+                    case 0: return flight.getId();
+                    case 1: return flight.getFlightNumber();
+                    case 2: return flight.getDeparture();
+                    case 3: return flight.getDestination();
+                    case 4: return flight.getCapacity();
+                    case 5: return flight.getBookedSeats();
+                    default: return flight.getAvailableSeats();
+                }
+            });
         agentFlightTable = new JTable(agentFlightTableModel);
         JScrollPane tableScrollPane = new JScrollPane(agentFlightTable);
+        agentFlightTableModel.attachTo(tableScrollPane);
 
         // Add a ListSelectionListener to the table to populate fields when a row is selected
         agentFlightTable.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
             public void valueChanged(ListSelectionEvent event) {
                 if (!event.getValueIsAdjusting() && agentFlightTable.getSelectedRow() != -1) {
-                    int selectedRow = agentFlightTable.getSelectedRow();
-                    agentFlightNumberField.setText(agentFlightTableModel.getValueAt(selectedRow, 1).toString());
-                    agentOriginField.setText(agentFlightTableModel.getValueAt(selectedRow, 2).toString());
-                    agentDestinationField.setText(agentFlightTableModel.getValueAt(selectedRow, 3).toString());
-                    agentCapacityField.setText(agentFlightTableModel.getValueAt(selectedRow, 4).toString());
+                    Flight selected = agentFlightTableModel.getRow(
+                        agentFlightTable.convertRowIndexToModel(agentFlightTable.getSelectedRow()));
+                    agentFlightNumberField.setText(selected.getFlightNumber());
+                    agentOriginField.setText(selected.getDeparture());
+                    agentDestinationField.setText(selected.getDestination());
+                    agentCapacityField.setText(String.valueOf(selected.getCapacity()));
                 }
             }
         });
@@ -787,17 +926,9 @@ public class FlightSystemGUI extends JFrame {
                         String origin = originField.getText().trim();
                         String destination = destinationField.getText().trim();
                         if (!origin.isEmpty() && !destination.isEmpty()) {
-                            // Find city indices
-                            int originIndex = -1;
-                            int destIndex = -1;
-                            for (int i = 0; i < system.getDbManager().getCities().length; i++) {
-                                if (system.getDbManager().getCities()[i].equals(origin)) {
-                                    originIndex = i;
-                                }
-                                if (system.getDbManager().getCities()[i].equals(destination)) {
-                                    destIndex = i;
-                                }
-                            }
+                            // Hash lookups and a precomputed distance; cheap enough for every keystroke
+                            int originIndex = system.getDbManager().getCityIndex(origin);
+                            int destIndex = system.getDbManager().getCityIndex(destination);
                             if (originIndex != -1 && destIndex != -1) {
                                 double price = system.getDbManager().calculatePrice(originIndex, destIndex);
                                 priceField.setText(String.format("%.2f", price));
@@ -819,8 +950,9 @@ public class FlightSystemGUI extends JFrame {
                         double price = Double.parseDouble(priceField.getText());
 
                         Flight newFlight = new Flight(newFlightNum, newOrigin, newDestination, newCapacity, price);
-                        system.addFlight(newFlight);
-                        populateFlightTable(agentFlightTableModel);
+                        AsyncBookingService.onEdt(asyncService.addFlight(newFlight),
+                            added -> populateFlightTable(),
+                            error -> showAsyncError(panel, "Failed to add flight", error));
                     } catch (NumberFormatException ex) {
                         JOptionPane.showMessageDialog(this, "Please enter valid numbers for capacity and price.", "Error", JOptionPane.ERROR_MESSAGE);
                     }
@@ -859,7 +991,7 @@ public class FlightSystemGUI extends JFrame {
                     JTextField originField = new JTextField(existingFlight.getDeparture(), 10);
                     JTextField destinationField = new JTextField(existingFlight.getDestination(), 10);
                     JTextField capacityField = new JTextField(String.valueOf(existingFlight.getCapacity()), 10);
-                    JTextField priceField = new JTextField(String.valueOf(existingFlight.getPrice()), 10);
+                    JTextField priceField = new JTextField(String.valueOf(existingFlight.getBaseFare()), 10);
 
                     inputPanel.add(new JLabel("Origin:"));
                     inputPanel.add(originField);
@@ -880,8 +1012,17 @@ public class FlightSystemGUI extends JFrame {
 
                             Flight updatedFlight = new Flight(existingFlight.getFlightNumber(), newOrigin, newDestination, newCapacity, newPrice);
                             updatedFlight.setBookedSeats(existingFlight.getBookedSeats());
-                            system.updateFlight(updatedFlight);
-                            populateFlightTable(agentFlightTableModel);
+                            // The version this edit is based on; the update is refused if the flight changed since
+                            updatedFlight.setId(existingFlight.getId());
+                            updatedFlight.setVersion(existingFlight.getVersion());
+                            AsyncBookingService.onEdt(asyncService.updateFlight(updatedFlight), updated -> {
+                                if (!updated) {
+                                    JOptionPane.showMessageDialog(panel,
+                                        "Flight was not updated. It may have been changed by someone else, or the new capacity is below its booked seats.",
+                                        "Update Error", JOptionPane.WARNING_MESSAGE);
+                                }
+                                populateFlightTable();
+                            }, error -> showAsyncError(panel, "Failed to update flight", error));
                         } catch (NumberFormatException ex) {
                             JOptionPane.showMessageDialog(this, "Please enter valid numbers for capacity and price.", "Error", JOptionPane.ERROR_MESSAGE);
                         }
@@ -908,15 +1049,15 @@ public class FlightSystemGUI extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
             if (confirm == JOptionPane.YES_OPTION) {
-                boolean success = system.deleteFlight(flightNum);
-
-                if (success) {
-                    JOptionPane.showMessageDialog(panel, "Flight deleted successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    clearFlightFields();
-                    populateFlightTable(agentFlightTableModel);
-                } else {
-                    JOptionPane.showMessageDialog(panel, "Failed to delete flight. It might have existing bookings or not exist.", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                AsyncBookingService.onEdt(asyncService.deleteFlight(flightNum), success -> {
+                    if (success) {
+                        JOptionPane.showMessageDialog(panel, "Flight deleted successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        clearFlightFields();
+                        populateFlightTable();
+                    } else {
+                        JOptionPane.showMessageDialog(panel, "Failed to delete flight. It might have existing bookings or not exist.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, error -> showAsyncError(panel, "Failed to delete flight", error));
             }
         });
 
@@ -930,7 +1071,10 @@ public class FlightSystemGUI extends JFrame {
         panel.add(contentPanel, BorderLayout.CENTER);
 
         // Initial population of the table
-        populateFlightTable(agentFlightTableModel);
+        agentFlightTableModel.setBusyIndicator(busy ->
+            panel.setCursor(Cursor.getPredefinedCursor(busy ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR)));
+        agentFlightTableModel.setErrorHandler(error -> showAsyncError(this, "Failed to load flights", error));
+        populateFlightTable();
 
         // Add a logout button to the agent panel (keep at the bottom)
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -940,14 +1084,14 @@ public class FlightSystemGUI extends JFrame {
         JButton manageBookingsButton = new JButton("Manage Bookings");
 
         manageUsersButton.addActionListener(e -> {
-            UserManagementWindow userManagementWindow = new UserManagementWindow(system);
+            UserManagementWindow userManagementWindow = new UserManagementWindow(asyncService);
             userManagementWindow.setVisible(true);
         });
         agentLogoutButton.addActionListener(e -> performLogout());
 
         // Add action listener for Manage Bookings button
         manageBookingsButton.addActionListener(e -> {
-            AgentBookingManagementWindow bookingManagementWindow = new AgentBookingManagementWindow(system);
+            AgentBookingManagementWindow bookingManagementWindow = new AgentBookingManagementWindow(asyncService);
             bookingManagementWindow.setVisible(true);
         });
 
@@ -959,22 +1103,9 @@ public class FlightSystemGUI extends JFrame {
         return panel;
     }
 
-    // Helper method to populate the flight table
-    private void populateFlightTable(DefaultTableModel tableModel) {
-        tableModel.setRowCount(0);
-        ArrayList<Flight> flights = system.getAllFlights();
-        for (Flight flight : flights) {
-            int flightId = system.getDbManager().getFlightId(flight.getFlightNumber());
-            tableModel.addRow(new Object[]{
-                flightId,
-                flight.getFlightNumber(),
-                flight.getDeparture(),
-                flight.getDestination(),
-                flight.getCapacity(),
-                flight.getBookedSeats(),
-                flight.getAvailableSeats()
-            });
-        }
+    // Helper method to repopulate the flight table from its first page
+    private void populateFlightTable() {
+        agentFlightTableModel.reload();
     }
 
     // Helper method to clear flight management input fields
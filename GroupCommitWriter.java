@@ -0,0 +1,229 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write pipeline that commits queued mutations together in group transactions.
+ * The writer connection runs with synchronous = FULL, so every commit syncs the
+ * WAL to disk, and with auto-commit a burst of small inserts pays one sync per
+ * statement. Here one thread takes the first queued mutation and everything
+ * queued behind it. A mutation with nothing queued behind it is committed at
+ * once. Otherwise the thread keeps collecting until the batch is full
+ * (-Dflight.db.groupCommitSize, default 64) or the oldest mutation has waited
+ * the linger time (-Dflight.db.groupCommitDelayMs, default 2). It then applies
+ * the whole batch on the writer connection and commits once. Mutations that
+ * arrive during a commit form the next batch.
+ *
+ * Durability: a mutation's future completes only after the commit that
+ * contains it has succeeded and been synced. If that commit fails, every future
+ * in the batch fails. Each mutation runs inside its own savepoint, so one
+ * mutation that throws is rolled back alone and fails only its own future.
+ */
+public class GroupCommitWriter {
+    /** Most mutations committed together in one transaction */
+    public static final int MAX_BATCH = Integer.getInteger("flight.db.groupCommitSize", 64);
+    private static final long LINGER_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(Integer.getInteger("flight.db.groupCommitDelayMs", 2));
+
+    /**
+     * One write, applied to the writer connection inside the group transaction.
+     * Must not commit, roll back or change auto-commit.
+     */
+    public interface Mutation<T> {
+        T apply(Connection conn) throws SQLException;
+    }
+
+    private final ConnectionPool pool;
+    private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    // Queued last by close(); the flusher commits what is ahead of it and exits
+    private final Pending<?> poisonPill = new Pending<>(null, null);
+    // Makes "not closed, so enqueue" atomic with close()
+    private final Object submitLock = new Object();
+    private final Thread flusher;
+    private volatile boolean closed = false;
+
+    // Metrics
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong mutationCount = new AtomicLong();
+    private final AtomicLong failedCommitCount = new AtomicLong();
+
+    public GroupCommitWriter(ConnectionPool pool) {
+        this.pool = pool;
+        this.flusher = new Thread(this::run, "group-commit-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues a mutation for the next group commit
+     * @return Completes with the mutation's result once it is committed
+     */
+    public <T> CompletableFuture<T> submit(Mutation<T> mutation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        synchronized (submitLock) {
+            if (closed) {
+                future.completeExceptionally(new SQLException("Group commit writer is closed"));
+                return future;
+            }
+            queue.add(new Pending<>(mutation, future));
+        }
+        return future;
+    }
+
+    /**
+     * Stops accepting mutations and commits the ones already queued
+     */
+    public void close() {
+        synchronized (submitLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // Nothing can be queued behind this
+            queue.add(poisonPill);
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Only reached if the flusher is stuck; anything still queued will never run
+        Pending<?> pending;
+        while ((pending = queue.poll()) != null) {
+            if (pending != poisonPill) {
+                pending.future.completeExceptionally(new SQLException("Group commit writer is closed"));
+            }
+        }
+    }
+
+    private void run() {
+        List<Pending<?>> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Not used to stop the writer; nobody else should interrupt it
+                continue;
+            }
+            stopping = batch.remove(poisonPill);
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Blocks for the first mutation, then lingers briefly for more to share the commit.
+    // Stops collecting at the poison pill, which is always the last entry queued.
+    private void collect(List<Pending<?>> batch) throws InterruptedException {
+        Pending<?> first = queue.take();
+        batch.add(first);
+        if (first == poisonPill) {
+            return;
+        }
+        queue.drainTo(batch, MAX_BATCH - 1);
+        if (batch.size() == 1) {
+            // Nobody to share the commit with; lingering would only add latency
+            return;
+        }
+        long deadline = System.nanoTime() + LINGER_NANOS;
+        while (batch.size() < MAX_BATCH && batch.get(batch.size() - 1) != poisonPill) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Pending<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+        }
+    }
+
+    private void commit(List<Pending<?>> batch) {
+        List<Pending<?>> applied = new ArrayList<>(batch.size());
+        try (Connection conn = pool.borrowWrite()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Pending<?> pending : batch) {
+                    if (pending.applyInSavepoint(conn)) {
+                        applied.add(pending);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            failedCommitCount.incrementAndGet();
+            for (Pending<?> pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+            return;
+        }
+        batchCount.incrementAndGet();
+        mutationCount.addAndGet(batch.size());
+        for (Pending<?> pending : applied) {
+            pending.completeAfterCommit();
+        }
+    }
+
+    // Metrics getters
+    public long getBatchCount() { return batchCount.get(); }
+    public long getMutationCount() { return mutationCount.get(); }
+    public long getFailedCommitCount() { return failedCommitCount.get(); }
+    public int getQueuedMutations() { return queue.size(); }
+
+    public double getAverageBatchSize() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0.0 : (double) mutationCount.get() / batches;
+    }
+
+    public String getMetricsSummary() {
+        return String.format("GroupCommit: batches=%d, mutations=%d, avgBatch=%.1f, failedCommits=%d, queued=%d",
+            getBatchCount(), getMutationCount(), getAverageBatchSize(), getFailedCommitCount(), getQueuedMutations());
+    }
+
+    // A queued mutation and the future its caller waits on
+    private static final class Pending<T> {
+        final Mutation<T> mutation;
+        final CompletableFuture<T> future;
+        T result;
+
+        Pending(Mutation<T> mutation, CompletableFuture<T> future) {
+            this.mutation = mutation;
+            this.future = future;
+        }
+
+        // Applies the mutation; on failure rolls back just this mutation and fails its future
+        boolean applyInSavepoint(Connection conn) throws SQLException {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                result = mutation.apply(conn);
+                conn.releaseSavepoint(savepoint);
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback(savepoint);
+                conn.releaseSavepoint(savepoint);
+                future.completeExceptionally(e);
+                return false;
+            }
+        }
+
+        void completeAfterCommit() {
+            future.complete(result);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A trip from one city to another made of one or more connecting flights.
+ * Prices are per seat.
+ */
+public class Itinerary {
+    private final List<Flight> legs;
+    private final double totalPrice;
+    private final double totalDistanceKm;
+
+    /**
+     * @param legs The flights in travel order
+     * @param totalPrice Sum of the leg prices
+     * @param totalDistanceKm Sum of the leg distances, or -1 if a leg touches a city with unknown coordinates
+     */
+    public Itinerary(List<Flight> legs, double totalPrice, double totalDistanceKm) {
+        this.legs = Collections.unmodifiableList(legs);
+        this.totalPrice = totalPrice;
+        this.totalDistanceKm = totalDistanceKm;
+    }
+
+    public String getOrigin() {
+        return legs.get(0).getDeparture();
+    }
+
+    public String getDestination() {
+        return legs.get(legs.size() - 1).getDestination();
+    }
+
+    /**
+     * @return Number of connections; 0 for a direct flight
+     */
+    public int getStops() {
+        return legs.size() - 1;
+    }
+
+    /**
+     * @return Seats that can be booked on every leg
+     */
+    public int getAvailableSeats() {
+        int seats = Integer.MAX_VALUE;
+        for (Flight leg : legs) {
+            seats = Math.min(seats, leg.getAvailableSeats());
+        }
+        return seats;
+    }
+
+    // Getters
+    public List<Flight> getLegs() { return legs; }
+    public double getTotalPrice() { return totalPrice; }
+    public double getTotalDistanceKm() { return totalDistanceKm; }
+
+    @Override
+    public String toString() {
+        String route = getOrigin() + legs.stream().map(leg -> " -> " + leg.getDestination()).collect(Collectors.joining());
+        String flights = legs.stream().map(Flight::getFlightNumber).collect(Collectors.joining(", "));
+        String distance = totalDistanceKm < 0 ? "unknown distance" : String.format("%.0f km", totalDistanceKm);
+        return String.format("%s (%s) - %d stop(s) - $%.2f - %s", route, flights, getStops(), totalPrice, distance);
+    }
+}
@@ -8,7 +8,15 @@ public class Main {
             System.out.println("Calling SwingUtilities.invokeLater...");
             SwingUtilities.invokeLater(() -> {
                 System.out.println("Inside SwingUtilities.invokeLater lambda.");
-                FlightSystemGUI gui = new FlightSystemGUI();
+                FlightSystemGUI gui;
+                try {
+                    gui = new FlightSystemGUI();
+                } catch (DatabaseUnavailableException e) {
+                    // The core reports database failures as exceptions; show them here and quit
+                    JOptionPane.showMessageDialog(null, e.getMessage(), e.getReason().getTitle(), JOptionPane.ERROR_MESSAGE);
+                    System.exit(1);
+                    return;
+                }
                 System.out.println("FlightSystemGUI object created.");
                 gui.setVisible(true);
                 System.out.println("Called gui.setVisible(true).");
@@ -3,9 +3,10 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 public class MyBookingsWindow extends JFrame {
-    private BookingSystem bookingSystem; // Renamed from dbManager
+    private AsyncBookingService bookingService; // Runs database work off the event thread
     private User loggedInUser;
     private FlightSystemGUI mainGUI; // Reference to the main GUI
 
@@ -14,9 +15,11 @@ public class MyBookingsWindow extends JFrame {
     private JButton cancelButton;
     private JTextField seatsToCancelField; // New field for seats to cancel
     private JButton payPendingButton; // New button for paying pending flights
+    private JLabel statusLabel;
+    private AsyncBookingService.LatestRequest<List<BookingDetails>> bookingsRequest;
 
-    public MyBookingsWindow(BookingSystem bookingSystem, User loggedInUser, FlightSystemGUI mainGUI) { // Updated parameter type
-        this.bookingSystem = bookingSystem;
+    public MyBookingsWindow(AsyncBookingService bookingService, User loggedInUser, FlightSystemGUI mainGUI) {
+        this.bookingService = bookingService;
         this.loggedInUser = loggedInUser;
         this.mainGUI = mainGUI;
 
@@ -46,12 +49,16 @@ public class MyBookingsWindow extends JFrame {
         controlPanel.add(seatsToCancelField);
         controlPanel.add(cancelButton);
         controlPanel.add(payPendingButton); // Add the new button
+        statusLabel = new JLabel(" ");
+        controlPanel.add(statusLabel);
         add(controlPanel, BorderLayout.SOUTH);
 
         cancelButton.addActionListener(e -> cancelSelectedBooking());
         payPendingButton.addActionListener(e -> handlePendingPayments()); // Add action listener
 
-        // Load and display bookings
+        // Load and display bookings in the background; the latest refresh wins
+        bookingsRequest = new AsyncBookingService.LatestRequest<>(busy ->
+            statusLabel.setText(busy ? "Loading..." : " "));
         loadBookings();
 
         // Update the cell renderer to display Booking details
@@ -59,17 +66,27 @@ public class MyBookingsWindow extends JFrame {
     }
 
     private void loadBookings() {
-        bookingListModel.clear();
-        if (loggedInUser != null) {
-            List<Booking> bookings = bookingSystem.getUserBookings(loggedInUser); // Use BookingSystem method
+        if (loggedInUser == null) {
+            bookingListModel.clear();
+            return;
+        }
+        // Bookings come back joined with their flight so the renderer needs no extra queries
+        bookingsRequest.load(bookingService.getUserBookingDetails(loggedInUser), bookings -> {
+            bookingListModel.clear();
             if (bookings.isEmpty()) {
                 // Add a placeholder or leave empty if preferred
             } else {
-                for (Booking booking : bookings) {
+                for (BookingDetails booking : bookings) {
                     bookingListModel.addElement(booking); // Add Booking object directly
                 }
             }
-        }
+        }, error -> FlightSystemGUI.showAsyncError(this, "Failed to load bookings", error));
+    }
+
+    @Override
+    public void dispose() {
+        bookingsRequest.cancel(); // Don't fill a list that is going away
+        super.dispose();
     }
 
     private void cancelSelectedBooking() {
@@ -108,36 +125,33 @@ public class MyBookingsWindow extends JFrame {
 
         if (confirm == JOptionPane.YES_OPTION) {
             if (loggedInUser != null) {
-                // Call the cancelBookingSeats method in BookingSystem
-                int[] cancellationResult = bookingSystem.cancelBookingSeats(loggedInUser, selectedBooking.getBookingId(), numSeatsToCancel); // Use BookingSystem method
+                cancelButton.setEnabled(false);
+                // Cancel the seats and release them on the flight off the event thread
+                CompletableFuture<int[]> cancellation = bookingService.cancelAndReleaseSeats(
+                    loggedInUser, selectedBooking.getBookingId(), numSeatsToCancel);
 
-                if (cancellationResult != null && cancellationResult.length == 2) {
-                    int flightIdToUpdate = cancellationResult[0];
-                    int actualSeatsCancelled = cancellationResult[1];
+                AsyncBookingService.onEdt(cancellation, cancellationResult -> {
+                    cancelButton.setEnabled(true);
+                    if (cancellationResult != null && cancellationResult.length == 2) {
+                        JOptionPane.showMessageDialog(this, "Booking cancelled successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
 
-                    JOptionPane.showMessageDialog(this, "Booking cancelled successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        // Refresh the list of bookings in this window
+                        loadBookings();
 
-                    // Update the flight's booked seats count in the database via BookingSystem
-                     // Need to get the Flight object via BookingSystem as well
-                    Flight flight = bookingSystem.findFlightById(flightIdToUpdate);
-                    if (flight != null) {
-                        flight.setBookedSeats(flight.getBookedSeats() - actualSeatsCancelled);
-                        bookingSystem.updateFlightInDatabase(flight); // Use BookingSystem method
-                    }
+                        // Refresh the flight list in the main GUI
+                        if (mainGUI != null) {
+                            mainGUI.displayFlights();
+                        }
 
-                    // Refresh the list of bookings in this window
-                    loadBookings();
+                         seatsToCancelField.setText(""); // Clear the input field
 
-                    // Refresh the flight list in the main GUI
-                    if (mainGUI != null) {
-                        mainGUI.displayFlights();
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Failed to cancel booking. Booking not found, does not belong to you, or invalid seats.", "Cancellation Failed", JOptionPane.ERROR_MESSAGE);
                     }
-
-                     seatsToCancelField.setText(""); // Clear the input field
-
-                } else {
-                    JOptionPane.showMessageDialog(this, "Failed to cancel booking. Booking not found, does not belong to you, or invalid seats.", "Cancellation Failed", JOptionPane.ERROR_MESSAGE);
-                }
+                }, error -> {
+                    cancelButton.setEnabled(true);
+                    FlightSystemGUI.showAsyncError(this, "Failed to cancel booking", error);
+                });
             }
         }
     }
@@ -163,12 +177,12 @@ public class MyBookingsWindow extends JFrame {
         double totalAmount = 0;
         StringBuilder bookingDetails = new StringBuilder("Pending Bookings:\n\n");
         for (Booking booking : pendingBookings) {
-            Flight flight = bookingSystem.getDbManager().getFlightById(booking.getFlightId());
-            if (flight != null) {
-                double bookingAmount = booking.getNumSeats() * flight.getPrice();
+            BookingDetails details = (BookingDetails) booking;
+            if (details.hasFlight()) {
+                double bookingAmount = details.getTotalPrice();
                 totalAmount += bookingAmount;
                 bookingDetails.append(String.format("Flight %s: %d seats - $%.2f\n", 
-                    flight.getFlightNumber(), booking.getNumSeats(), bookingAmount));
+                    details.getFlightNumber(), details.getNumSeats(), bookingAmount));
             }
         }
         bookingDetails.append(String.format("\nTotal Amount: $%.2f", totalAmount));
@@ -181,7 +195,8 @@ public class MyBookingsWindow extends JFrame {
         if (confirm == JOptionPane.YES_OPTION) {
             // Open payment window for each pending booking
             for (Booking booking : pendingBookings) {
-                PaymentWindow paymentWindow = new PaymentWindow(mainGUI, bookingSystem, booking.getBookingId());
+                PaymentWindow paymentWindow = new PaymentWindow(mainGUI, bookingService, booking.getBookingId(),
+                    ((BookingDetails) booking).getTotalPrice());
                 paymentWindow.setVisible(true);
             }
             // Refresh the bookings list after payment attempts
@@ -194,19 +209,9 @@ public class MyBookingsWindow extends JFrame {
         @Override
         public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
             super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-            if (value instanceof Booking) {
-                Booking booking = (Booking) value;
-                // Fetch flight details to display meaningful info via BookingSystem and DatabaseManager
-                Flight flight = bookingSystem.getDbManager().getFlightById(booking.getFlightId());
-                if (flight != null) {
-                    // Include booking status in the display
-                    setText(String.format("Booking ID: %d - Flight %s (%s to %s) - Seats: %d - Status: %s",
-                        booking.getBookingId(), flight.getFlightNumber(), flight.getDeparture(), flight.getDestination(), booking.getNumSeats(), booking.getStatus()));
-                } else {
-                    // Include booking status in the display even if flight is unknown
-                    setText(String.format("Booking ID: %d - Flight (Unknown - ID: %d) - Seats: %d - Status: %s",
-                        booking.getBookingId(), booking.getFlightId(), booking.getNumSeats(), booking.getStatus()));
-                }
+            if (value instanceof BookingDetails) {
+                // Flight number and route were loaded with the booking, so no query per render
+                setText(value.toString());
             }
             return this;
         }
@@ -0,0 +1,194 @@
+import javax.swing.BoundedRangeModel;
+import javax.swing.JScrollPane;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Table model that loads its rows a page at a time as the user scrolls.
+ * Pages are fetched with keyset pagination: each request asks for the rows
+ * after the last one already loaded, so no query has to skip over an OFFSET
+ * and nothing past the scroll position is ever read. JTable only renders the
+ * visible rows, and rows are kept as plain objects rather than the per-cell
+ * Vectors DefaultTableModel uses.
+ * Must be used from the Swing event thread.
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+    // Rows fetched per query; override with -Dflight.ui.pageSize=N
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger("flight.ui.pageSize", 200);
+
+    /**
+     * Fetches the rows that follow a given row. Runs on a background thread.
+     */
+    public interface PageLoader<T> {
+        /**
+         * @param after The last row already loaded, or null for the first page
+         * @param limit Maximum number of rows to return
+         * @return The next rows in table order; fewer than limit means there are no more
+         */
+        List<T> loadPage(T after, int limit);
+    }
+
+    /**
+     * Maps a row object to the value shown in one column
+     */
+    public interface ColumnMapper<T> {
+        Object getValue(T row, int column);
+    }
+
+    private final AsyncBookingService bookingService;
+    private final String[] columnNames;
+    private final PageLoader<T> loader;
+    private final ColumnMapper<T> mapper;
+    private final int pageSize;
+    private final List<T> rows = new ArrayList<>();
+
+    private boolean hasMore = true;
+    private CompletableFuture<List<T>> pending;
+    private Consumer<Boolean> busyIndicator = busy -> { };
+    private Consumer<Throwable> errorHandler = Throwable::printStackTrace;
+
+    public PagedTableModel(AsyncBookingService bookingService, String[] columnNames,
+                           PageLoader<T> loader, ColumnMapper<T> mapper) {
+        this(bookingService, columnNames, loader, mapper, DEFAULT_PAGE_SIZE);
+    }
+
+    public PagedTableModel(AsyncBookingService bookingService, String[] columnNames,
+                           PageLoader<T> loader, ColumnMapper<T> mapper, int pageSize) {
+        this.bookingService = bookingService;
+        this.columnNames = columnNames;
+        this.loader = loader;
+        this.mapper = mapper;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param busyIndicator Called with true when a page starts loading and false when it is done
+     */
+    public void setBusyIndicator(Consumer<Boolean> busyIndicator) {
+        this.busyIndicator = busyIndicator;
+    }
+
+    /**
+     * @param errorHandler Called on the EDT when a page fails to load
+     */
+    public void setErrorHandler(Consumer<Throwable> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Loads the next page whenever the scroll pane gets within one screen of the bottom
+     * @param scrollPane The scroll pane showing the table that uses this model
+     */
+    public void attachTo(JScrollPane scrollPane) {
+        BoundedRangeModel scroll = scrollPane.getVerticalScrollBar().getModel();
+        scroll.addChangeListener(e -> {
+            if (!scroll.getValueIsAdjusting()
+                    && scroll.getValue() + 2 * scroll.getExtent() >= scroll.getMaximum()) {
+                loadMore();
+            }
+        });
+    }
+
+    /**
+     * Drops all loaded rows and loads the first page again
+     */
+    public void reload() {
+        cancel();
+        int loaded = rows.size();
+        rows.clear();
+        hasMore = true;
+        if (loaded > 0) {
+            fireTableRowsDeleted(0, loaded - 1);
+        }
+        loadMore();
+    }
+
+    /**
+     * Starts loading the next page unless one is already loading or everything is loaded
+     */
+    public void loadMore() {
+        if (pending != null || !hasMore) {
+            return;
+        }
+        T after = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        CompletableFuture<List<T>> future = bookingService.submit(() -> loader.loadPage(after, pageSize));
+        pending = future;
+        busyIndicator.accept(true);
+        AsyncBookingService.onEdt(future, page -> {
+            if (future != pending) {
+                return; // Superseded by a reload
+            }
+            pending = null;
+            hasMore = page.size() >= pageSize;
+            if (!page.isEmpty()) {
+                int first = rows.size();
+                rows.addAll(page);
+                fireTableRowsInserted(first, rows.size() - 1);
+            }
+            busyIndicator.accept(false);
+        }, error -> {
+            if (future != pending) {
+                return;
+            }
+            pending = null;
+            hasMore = false; // Stop retrying on every scroll; Refresh starts over
+            busyIndicator.accept(false);
+            errorHandler.accept(error);
+        });
+    }
+
+    /**
+     * Cancels the page that is loading, if any
+     */
+    public void cancel() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+            busyIndicator.accept(false);
+        }
+    }
+
+    /**
+     * @return The row object shown at the given index
+     */
+    public T getRow(int rowIndex) {
+        return rows.get(rowIndex);
+    }
+
+    /**
+     * @return Index of the given row object, or -1 if it is no longer loaded (e.g. after a reload)
+     */
+    public int indexOf(T row) {
+        return rows.indexOf(row);
+    }
+
+    /**
+     * @return true if there may be rows that have not been loaded yet
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return mapper.getValue(rows.get(rowIndex), columnIndex);
+    }
+}
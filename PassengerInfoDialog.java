@@ -45,7 +45,7 @@ public class PassengerInfoDialog extends JDialog {
         JButton cancelButton = new JButton("Cancel");
 
         confirmButton.addActionListener(e -> {
-            if (validateAndSavePassengers()) {
+            if (validatePassengers()) {
                 confirmed = true;
                 dispose();
             }
@@ -100,7 +100,7 @@ public class PassengerInfoDialog extends JDialog {
         return panel;
     }
 
-    private boolean validateAndSavePassengers() {
+    private boolean validatePassengers() {
         // Clear previous passengers
         passengers.clear();
 
@@ -129,15 +129,9 @@ public class PassengerInfoDialog extends JDialog {
                 return false;
             }
 
-            // Create passenger using PassengerService
-            Passenger passenger = bookingSystem.getPassengerService().createPassenger(name, passport, dob, requests);
-            if (passenger == null) {
-                JOptionPane.showMessageDialog(this,
-                    "Failed to create passenger record for passenger " + (i + 1),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-                return false;
-            }
+            // Saved in the same transaction as the booking, see BookingSystem.reserveBooking
+            Passenger passenger = new Passenger(0, name, passport, dob);
+            passenger.setSpecialRequests(requests);
             passengers.add(passenger);
         }
         return true;
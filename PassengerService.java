@@ -51,6 +51,33 @@ public class PassengerService {
         return new Passenger(passengerId, name, passportNumber, dateOfBirth);
     }
 
+    /**
+     * Saves all passengers of a booking and links them to it in one transaction
+     * @param bookingId The booking ID
+     * @param passengers Unsaved passengers, for example from PassengerInfoDialog
+     * @return true if every passenger was saved and linked; their IDs are set on the objects.
+     *         false if any passenger is invalid or the transaction failed, in which case nothing is saved
+     */
+    public boolean addPassengersToBooking(int bookingId, List<Passenger> passengers) {
+        for (Passenger passenger : passengers) {
+            if (!validatePassengerInfo(passenger.getName(), passenger.getPassportNumber(), passenger.getDateOfBirth())) {
+                return false;
+            }
+        }
+        if (passengers.isEmpty()) {
+            return true;
+        }
+
+        int[] passengerIds = dbManager.savePassengersForBooking(bookingId, passengers);
+        if (passengerIds == null) {
+            return false;
+        }
+        for (int i = 0; i < passengerIds.length; i++) {
+            passengers.get(i).setPassengerId(passengerIds[i]);
+        }
+        return true;
+    }
+
     /**
      * Links a passenger to a booking
      * @param bookingId The booking ID
@@ -3,8 +3,10 @@ import java.awt.*;
 import java.awt.event.*;
 
 public class PaymentWindow extends JDialog {
-    private BookingSystem bookingSystem;
+    private AsyncBookingService bookingService;
     private int bookingId;
+    // Amount charged: the fare quoted at booking time times the seats
+    private double amount;
 
     // Payment form components
     private JTextField cardNumberField;
@@ -12,10 +14,11 @@ public class PaymentWindow extends JDialog {
     private JTextField cvvField;
     private JButton payButton;
 
-    public PaymentWindow(JFrame parent, BookingSystem system, int bookingId) {
+    public PaymentWindow(JFrame parent, AsyncBookingService bookingService, int bookingId, double amount) {
         super(parent, "Process Payment", true);
-        this.bookingSystem = system;
+        this.bookingService = bookingService;
         this.bookingId = bookingId;
+        this.amount = amount;
 
         // Initialize payment form layout
         setLayout(new GridBagLayout());
@@ -24,6 +27,7 @@ public class PaymentWindow extends JDialog {
         gbc.fill = GridBagConstraints.HORIZONTAL;
 
         // Create form labels and input fields
+        JLabel amountLabel = new JLabel(String.format("Amount due: $%.2f", amount));
         JLabel cardNumberLabel = new JLabel("Card Number:");
         JLabel expiryDateLabel = new JLabel("Expiry Date (MM/YY):");
         JLabel cvvLabel = new JLabel("CVV:");
@@ -34,16 +38,19 @@ public class PaymentWindow extends JDialog {
         payButton = new JButton("Pay");
 
         // Add components to form
-        gbc.gridx = 0; gbc.gridy = 0; add(cardNumberLabel, gbc);
-        gbc.gridx = 1; gbc.gridy = 0; add(cardNumberField, gbc);
+        gbc.gridx = 0; gbc.gridy = 0; gbc.gridwidth = 2; add(amountLabel, gbc);
+        gbc.gridwidth = 1;
 
-        gbc.gridx = 0; gbc.gridy = 1; add(expiryDateLabel, gbc);
-        gbc.gridx = 1; gbc.gridy = 1; add(expiryDateField, gbc);
+        gbc.gridx = 0; gbc.gridy = 1; add(cardNumberLabel, gbc);
+        gbc.gridx = 1; gbc.gridy = 1; add(cardNumberField, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 2; add(cvvLabel, gbc);
-        gbc.gridx = 1; gbc.gridy = 2; add(cvvField, gbc);
+        gbc.gridx = 0; gbc.gridy = 2; add(expiryDateLabel, gbc);
+        gbc.gridx = 1; gbc.gridy = 2; add(expiryDateField, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 2; gbc.anchor = GridBagConstraints.CENTER;
+        gbc.gridx = 0; gbc.gridy = 3; add(cvvLabel, gbc);
+        gbc.gridx = 1; gbc.gridy = 3; add(cvvField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2; gbc.anchor = GridBagConstraints.CENTER;
         add(payButton, gbc);
 
         payButton.addActionListener(e -> processPayment());
@@ -83,14 +90,23 @@ public class PaymentWindow extends JDialog {
         boolean paymentSuccessful = simulatePayment(cardNumber, expiryDate, cvv);
 
         if (paymentSuccessful) {
-            boolean statusUpdated = bookingSystem.processPayment(bookingId);
-
-            if (statusUpdated) {
-                JOptionPane.showMessageDialog(this, "Payment successful! Booking status updated to Paid.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                dispose();
-            } else {
-                JOptionPane.showMessageDialog(this, "Payment successful, but failed to update booking status.", "Warning", JOptionPane.WARNING_MESSAGE);
-            }
+            // Update the booking status off the event thread; keep the form locked meanwhile
+            payButton.setEnabled(false);
+            payButton.setText("Processing...");
+            AsyncBookingService.onEdt(bookingService.processPayment(bookingId), statusUpdated -> {
+                payButton.setEnabled(true);
+                payButton.setText("Pay");
+                if (statusUpdated) {
+                    JOptionPane.showMessageDialog(this, "Payment successful! Booking status updated to Paid.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    dispose();
+                } else {
+                    JOptionPane.showMessageDialog(this, "Payment successful, but failed to update booking status.", "Warning", JOptionPane.WARNING_MESSAGE);
+                }
+            }, error -> {
+                payButton.setEnabled(true);
+                payButton.setText("Pay");
+                FlightSystemGUI.showAsyncError(this, "Failed to update booking status", error);
+            });
         } else {
             JOptionPane.showMessageDialog(this, "Payment failed. Please check your details.", "Payment Error", JOptionPane.ERROR_MESSAGE);
         }
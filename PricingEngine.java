@@ -0,0 +1,247 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prices flights between hub cities. The great-circle distance of every city
+ * pair is computed once, up front, into a flat array, so a price is one array
+ * read plus the fare rules. There is no trigonometry per call.
+ *
+ * The default rules are the original tariff: $0.15 per km with a +/-20% spread
+ * per route. The spread is a hash of a seed and the route, not a draw from a
+ * shared Random. Set -Dflight.pricing.seed to make prices reproducible across
+ * runs; without it a random seed is picked at startup. Within a run a route
+ * always has the same price.
+ *
+ * Rules come in two stages. Route rules turn a distance into the base fare,
+ * the fare of an empty flight, which is what flights store. Load rules then
+ * adjust a base fare for how full the flight is, followed by the flight's fare
+ * buckets, or the engine's default buckets for flights without their own. That
+ * second stage is the live fare Flight keeps current on every seat change.
+ * Load rules may raise a fare but must not lower it; only buckets can, which
+ * keeps lowestFare a true lower bound.
+ *
+ * fromConfig builds the rules from system properties:
+ *   flight.pricing.ratePerKm      rate per kilometer (0.15)
+ *   flight.pricing.variation      per-route spread, as a fraction (0.20)
+ *   flight.pricing.loadSurcharge  "threshold:maxSurcharge", e.g. "0.7:0.5"
+ *                                 for up to +50% above 70% full (off by default)
+ *   flight.pricing.fareBuckets    default fare buckets, see FareBuckets
+ *                                 ("0.5:1.15,0.75:1.35,0.9:1.6"; empty for none)
+ * Callers that need other rules build an engine themselves and hand it to
+ * DatabaseManager.
+ */
+public class PricingEngine {
+    private static final double EARTH_RADIUS_KM = 6371;
+    private static final double DEFAULT_RATE_PER_KM = 0.15;
+    private static final double DEFAULT_VARIATION = 0.20;
+    private static final String DEFAULT_FARE_BUCKETS = "0.5:1.15,0.75:1.35,0.9:1.6";
+
+    private final String[] cities;
+    private final Map<String, Integer> cityIndex = new HashMap<>();
+    // distanceKm[origin * cityCount + destination]
+    private final double[] distanceKm;
+    private final FareRule[] rules;
+    private final FareRule[] loadRules;
+    private final FareBuckets fareBuckets;
+    private final long seed;
+
+    /**
+     * Engine whose fares do not move with the load factor
+     * @param cities City names; their positions are the city indexes
+     * @param coordinates {latitude, longitude} in degrees for each city
+     * @param rules Route rules, applied in order
+     * @param seed Seed the rules were built with, reported by getSeed()
+     */
+    public PricingEngine(String[] cities, double[][] coordinates, List<FareRule> rules, long seed) {
+        this(cities, coordinates, rules, List.of(), FareBuckets.FLAT, seed);
+    }
+
+    /**
+     * @param rules Route rules, applied in order to produce the base fare
+     * @param loadRules Load rules, applied in order to a base fare; must not lower it
+     * @param fareBuckets Buckets for flights that have none of their own
+     */
+    public PricingEngine(String[] cities, double[][] coordinates, List<FareRule> rules, List<FareRule> loadRules,
+                         FareBuckets fareBuckets, long seed) {
+        if (cities.length != coordinates.length) {
+            throw new IllegalArgumentException(cities.length + " cities but " + coordinates.length + " coordinates");
+        }
+        this.cities = cities.clone();
+        this.rules = rules.toArray(new FareRule[0]);
+        this.loadRules = loadRules.toArray(new FareRule[0]);
+        this.fareBuckets = fareBuckets;
+        this.seed = seed;
+        int n = cities.length;
+        for (int i = 0; i < n; i++) {
+            cityIndex.put(key(cities[i]), i);
+        }
+        distanceKm = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double distance = haversine(coordinates[i], coordinates[j]);
+                distanceKm[i * n + j] = distance;
+                distanceKm[j * n + i] = distance;
+            }
+        }
+    }
+
+    /**
+     * Engine with the rules configured by system properties (see the class comment),
+     * seeded from -Dflight.pricing.seed if set
+     * @throws IllegalArgumentException if a pricing property is malformed
+     */
+    public static PricingEngine fromConfig(String[] cities, double[][] coordinates) {
+        long seed = Long.getLong("flight.pricing.seed", System.nanoTime());
+        return new PricingEngine(cities, coordinates, configuredRules(seed), configuredLoadRules(),
+            FareBuckets.parse(System.getProperty("flight.pricing.fareBuckets", DEFAULT_FARE_BUCKETS)), seed);
+    }
+
+    public static List<FareRule> defaultRules(long seed) {
+        return List.of(FareRule.perKm(DEFAULT_RATE_PER_KM), FareRule.routeVariation(DEFAULT_VARIATION, seed));
+    }
+
+    /**
+     * The route rules fromConfig uses
+     * @throws IllegalArgumentException if a pricing property is malformed
+     */
+    public static List<FareRule> configuredRules(long seed) {
+        return List.of(FareRule.perKm(doubleProperty("flight.pricing.ratePerKm", DEFAULT_RATE_PER_KM)),
+            FareRule.routeVariation(doubleProperty("flight.pricing.variation", DEFAULT_VARIATION), seed));
+    }
+
+    /**
+     * The load rules fromConfig uses
+     * @throws IllegalArgumentException if a pricing property is malformed
+     */
+    public static List<FareRule> configuredLoadRules() {
+        List<FareRule> rules = new ArrayList<>();
+        String surcharge = System.getProperty("flight.pricing.loadSurcharge", "");
+        if (!surcharge.isBlank()) {
+            String[] parts = surcharge.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("flight.pricing.loadSurcharge must be threshold:maxSurcharge: " + surcharge);
+            }
+            rules.add(FareRule.loadFactorSurcharge(parseDouble("flight.pricing.loadSurcharge", parts[0]),
+                parseDouble("flight.pricing.loadSurcharge", parts[1])));
+        }
+        return rules;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : parseDouble(name, value);
+    }
+
+    private static double parseDouble(String name, String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number: " + value, e);
+        }
+    }
+
+    /**
+     * Index of a hub city (case-insensitive, surrounding spaces ignored), or -1 if unknown
+     */
+    public int cityIndex(String city) {
+        if (city == null) {
+            return -1;
+        }
+        Integer index = cityIndex.get(key(city));
+        return index == null ? -1 : index;
+    }
+
+    public double distanceKm(int originIndex, int destinationIndex) {
+        return distanceKm[originIndex * cities.length + destinationIndex];
+    }
+
+    /**
+     * Base fare for a route: the fare of an empty flight, before load rules
+     */
+    public double price(int originIndex, int destinationIndex) {
+        int routeKey = originIndex * cities.length + destinationIndex;
+        double distance = distanceKm[routeKey];
+        double fare = 0.0;
+        for (FareRule rule : rules) {
+            fare = rule.apply(fare, distance, routeKey, 0.0);
+        }
+        return fare;
+    }
+
+    /**
+     * Fare for a route given how full the flight is, with the default fare buckets
+     * @param loadFactor Booked seats / capacity, 0 to 1
+     */
+    public double price(int originIndex, int destinationIndex, double loadFactor) {
+        int routeKey = originIndex * cities.length + destinationIndex;
+        return applyLoadRules(price(originIndex, destinationIndex), distanceKm[routeKey], routeKey, loadFactor, fareBuckets);
+    }
+
+    /**
+     * Live fare of a stored flight. The flight's route need not be between hubs, so
+     * load rules see distanceKm -1 and routeKey -1.
+     * @param baseFare The flight's stored base fare
+     * @param loadFactor Booked seats / capacity, 0 to 1
+     * @param buckets The flight's own fare buckets, or null for the default ones
+     */
+    public double liveFare(double baseFare, double loadFactor, FareBuckets buckets) {
+        return applyLoadRules(baseFare, -1, -1, loadFactor, buckets != null ? buckets : fareBuckets);
+    }
+
+    /**
+     * Lowest live fare a flight can reach at any load factor
+     * @param buckets The flight's own fare buckets, or null for the default ones
+     */
+    public double lowestFare(double baseFare, FareBuckets buckets) {
+        return baseFare * (buckets != null ? buckets : fareBuckets).getMinMultiplier();
+    }
+
+    private double applyLoadRules(double fare, double distance, int routeKey, double loadFactor, FareBuckets buckets) {
+        for (FareRule rule : loadRules) {
+            fare = rule.apply(fare, distance, routeKey, loadFactor);
+        }
+        return buckets.apply(fare, distance, routeKey, loadFactor);
+    }
+
+    // Buckets for flights that have none of their own
+    public FareBuckets getFareBuckets() {
+        return fareBuckets;
+    }
+
+    /**
+     * Fare between two cities by name
+     * @return The fare, or -1 if either city is not a hub
+     */
+    public double price(String origin, String destination, double loadFactor) {
+        int originIndex = cityIndex(origin);
+        int destinationIndex = cityIndex(destination);
+        if (originIndex < 0 || destinationIndex < 0) {
+            return -1;
+        }
+        return price(originIndex, destinationIndex, loadFactor);
+    }
+
+    public int getCityCount() {
+        return cities.length;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    private static String key(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static double haversine(double[] from, double[] to) {
+        double lat1 = Math.toRadians(from[0]);
+        double lat2 = Math.toRadians(to[0]);
+        double sinDlat = Math.sin((lat2 - lat1) / 2);
+        double sinDlon = Math.sin(Math.toRadians(to[1] - from[1]) / 2);
+        double a = sinDlat * sinDlat + Math.cos(lat1) * Math.cos(lat2) * sinDlon * sinDlon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
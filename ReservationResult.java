@@ -0,0 +1,53 @@
+/**
+ * Outcome of an attempt to reserve seats on a flight.
+ * On success it carries the booking that was created in the same transaction.
+ */
+public class ReservationResult {
+    public enum Status {
+        RESERVED,
+        SOLD_OUT,
+        FLIGHT_NOT_FOUND,
+        FAILED
+    }
+
+    private final Status status;
+    private final Booking booking;
+    private final String message;
+
+    private ReservationResult(Status status, Booking booking, String message) {
+        this.status = status;
+        this.booking = booking;
+        this.message = message;
+    }
+
+    public static ReservationResult reserved(Booking booking) {
+        return new ReservationResult(Status.RESERVED, booking, "Reserved " + booking.getNumSeats() + " seat(s)");
+    }
+
+    public static ReservationResult soldOut(int flightId, int requestedSeats) {
+        return new ReservationResult(Status.SOLD_OUT, null,
+            "Not enough seats available on flight ID " + flightId + " for " + requestedSeats + " seat(s)");
+    }
+
+    public static ReservationResult flightNotFound(int flightId) {
+        return new ReservationResult(Status.FLIGHT_NOT_FOUND, null, "Flight not found with ID " + flightId);
+    }
+
+    public static ReservationResult failed(String message) {
+        return new ReservationResult(Status.FAILED, null, message);
+    }
+
+    public boolean isReserved() {
+        return status == Status.RESERVED;
+    }
+
+    // Getters
+    public Status getStatus() { return status; }
+    public Booking getBooking() { return booking; }
+    public String getMessage() { return message; }
+
+    @Override
+    public String toString() {
+        return String.format("Reservation %s: %s", status, message);
+    }
+}
@@ -21,6 +21,19 @@ public class User {
         this(-1, username, password, email, phoneNumber, userId, "Customer");
     }
 
+    // Creates the User subclass that matches the role (Customer for unknown roles)
+    public static User forRole(int id, String username, String password, String email, String phoneNumber, String userId, String role) {
+        switch (role) {
+            case "Administrator":
+                return new Administrator(id, username, password, email, phoneNumber, userId);
+            case "Agent":
+                return new Agent(id, username, password, email, phoneNumber, userId);
+            case "Customer":
+            default:
+                return new Customer(id, username, password, email, phoneNumber, userId);
+        }
+    }
+
     // Getters
     public int getId() {
         return id;
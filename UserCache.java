@@ -0,0 +1,157 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded read-through cache of user profiles for DatabaseManager, keyed by
+ * database ID with a username index. Entries expire after a TTL
+ * (-Dflight.users.cacheTtlSeconds, default 60) and the least recently used
+ * entry is evicted once the cache is full (-Dflight.users.cacheSize, default
+ * 1024; 0 turns the cache off).
+ *
+ * Only profile fields are kept; passwords are never stored here, and the
+ * users handed out have no password set. Every lookup returns a new User, so
+ * callers may modify what they get without affecting the cache.
+ *
+ * A lookup that misses reads the database and then calls put. If the user
+ * is invalidated while that read is in progress, the put would cache the old
+ * row. To prevent that, callers take a stamp with startLoad() before the read,
+ * and put ignores the row if any invalidation happened since.
+ */
+public class UserCache {
+    private static final int DEFAULT_MAX_SIZE = Integer.getInteger("flight.users.cacheSize", 1024);
+    private static final long DEFAULT_TTL_NANOS =
+        TimeUnit.SECONDS.toNanos(Integer.getInteger("flight.users.cacheTtlSeconds", 60));
+
+    private final int maxSize;
+    private final long ttlNanos;
+    // Least recently used first
+    private final LinkedHashMap<Integer, Entry> byId = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> idsByUsername = new HashMap<>();
+    // Bumped by every invalidation; loads that started before it are not cached
+    private long invalidations = 0;
+
+    // Metrics (guarded by this)
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public UserCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL_NANOS);
+    }
+
+    public UserCache(int maxSize, long ttlNanos) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNanos = ttlNanos;
+    }
+
+    public synchronized User get(int id) {
+        return toUser(lookup(id));
+    }
+
+    public synchronized User getByUsername(String username) {
+        Integer id = idsByUsername.get(username);
+        if (id == null) {
+            misses++;
+            return null;
+        }
+        return toUser(lookup(id));
+    }
+
+    /**
+     * Stamp to pass to put for a database read that is about to start
+     */
+    public synchronized long startLoad() {
+        return invalidations;
+    }
+
+    /**
+     * Caches the user's profile (never its password), unless it was invalidated
+     * after the read began
+     * @param loadStamp The value startLoad() returned before the database read
+     */
+    public synchronized void put(User user, long loadStamp) {
+        if (maxSize == 0 || loadStamp != invalidations) {
+            return;
+        }
+        Entry previous = byId.put(user.getId(), new Entry(user, System.nanoTime() + ttlNanos));
+        if (previous != null && !previous.username.equals(user.getUsername())) {
+            idsByUsername.remove(previous.username);
+        }
+        idsByUsername.put(user.getUsername(), user.getId());
+        if (byId.size() > maxSize) {
+            Iterator<Entry> eldest = byId.values().iterator();
+            idsByUsername.remove(eldest.next().username);
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidate(int id) {
+        invalidations++;
+        Entry removed = byId.remove(id);
+        if (removed != null) {
+            idsByUsername.remove(removed.username);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        byId.clear();
+        idsByUsername.clear();
+    }
+
+    // Counts the hit or miss and drops the entry if it has expired
+    private Entry lookup(int id) {
+        Entry entry = byId.get(id);
+        if (entry != null && System.nanoTime() - entry.expiresAt > 0) {
+            byId.remove(id);
+            idsByUsername.remove(entry.username);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    private static User toUser(Entry entry) {
+        return entry == null ? null : User.forRole(entry.id, entry.username, null, entry.email,
+            entry.phoneNumber, entry.userId, entry.role);
+    }
+
+    // Metrics getters
+    public synchronized int size() { return byId.size(); }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+
+    public synchronized String getMetricsSummary() {
+        return String.format("UserCache: size=%d/%d, hits=%d, misses=%d, evictions=%d", byId.size(), maxSize, hits, misses, evictions);
+    }
+
+    // Immutable profile snapshot; deliberately has no password field
+    private static final class Entry {
+        final int id;
+        final String username;
+        final String email;
+        final String phoneNumber;
+        final String userId;
+        final String role;
+        final long expiresAt;
+
+        Entry(User user, long expiresAt) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.email = user.getEmail();
+            this.phoneNumber = user.getPhoneNumber();
+            this.userId = user.getUserId();
+            this.role = user.getRole();
+            this.expiresAt = expiresAt;
+        }
+    }
+}
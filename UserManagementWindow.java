@@ -16,21 +16,25 @@ import java.util.List;
 public class UserManagementWindow extends JFrame {
     // Instance variables to store system data and UI components
     private BookingSystem system;  // Reference to the main booking system
+    private AsyncBookingService bookingService; // Runs database work off the event thread
     private JTable userTable;      // Table to display user information
     private JTable bookingTable;   // Table to display booking information
-    private DefaultTableModel userTableModel;    // Model for user table
+    private PagedTableModel<User> userTableModel; // Model for user table, loaded a page at a time
     private DefaultTableModel bookingTableModel; // Model for booking table
     private User selectedUser;     // Currently selected user
+    private JLabel statusLabel;    // Shows when data is loading
+    private AsyncBookingService.LatestRequest<List<BookingDetails>> bookingsRequest;
 
     /**
      * Constructor for UserManagementWindow
      * Sets up the window layout and initializes all components
      * 
-     * @param system The booking system instance to use
+     * @param bookingService The asynchronous booking service to use
      */
-    public UserManagementWindow(BookingSystem system) {
+    public UserManagementWindow(AsyncBookingService bookingService) {
         // Initialize the system reference
-        this.system = system;
+        this.bookingService = bookingService;
+        this.system = bookingService.getBookingSystem();
         
         // Set up the window properties
         setTitle("User Management");
@@ -48,15 +52,21 @@ public class UserManagementWindow extends JFrame {
         // Set up the user table panel
         JPanel userPanel = new JPanel(new BorderLayout());
         String[] userColumns = {"ID", "Username", "Email", "Role"};
-        // Create a non-editable table model
-        userTableModel = new DefaultTableModel(userColumns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;  // Make table read-only
-            }
-        };
+        // Create a read-only model that fetches customers page by page as the table scrolls
+        // (only customers are listed: agents can't manage other agents or admins)
+        userTableModel = new PagedTableModel<>(bookingService, userColumns,
+            (after, limit) -> system.getUserService().getCustomerUsersPage(after == null ? 0 : after.getId(), limit),
+            (user, column) -> {
+                switch (column) {
+                    case 0: return user.getId();
+                    case 1: return user.getUsername();
+                    case 2: return user.getEmail();
+                    default: return user.getRole();
+                }
+            });
         userTable = new JTable(userTableModel);
         JScrollPane userScrollPane = new JScrollPane(userTable);
+        userTableModel.attachTo(userScrollPane);
         userPanel.add(userScrollPane, BorderLayout.CENTER);
         userPanel.setBorder(BorderFactory.createTitledBorder("Users"));
 
@@ -85,8 +95,10 @@ public class UserManagementWindow extends JFrame {
         JButton modifyBookingButton = new JButton("Modify Booking");
         JButton cancelBookingButton = new JButton("Cancel Booking");
         JButton refreshButton = new JButton("Refresh");
+        statusLabel = new JLabel(" ");
 
         // Add buttons to panel
+        buttonPanel.add(statusLabel);
         buttonPanel.add(newBookingButton);
         buttonPanel.add(modifyBookingButton);
         buttonPanel.add(cancelBookingButton);
@@ -102,9 +114,8 @@ public class UserManagementWindow extends JFrame {
             if (!e.getValueIsAdjusting()) {
                 int selectedRow = userTable.getSelectedRow();
                 if (selectedRow != -1) {
-                    // Get selected user's ID and load their data
-                    int userId = (int) userTableModel.getValueAt(selectedRow, 0);
-                    selectedUser = system.getDbManager().getUserById(userId);
+                    // The row already holds the full user, so no lookup is needed
+                    selectedUser = userTableModel.getRow(userTable.convertRowIndexToModel(selectedRow));
                     updateBookingTable();  // Update booking table with user's bookings
                 }
             }
@@ -116,6 +127,11 @@ public class UserManagementWindow extends JFrame {
         cancelBookingButton.addActionListener(e -> cancelSelectedBooking());
         refreshButton.addActionListener(e -> refreshData());
 
+        // Loads run in the background; a newer refresh cancels an older one
+        userTableModel.setBusyIndicator(this::showLoading);
+        userTableModel.setErrorHandler(error -> FlightSystemGUI.showAsyncError(this, "Failed to load users", error));
+        bookingsRequest = new AsyncBookingService.LatestRequest<>(this::showLoading);
+
         // Load initial data
         refreshData();
     }
@@ -125,24 +141,29 @@ public class UserManagementWindow extends JFrame {
      * Only shows customer users (agents can't manage other agents or admins)
      */
     private void refreshData() {
-        // Clear existing data
-        userTableModel.setRowCount(0);
-        List<User> users = system.getDbManager().getAllUsers();
-        
-        // Add only customer users to the table
-        for (User user : users) {
-            if (user.getRole().equals("Customer")) {
-                userTableModel.addRow(new Object[]{
-                    user.getId(),
-                    user.getUsername(),
-                    user.getEmail(),
-                    user.getRole()
-                });
-            }
-        }
-
+        bookingsRequest.cancel();
+        selectedUser = null;
         // Clear booking table
         bookingTableModel.setRowCount(0);
+        userTableModel.reload();
+    }
+
+    /**
+     * Shows or hides the loading indicator
+     *
+     * @param busy true while a load is running
+     */
+    private void showLoading(boolean busy) {
+        statusLabel.setText(busy ? "Loading..." : " ");
+        setCursor(Cursor.getPredefinedCursor(busy ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+    }
+
+    @Override
+    public void dispose() {
+        // Don't fill tables that are going away
+        userTableModel.cancel();
+        bookingsRequest.cancel();
+        super.dispose();
     }
 
     /**
@@ -150,21 +171,22 @@ public class UserManagementWindow extends JFrame {
      */
     private void updateBookingTable() {
         if (selectedUser != null) {
-            bookingTableModel.setRowCount(0);
-            List<Booking> bookings = system.getDbManager().getUserBookings(selectedUser.getId());
-            
-            // Add each booking to the table
-            for (Booking booking : bookings) {
-                Flight flight = system.getDbManager().getFlightById(booking.getFlightId());
-                if (flight != null) {
-                    bookingTableModel.addRow(new Object[]{
-                        booking.getBookingId(),
-                        flight.getFlightNumber(),
-                        booking.getNumSeats(),
-                        "Active"
-                    });
+            // Bookings come back already joined with their flight, so this is a single query
+            bookingsRequest.load(bookingService.getUserBookingDetails(selectedUser), bookings -> {
+                bookingTableModel.setRowCount(0);
+
+                // Add each booking to the table
+                for (BookingDetails booking : bookings) {
+                    if (booking.hasFlight()) {
+                        bookingTableModel.addRow(new Object[]{
+                            booking.getBookingId(),
+                            booking.getFlightNumber(),
+                            booking.getNumSeats(),
+                            "Active"
+                        });
+                    }
                 }
-            }
+            }, error -> FlightSystemGUI.showAsyncError(this, "Failed to load bookings", error));
         }
     }
 
@@ -232,16 +254,24 @@ public class UserManagementWindow extends JFrame {
                 String selectedFlight = (String) flightCombo.getSelectedItem();
                 String flightNumber = selectedFlight.split(" - ")[0];
                 int numSeats = Integer.parseInt(seatsField.getText());
-                int flightId = system.getDbManager().getFlightId(flightNumber);
+                Flight flight = system.findFlight(flightNumber);
+                int flightId = flight != null ? flight.getId() : -1;
 
                 // Attempt to create the booking
-                if (system.createBooking(selectedUser, flightId, numSeats)) {
-                    JOptionPane.showMessageDialog(dialog, "Booking created successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    updateBookingTable();
-                    dialog.dispose();
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Failed to create booking. Check available seats.", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                bookButton.setEnabled(false);
+                AsyncBookingService.onEdt(bookingService.reserveBooking(selectedUser, flightId, numSeats), result -> {
+                    bookButton.setEnabled(true);
+                    if (result.isReserved()) {
+                        JOptionPane.showMessageDialog(dialog, "Booking created successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        updateBookingTable();
+                        dialog.dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Failed to create booking. Check available seats.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, error -> {
+                    bookButton.setEnabled(true);
+                    FlightSystemGUI.showAsyncError(dialog, "Failed to create booking", error);
+                });
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter a valid number of seats.", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -316,13 +346,20 @@ public class UserManagementWindow extends JFrame {
                 }
 
                 // Attempt to modify the booking
-                if (system.modifyBooking(bookingId, newSeats)) {
-                    JOptionPane.showMessageDialog(dialog, "Booking modified successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    updateBookingTable();
-                    dialog.dispose();
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Failed to modify booking. Check available seats.", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                updateButton.setEnabled(false);
+                AsyncBookingService.onEdt(bookingService.modifyBooking(bookingId, newSeats), success -> {
+                    updateButton.setEnabled(true);
+                    if (success) {
+                        JOptionPane.showMessageDialog(dialog, "Booking modified successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        updateBookingTable();
+                        dialog.dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Failed to modify booking. Check available seats.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, error -> {
+                    updateButton.setEnabled(true);
+                    FlightSystemGUI.showAsyncError(dialog, "Failed to modify booking", error);
+                });
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter a valid number of seats.", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -364,12 +401,14 @@ public class UserManagementWindow extends JFrame {
 
         // Process cancellation if confirmed
         if (confirm == JOptionPane.YES_OPTION) {
-            if (system.cancelBooking(bookingId)) {
-                JOptionPane.showMessageDialog(this, "Booking cancelled successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                updateBookingTable();
-            } else {
-                JOptionPane.showMessageDialog(this, "Failed to cancel booking.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            AsyncBookingService.onEdt(bookingService.cancelBooking(bookingId), success -> {
+                if (success) {
+                    JOptionPane.showMessageDialog(this, "Booking cancelled successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    updateBookingTable();
+                } else {
+                    JOptionPane.showMessageDialog(this, "Failed to cancel booking.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, error -> FlightSystemGUI.showAsyncError(this, "Failed to cancel booking", error));
         }
     }
 } 
\ No newline at end of file
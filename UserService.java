@@ -65,6 +65,15 @@ public class UserService {
         return dbManager.getAllUsers();
     }
 
+    /**
+     * Retrieves one page of customers, continuing after the given user.
+     * @param afterUserId ID of the last customer already loaded, or 0 for the first page
+     * @return Up to limit customers ordered by ID
+     */
+    public List<User> getCustomerUsersPage(int afterUserId, int limit) {
+        return dbManager.getCustomerUsersPage(afterUserId, limit);
+    }
+
     /**
      * Finds a user by their username.
      * @return The User object or null if not found
@@ -0,0 +1,177 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Shared setup for the benchmarks and checks that run against a database: a
+ * temporary SQLite file, bulk-loaded flights, customers and bookings, and a way
+ * to keep the application's stdout logging out of timings and reports.
+ *
+ * Rows are inserted on a connection of the caller's, in batches, so a seed runs
+ * in whatever transaction the caller opened. Each insert returns the generated
+ * IDs in insertion order.
+ */
+final class BenchFixtures {
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchFixtures() {
+    }
+
+    /**
+     * @return A new, empty temporary database file; remove it with deleteDatabase
+     */
+    static Path createDatabaseFile(String prefix) throws IOException {
+        return Files.createTempFile(prefix, ".db");
+    }
+
+    static String jdbcUrl(Path dbFile) {
+        return "jdbc:sqlite:" + dbFile.toAbsolutePath() + "?busy_timeout=5000";
+    }
+
+    // Deletes the database file together with its WAL and shared-memory files
+    static void deleteDatabase(Path dbFile) throws IOException {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Paths.get(dbFile.toAbsolutePath() + suffix));
+        }
+    }
+
+    /**
+     * Points System.out at nothing, since the operations log to stdout
+     * @return The real stdout, to report on and to restore with System.setOut
+     */
+    static PrintStream silenceStdout() {
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return report;
+    }
+
+    static Connection connect(String url) throws SQLException {
+        return DriverManager.getConnection(url);
+    }
+
+    /**
+     * Inserts count flights, taking number, route, capacity, booked seats and base fare from flightAt
+     * @return Their IDs, in the order of the indexes
+     */
+    static int[] insertFlights(Connection conn, int count, IntFunction<Flight> flightAt) throws SQLException {
+        int before = maxId(conn, "flights");
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO flights (flight_number, origin, destination, capacity, booked_seats, price) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                Flight flight = flightAt.apply(i);
+                pstmt.setString(1, flight.getFlightNumber());
+                pstmt.setString(2, flight.getDeparture());
+                pstmt.setString(3, flight.getDestination());
+                pstmt.setInt(4, flight.getCapacity());
+                pstmt.setInt(5, flight.getBookedSeats());
+                pstmt.setDouble(6, flight.getBaseFare());
+                addToBatch(pstmt, i);
+            }
+            pstmt.executeBatch();
+        }
+        return idsAfter(conn, "flights", before);
+    }
+
+    /**
+     * Inserts count customers named username(prefix, i), all with the given password
+     * @return Their IDs, in the order of the indexes
+     */
+    static int[] insertCustomers(Connection conn, String prefix, String password, int count) throws SQLException {
+        int before = maxId(conn, "users");
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO users (username, password, email, phone_number, user_id, role) VALUES (?, ?, ?, ?, ?, 'Customer')")) {
+            for (int i = 0; i < count; i++) {
+                pstmt.setString(1, username(prefix, i));
+                pstmt.setString(2, password);
+                pstmt.setString(3, prefix + i + "@example.com");
+                pstmt.setString(4, String.format("555%07d", i));
+                pstmt.setString(5, prefix.toUpperCase() + i);
+                addToBatch(pstmt, i);
+            }
+            pstmt.executeBatch();
+        }
+        return idsAfter(conn, "users", before);
+    }
+
+    static String username(String prefix, int index) {
+        return prefix + "_user_" + index;
+    }
+
+    /**
+     * Inserts count bookings, taking user, flight, seats, date and status from bookingAt.
+     * Flights' booked_seats are left as they are.
+     */
+    static void insertBookings(Connection conn, int count, IntFunction<Booking> bookingAt) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO bookings (user_id, flight_id, num_seats, booking_date, status) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                Booking booking = bookingAt.apply(i);
+                pstmt.setInt(1, booking.getUserId());
+                pstmt.setInt(2, booking.getFlightId());
+                pstmt.setInt(3, booking.getNumSeats());
+                pstmt.setString(4, booking.getBookingDate());
+                pstmt.setString(5, booking.getStatus());
+                addToBatch(pstmt, i);
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    // Flight fields a seed row needs; the flight number is prefix plus the zero-padded index
+    static Flight flight(String prefix, int index, String origin, String destination, int capacity, int bookedSeats,
+                         double baseFare) {
+        Flight flight = new Flight(String.format("%s%06d", prefix, index), origin, destination, capacity, baseFare);
+        flight.setBookedSeats(bookedSeats);
+        return flight;
+    }
+
+    static Booking booking(int userId, int flightId, int numSeats, String bookingDate, String status) {
+        return new Booking(0, userId, flightId, numSeats, bookingDate, status);
+    }
+
+    static void analyze(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+    }
+
+    private static void addToBatch(PreparedStatement pstmt, int index) throws SQLException {
+        pstmt.addBatch();
+        if (index % BATCH_SIZE == BATCH_SIZE - 1) {
+            pstmt.executeBatch();
+        }
+    }
+
+    private static int maxId(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // IDs are assigned in insertion order, so the rows after the previous maximum are the new ones
+    private static int[] idsAfter(Connection conn, String table, int before) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM " + table + " WHERE id > ? ORDER BY id")) {
+            pstmt.setInt(1, before);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
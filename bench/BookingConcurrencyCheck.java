@@ -0,0 +1,191 @@
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency stress check for BookingSystem's seat accounting.
+ *
+ * Many threads run a random mix of createBooking, modifyBooking,
+ * cancelAndReleaseSeats, cancelBooking and bulk cancelBookings against a few
+ * small flights, so the same flights are hit from every thread and some sell
+ * out. Afterwards, for every flight, three numbers must agree:
+ *   flights.booked_seats in the database,
+ *   the sum of num_seats over its bookings,
+ *   the in-memory inventory's booked seat count.
+ * None of them may exceed capacity. Exits with status 1 on any mismatch.
+ *
+ * Build and run from the project root, with sqlite-jdbc on the classpath:
+ *   javac -d out *.java
+ *   javac -cp out -d out-bench bench/*.java
+ *   java -Djava.awt.headless=true -cp "out:out-bench:lib/*:sqlite-jdbc.jar" BookingConcurrencyCheck
+ *
+ * Options (system properties):
+ *   bench.threads (16), bench.seconds (10), bench.flights (4), bench.capacity (60)
+ */
+public class BookingConcurrencyCheck {
+    private static final int THREADS = Integer.getInteger("bench.threads", 16);
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 10);
+    private static final int FLIGHTS = Integer.getInteger("bench.flights", 4);
+    private static final int CAPACITY = Integer.getInteger("bench.capacity", 60);
+    private static final int USERS = 50;
+
+    private static int[] flightIds;
+    private static int[] userIds;
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = BenchFixtures.createDatabaseFile("flight-concurrency-");
+        String url = BenchFixtures.jdbcUrl(dbFile);
+        PrintStream report = System.out;
+        DatabaseManager db = null;
+        boolean passed = false;
+        try {
+            try {
+                db = new DatabaseManager(url, 4);
+            } catch (DatabaseUnavailableException e) {
+                report.println("Could not open the check database: " + e.getMessage());
+                return;
+            }
+            seed(url);
+            BookingSystem system = new BookingSystem(db);
+
+            report.printf("%d threads for %d s on %d flights of %d seats%n", THREADS, SECONDS, FLIGHTS, CAPACITY);
+            // The operations log to stdout; keep that out of the report
+            BenchFixtures.silenceStdout();
+            Map<String, AtomicLong> counts = run(system);
+            System.setOut(report);
+            for (Map.Entry<String, AtomicLong> count : counts.entrySet()) {
+                report.printf("  %-24s %,d%n", count.getKey(), count.getValue().get());
+            }
+
+            passed = verify(system, url, report);
+            report.println(passed ? "PASS" : "FAIL");
+        } finally {
+            System.setOut(report);
+            if (db != null) {
+                db.close();
+            }
+            BenchFixtures.deleteDatabase(dbFile);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, AtomicLong> run(BookingSystem system) throws InterruptedException {
+        Map<String, AtomicLong> counts = new HashMap<>();
+        for (String name : new String[]{"create ok", "create rejected", "modify ok", "modify rejected",
+                                        "cancel seats ok", "cancel booking ok", "bulk cancelled", "errors"}) {
+            counts.put(name, new AtomicLong());
+        }
+        long deadline = System.nanoTime() + SECONDS * 1_000_000_000L;
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<Integer> mine = new ArrayList<>(); // Bookings this thread created and has not cancelled
+                User user = new User(userIds[random.nextInt(userIds.length)], null, null, null, null, null, "Customer");
+                while (System.nanoTime() < deadline) {
+                    try {
+                        step(system, random, user, mine, counts);
+                    } catch (RuntimeException e) {
+                        counts.get("errors").incrementAndGet();
+                    }
+                }
+            }, "check-" + t);
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return counts;
+    }
+
+    private static void step(BookingSystem system, ThreadLocalRandom random, User user, List<Integer> mine,
+                             Map<String, AtomicLong> counts) {
+        int choice = random.nextInt(100);
+        if (choice < 45 || mine.isEmpty()) {
+            Booking booking = system.createBooking(user, flightIds[random.nextInt(flightIds.length)], 1 + random.nextInt(4));
+            if (booking != null) {
+                mine.add(booking.getBookingId());
+                counts.get("create ok").incrementAndGet();
+            } else {
+                counts.get("create rejected").incrementAndGet();
+            }
+        } else if (choice < 70) {
+            int bookingId = mine.get(random.nextInt(mine.size()));
+            boolean ok = system.modifyBooking(bookingId, 1 + random.nextInt(6));
+            counts.get(ok ? "modify ok" : "modify rejected").incrementAndGet();
+        } else if (choice < 85) {
+            int bookingId = mine.get(random.nextInt(mine.size()));
+            Booking booking = system.getDbManager().getBookingById(bookingId);
+            if (booking == null) {
+                mine.remove(Integer.valueOf(bookingId));
+                return;
+            }
+            int seats = 1 + random.nextInt(booking.getNumSeats());
+            if (system.cancelAndReleaseSeats(user, bookingId, seats) != null) {
+                counts.get("cancel seats ok").incrementAndGet();
+                if (seats == booking.getNumSeats()) {
+                    mine.remove(Integer.valueOf(bookingId));
+                }
+            }
+        } else if (choice < 95) {
+            Integer bookingId = mine.remove(random.nextInt(mine.size()));
+            if (system.cancelBooking(bookingId)) {
+                counts.get("cancel booking ok").incrementAndGet();
+            }
+        } else {
+            List<Integer> batch = new ArrayList<>(mine);
+            mine.clear();
+            CancellationResult result = system.cancelBookings(batch);
+            if (result != null) {
+                counts.get("bulk cancelled").addAndGet(result.getCancelledCount());
+            }
+        }
+    }
+
+    // Compares the database, the bookings table and the in-memory inventory for every flight
+    private static boolean verify(BookingSystem system, String url, PrintStream report) throws SQLException {
+        boolean ok = true;
+        try (Connection conn = BenchFixtures.connect(url);
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "SELECT f.capacity, f.booked_seats, COALESCE((SELECT SUM(num_seats) FROM bookings b WHERE b.flight_id = f.id), 0) " +
+                 "FROM flights f WHERE f.id = ?")) {
+            for (int flightId : flightIds) {
+                pstmt.setInt(1, flightId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    int capacity = rs.getInt(1);
+                    int stored = rs.getInt(2);
+                    int summed = rs.getInt(3);
+                    int inMemory = system.findFlightById(flightId).getBookedSeats();
+                    boolean flightOk = stored == summed && summed == inMemory && stored <= capacity && stored >= 0;
+                    report.printf("  flight %d: capacity=%d stored=%d bookings=%d inventory=%d %s%n",
+                        flightId, capacity, stored, summed, inMemory, flightOk ? "ok" : "MISMATCH");
+                    ok &= flightOk;
+                }
+            }
+        }
+        return ok;
+    }
+
+    private static void seed(String url) throws SQLException {
+        try (Connection conn = BenchFixtures.connect(url)) {
+            conn.setAutoCommit(false);
+            flightIds = BenchFixtures.insertFlights(conn, FLIGHTS,
+                i -> BenchFixtures.flight("CC", i, "London", "Paris", CAPACITY, 0, 150));
+            userIds = BenchFixtures.insertCustomers(conn, "check", "check-password", USERS);
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Latency of loading one user's bookings with their flights, as the booking
+ * screens do, for users with many bookings. Compares:
+ *
+ *   joined query   DatabaseManager.getUserBookingDetails, one query joining
+ *                  bookings to flights
+ *   per-row        getUserBookings followed by getFlightById for every booking,
+ *                  the lookups the screens made before
+ *
+ * Seeds a temporary SQLite file with bench.users users of bench.bookingsPerUser
+ * bookings each, then loads a user bench.iterations times per approach after a
+ * warmup and reports latency percentiles. The temporary database is deleted
+ * afterwards.
+ *
+ * Build and run from the project root, with sqlite-jdbc on the classpath:
+ *   javac -d out *.java
+ *   javac -cp out -d out-bench bench/*.java
+ *   java -Djava.awt.headless=true -cp "out:out-bench:lib/*:sqlite-jdbc.jar" BookingDetailsBenchmark
+ *
+ * Options (system properties):
+ *   bench.users (5), bench.bookingsPerUser (10000), bench.flights (500), bench.iterations (20)
+ */
+public class BookingDetailsBenchmark {
+    private static final int USERS = Integer.getInteger("bench.users", 5);
+    private static final int BOOKINGS_PER_USER = Integer.getInteger("bench.bookingsPerUser", 10_000);
+    private static final int FLIGHTS = Integer.getInteger("bench.flights", 500);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 20);
+
+    private static int[] userIds;
+
+    // Keeps the JIT from discarding the results
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = BenchFixtures.createDatabaseFile("flight-details-");
+        String url = BenchFixtures.jdbcUrl(dbFile);
+        PrintStream report = System.out;
+        DatabaseManager db = null;
+        try {
+            try {
+                db = new DatabaseManager(url, 4);
+            } catch (DatabaseUnavailableException e) {
+                report.println("Could not open the benchmark database: " + e.getMessage());
+                return;
+            }
+            report.printf("Seeding %,d users with %,d bookings each over %,d flights...%n",
+                USERS, BOOKINGS_PER_USER, FLIGHTS);
+            seed(url);
+            DatabaseManager manager = db;
+
+            report.printf("%-16s %10s %10s %10s %10s%n", "approach", "rows", "p50 ms", "p99 ms", "max ms");
+            // The operations log to stdout; keep that out of the timings and the report
+            BenchFixtures.silenceStdout();
+            print(report, "joined query", run(userId -> {
+                List<BookingDetails> details = manager.getUserBookingDetails(userId);
+                sink += details.size();
+                for (BookingDetails booking : details) {
+                    sink += booking.getFlightNumber().length();
+                }
+            }));
+            print(report, "per-row", run(userId -> {
+                List<Booking> bookings = manager.getUserBookings(userId);
+                sink += bookings.size();
+                for (Booking booking : bookings) {
+                    Flight flight = manager.getFlightById(booking.getFlightId());
+                    sink += flight.getFlightNumber().length();
+                }
+            }));
+        } finally {
+            System.setOut(report);
+            if (db != null) {
+                db.close();
+            }
+            BenchFixtures.deleteDatabase(dbFile);
+        }
+    }
+
+    // One warmup load per user, then ITERATIONS timed loads cycling through the users; returns nanos per load
+    private static long[] run(IntConsumer load) {
+        for (int userId : userIds) {
+            load.accept(userId);
+        }
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            load.accept(userIds[i % userIds.length]);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void print(PrintStream report, String name, long[] latencies) {
+        report.printf("%-16s %,10d %10.1f %10.1f %10.1f%n", name, BOOKINGS_PER_USER,
+            percentileMillis(latencies, 50), percentileMillis(latencies, 99), percentileMillis(latencies, 100));
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    private static void seed(String url) throws SQLException {
+        Random random = new Random(42); // Same data set on every run
+        try (Connection conn = BenchFixtures.connect(url)) {
+            conn.setAutoCommit(false);
+            // Only reads are timed, so seat counts are left at zero
+            int[] flightIds = BenchFixtures.insertFlights(conn, FLIGHTS,
+                i -> BenchFixtures.flight("BD", i, "London", "Paris", 200, 0, 100 + random.nextInt(400)));
+            userIds = BenchFixtures.insertCustomers(conn, "details", "details-password", USERS);
+            BenchFixtures.insertBookings(conn, USERS * BOOKINGS_PER_USER,
+                i -> BenchFixtures.booking(userIds[i / BOOKINGS_PER_USER], flightIds[random.nextInt(flightIds.length)], 1,
+                    "2026-01-01", random.nextBoolean() ? "Paid" : "Pending"));
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+}
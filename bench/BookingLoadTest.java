@@ -0,0 +1,195 @@
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent booking load test: many simulated clients each reserve seats and
+ * then cancel them, all at once. It runs the same workload twice:
+ *
+ *   dispatcher  - BookingDispatcher (a virtual thread per request on JDK 21+,
+ *                 writes admitted through its writer semaphore)
+ *   fixedPool   - a plain fixed thread pool calling BookingSystem directly
+ *
+ * For each it reports throughput, latency percentiles per client, and how many
+ * clients failed. A failure is a reservation that was not made, or a
+ * cancellation that did not release its seats. Flights have room for every
+ * client, so SOLD_OUT also counts as a failure.
+ *
+ * Build and run from the project root, with sqlite-jdbc on the classpath:
+ *   javac -d out *.java
+ *   javac -cp out -d out-bench bench/*.java
+ *   java -Djava.awt.headless=true -cp "out:out-bench:lib/*:sqlite-jdbc.jar" BookingLoadTest
+ *
+ * Options (system properties):
+ *   bench.clients (10000), bench.flights (100), bench.users (1000),
+ *   bench.poolThreads (64), bench.readers (4)
+ */
+public class BookingLoadTest {
+    private static final int CLIENTS = Integer.getInteger("bench.clients", 10_000);
+    private static final int FLIGHTS = Integer.getInteger("bench.flights", 100);
+    private static final int USERS = Integer.getInteger("bench.users", 1_000);
+    private static final int POOL_THREADS = Integer.getInteger("bench.poolThreads", 64);
+    private static final int READERS = Integer.getInteger("bench.readers", 4);
+
+    private static int[] flightIds;
+    private static int[] userIds;
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = BenchFixtures.createDatabaseFile("flight-load-");
+        String url = BenchFixtures.jdbcUrl(dbFile);
+        PrintStream report = System.out;
+        DatabaseManager db = null;
+        try {
+            try {
+                db = new DatabaseManager(url, READERS);
+            } catch (DatabaseUnavailableException e) {
+                report.println("Could not open the load test database: " + e.getMessage());
+                return;
+            }
+            seed(url);
+            BookingSystem system = new BookingSystem(db);
+
+            report.printf("%,d clients, each reserving 1 seat on one of %,d flights and then cancelling it%n%n",
+                CLIENTS, FLIGHTS);
+            report.printf("%-12s %10s %10s %9s %9s %9s %9s %8s%n",
+                "mode", "seconds", "clients/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "failed");
+            // The operations log to stdout; keep that out of the timings and the report
+            BenchFixtures.silenceStdout();
+
+            BookingDispatcher dispatcher = new BookingDispatcher(system);
+            try {
+                print(report, "dispatcher", runDispatcher(dispatcher));
+            } finally {
+                dispatcher.shutdown();
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(POOL_THREADS);
+            try {
+                print(report, "fixedPool", runFixedPool(system, pool));
+            } finally {
+                pool.shutdown();
+            }
+        } finally {
+            System.setOut(report);
+            if (db != null) {
+                db.close();
+            }
+            BenchFixtures.deleteDatabase(dbFile);
+        }
+    }
+
+    private static void print(PrintStream report, String mode, Result result) {
+        report.printf("%-12s %10.2f %10.0f %9.1f %9.1f %9.1f %9.1f %8d%n", mode,
+            result.elapsedNanos / 1e9, result.clientsPerSecond(), result.percentileMillis(50),
+            result.percentileMillis(90), result.percentileMillis(99), result.percentileMillis(100), result.failed.get());
+    }
+
+    // Every client is a reserve followed by a cancel, chained without blocking a thread in between
+    private static Result runDispatcher(BookingDispatcher dispatcher) {
+        Result result = new Result();
+        List<CompletableFuture<Void>> clients = new ArrayList<>(CLIENTS);
+        long start = System.nanoTime();
+        for (int i = 0; i < CLIENTS; i++) {
+            int index = i;
+            User user = randomUser();
+            long clientStart = System.nanoTime();
+            clients.add(dispatcher.reserveBooking(user, randomFlight(), 1)
+                .thenCompose(reservation -> {
+                    if (!reservation.isReserved()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return dispatcher.cancelAndReleaseSeats(user, reservation.getBooking().getBookingId(), 1);
+                })
+                .handle((released, error) -> {
+                    result.finish(index, clientStart, error == null && released != null);
+                    return null;
+                }));
+        }
+        CompletableFuture.allOf(clients.toArray(new CompletableFuture<?>[0])).join();
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // The same workload with each client running start to finish on a pool thread
+    private static Result runFixedPool(BookingSystem system, ExecutorService pool) {
+        Result result = new Result();
+        List<CompletableFuture<Void>> clients = new ArrayList<>(CLIENTS);
+        long start = System.nanoTime();
+        for (int i = 0; i < CLIENTS; i++) {
+            int index = i;
+            User user = randomUser();
+            long clientStart = System.nanoTime();
+            clients.add(CompletableFuture.runAsync(() -> {
+                boolean ok = false;
+                try {
+                    ReservationResult reservation = system.reserveBooking(user, randomFlight(), 1);
+                    ok = reservation.isReserved()
+                        && system.cancelAndReleaseSeats(user, reservation.getBooking().getBookingId(), 1) != null;
+                } catch (RuntimeException e) {
+                    ok = false;
+                }
+                result.finish(index, clientStart, ok);
+            }, pool));
+        }
+        CompletableFuture.allOf(clients.toArray(new CompletableFuture<?>[0])).join();
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static User randomUser() {
+        int id = userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+        return new User(id, null, null, null, null, null, "Customer");
+    }
+
+    private static int randomFlight() {
+        return flightIds[ThreadLocalRandom.current().nextInt(flightIds.length)];
+    }
+
+    // End-to-end latency per client, from submission to its cancel finishing
+    private static final class Result {
+        final long[] latencies = new long[CLIENTS];
+        final AtomicInteger failed = new AtomicInteger();
+        long elapsedNanos;
+
+        void finish(int client, long clientStart, boolean ok) {
+            latencies[client] = System.nanoTime() - clientStart;
+            if (!ok) {
+                failed.incrementAndGet();
+            }
+        }
+
+        double clientsPerSecond() {
+            return CLIENTS / (elapsedNanos / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+    }
+
+    // Flights with room for every client at once, so no reservation should sell out
+    private static void seed(String url) throws SQLException {
+        Random random = new Random(42);
+        try (Connection conn = BenchFixtures.connect(url)) {
+            conn.setAutoCommit(false);
+            flightIds = BenchFixtures.insertFlights(conn, FLIGHTS,
+                i -> BenchFixtures.flight("LT", i, "London", "New York", CLIENTS, 0, 300 + random.nextInt(500)));
+            userIds = BenchFixtures.insertCustomers(conn, "load", "load-password", USERS);
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+}
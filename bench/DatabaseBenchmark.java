@@ -0,0 +1,267 @@
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Throughput and latency benchmarks for the DatabaseManager and BookingSystem hot paths.
+ *
+ * Seeds a temporary SQLite file (10k flights, 10k customers and 1M bookings by
+ * default), then runs each operation for a fixed time after a warmup and reports
+ * operations per second and latency percentiles. The temporary database is
+ * deleted afterwards. This lives outside the application sources so the
+ * benchmarks never ship with it.
+ *
+ * Build and run from the project root, with sqlite-jdbc on the classpath:
+ *   javac -d out *.java
+ *   javac -cp out -d out-bench bench/*.java
+ *   java -Djava.awt.headless=true -cp "out:out-bench:lib/*:sqlite-jdbc.jar" DatabaseBenchmark
+ *
+ * Options (system properties):
+ *   bench.flights (10000), bench.users (10000), bench.bookings (1000000),
+ *   bench.warmupSeconds (2), bench.seconds (5), bench.threads (1),
+ *   bench.only (comma-separated benchmark names; default all)
+ */
+public class DatabaseBenchmark {
+    private static final int FLIGHTS = Integer.getInteger("bench.flights", 10_000);
+    private static final int USERS = Integer.getInteger("bench.users", 10_000);
+    private static final int BOOKINGS = Integer.getInteger("bench.bookings", 1_000_000);
+    private static final int WARMUP_SECONDS = Integer.getInteger("bench.warmupSeconds", 2);
+    private static final int MEASURE_SECONDS = Integer.getInteger("bench.seconds", 5);
+    private static final int THREADS = Integer.getInteger("bench.threads", 1);
+    private static final String BENCH_PASSWORD = "bench-password";
+
+    // Seeded data the operations pick their arguments from
+    private static int[] flightIds;
+    private static String[] flightNumbers;
+    private static int[] userIds;
+    private static String[] usernames;
+    private static int maxBookingId;
+    // Bookings created by the reserveBooking benchmark, consumed by cancelBooking
+    private static final ConcurrentLinkedQueue<Integer> createdBookings = new ConcurrentLinkedQueue<>();
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = BenchFixtures.createDatabaseFile("flight-bench-");
+        String url = BenchFixtures.jdbcUrl(dbFile);
+        PrintStream report = System.out;
+        DatabaseManager db = null;
+        try {
+            try {
+                db = new DatabaseManager(url, Math.max(4, THREADS));
+            } catch (DatabaseUnavailableException e) {
+                report.println("Could not open the benchmark database: " + e.getMessage());
+                return;
+            }
+
+            report.printf("Seeding %s with %,d flights, %,d users and %,d bookings...%n", dbFile, FLIGHTS, USERS, BOOKINGS);
+            long seedStart = System.nanoTime();
+            seed(db, url);
+            report.printf("Seeded in %.1f s%n%n", (System.nanoTime() - seedStart) / 1e9);
+
+            BookingSystem system = new BookingSystem(db);
+            Map<String, Consumer<ThreadLocalRandom>> benchmarks = benchmarks(db, system);
+            Set<String> only = selectedBenchmarks();
+
+            report.printf("%-28s %10s %10s %9s %9s %9s %9s %9s%n",
+                "benchmark", "ops", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+            // The operations log to stdout; keep that out of the timings and the report
+            BenchFixtures.silenceStdout();
+            for (Map.Entry<String, Consumer<ThreadLocalRandom>> benchmark : benchmarks.entrySet()) {
+                if (!only.isEmpty() && !only.contains(benchmark.getKey())) {
+                    continue;
+                }
+                run(benchmark.getValue(), WARMUP_SECONDS);
+                Result result = run(benchmark.getValue(), MEASURE_SECONDS);
+                report.printf("%-28s %10d %10.0f %9.1f %9.1f %9.1f %9.1f %9.1f%n", benchmark.getKey(),
+                    result.ops, result.opsPerSecond(), result.percentileMicros(50), result.percentileMicros(90),
+                    result.percentileMicros(99), result.percentileMicros(99.9), result.percentileMicros(100));
+            }
+        } finally {
+            System.setOut(report);
+            if (db != null) {
+                db.close();
+            }
+            BenchFixtures.deleteDatabase(dbFile);
+        }
+    }
+
+    // Every benchmarked operation, in report order. Arguments are drawn at random from the seeded data.
+    private static Map<String, Consumer<ThreadLocalRandom>> benchmarks(DatabaseManager db, BookingSystem system) {
+        Map<String, Consumer<ThreadLocalRandom>> benchmarks = new LinkedHashMap<>();
+        FlightSearchCriteria routeSearch = new FlightSearchCriteria("London", "New York", 0, FlightSearchCriteria.ANY_MAX_PRICE, 2);
+
+        // DatabaseManager reads
+        benchmarks.put("db.getAllFlightsFromDB", random -> db.getAllFlightsFromDB());
+        benchmarks.put("db.getFlightById", random -> db.getFlightById(pick(random, flightIds)));
+        benchmarks.put("db.getUserBookings", random -> db.getUserBookings(pick(random, userIds)));
+        benchmarks.put("db.getUserBookingDetails", random -> db.getUserBookingDetails(pick(random, userIds)));
+        benchmarks.put("db.getBookingById", random -> db.getBookingById(1 + random.nextInt(maxBookingId)));
+        benchmarks.put("db.getBookingDetailsPage", random -> db.getBookingDetailsPage(random.nextInt(maxBookingId), 200));
+        benchmarks.put("db.getUserById", random -> db.getUserById(pick(random, userIds)));
+        benchmarks.put("db.loginUser", random -> db.loginUser(usernames[random.nextInt(usernames.length)], BENCH_PASSWORD));
+        benchmarks.put("db.searchFlights", random -> db.searchFlights(routeSearch, 50));
+
+        // BookingSystem reads (served from the in-memory inventory where possible)
+        benchmarks.put("system.findFlight", random -> system.findFlight(flightNumbers[random.nextInt(flightNumbers.length)]));
+        benchmarks.put("system.getAllFlights", random -> system.getAllFlights());
+        benchmarks.put("system.searchFlights", random -> system.searchFlights(routeSearch, 50));
+        benchmarks.put("system.findConnections", random ->
+            system.findConnections("New York", "Sydney", 2, 1, ConnectionFinder.RankBy.PRICE, 5));
+
+        // Writes. reserveBooking queues the bookings it creates so cancelBooking
+        // releases them again and the seat counts stay stable between runs.
+        benchmarks.put("system.reserveBooking", random -> {
+            User user = new User(pick(random, userIds), null, null, null, null, null, "Customer");
+            ReservationResult result = system.reserveBooking(user, pick(random, flightIds), 1);
+            if (result.isReserved()) {
+                createdBookings.add(result.getBooking().getBookingId());
+            }
+        });
+        benchmarks.put("system.cancelBooking", random -> {
+            Integer bookingId = createdBookings.poll();
+            system.cancelBooking(bookingId != null ? bookingId : 1 + random.nextInt(maxBookingId));
+        });
+        benchmarks.put("system.processPayment", random -> system.processPayment(1 + random.nextInt(maxBookingId)));
+        return benchmarks;
+    }
+
+    private static int pick(ThreadLocalRandom random, int[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static Set<String> selectedBenchmarks() {
+        Set<String> only = new HashSet<>();
+        String property = System.getProperty("bench.only", "").trim();
+        if (!property.isEmpty()) {
+            only.addAll(Arrays.asList(property.split("\\s*,\\s*")));
+        }
+        return only;
+    }
+
+    // Runs the operation on THREADS threads for the given time and records every latency
+    private static Result run(Consumer<ThreadLocalRandom> operation, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        LatencyRecorder[] recorders = new LatencyRecorder[THREADS];
+        Thread[] threads = new Thread[THREADS];
+        long start = System.nanoTime();
+        for (int i = 0; i < THREADS; i++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            recorders[i] = recorder;
+            threads[i] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    long opStart = System.nanoTime();
+                    operation.accept(random);
+                    recorder.record(System.nanoTime() - opStart);
+                }
+            }, "bench-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(recorders, System.nanoTime() - start);
+    }
+
+    // Growable array of latencies for one thread
+    private static final class LatencyRecorder {
+        long[] nanos = new long[1024];
+        int count;
+
+        void record(long latency) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latency;
+        }
+    }
+
+    private static final class Result {
+        final long[] sorted;
+        final int ops;
+        final long elapsedNanos;
+
+        Result(LatencyRecorder[] recorders, long elapsedNanos) {
+            int total = 0;
+            for (LatencyRecorder recorder : recorders) {
+                total += recorder.count;
+            }
+            long[] all = new long[total];
+            int offset = 0;
+            for (LatencyRecorder recorder : recorders) {
+                System.arraycopy(recorder.nanos, 0, all, offset, recorder.count);
+                offset += recorder.count;
+            }
+            Arrays.sort(all);
+            this.sorted = all;
+            this.ops = total;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double opsPerSecond() {
+            return ops / (elapsedNanos / 1e9);
+        }
+
+        double percentileMicros(double percentile) {
+            if (ops == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * ops) - 1;
+            return sorted[Math.max(0, Math.min(ops - 1, index))] / 1000.0;
+        }
+    }
+
+    // Bulk-loads the benchmark data on a separate connection, in one transaction with batched inserts
+    private static void seed(DatabaseManager db, String url) throws SQLException {
+        Random random = new Random(42); // Same data set on every run
+        String[] cities = db.getCities();
+        try (Connection conn = BenchFixtures.connect(url)) {
+            conn.setAutoCommit(false);
+
+            // Flights get enough capacity for their seeded bookings plus room for the write benchmarks
+            int perFlight = BOOKINGS / FLIGHTS;
+            flightNumbers = new String[FLIGHTS];
+            flightIds = BenchFixtures.insertFlights(conn, FLIGHTS, i -> {
+                int origin = random.nextInt(cities.length);
+                int destination = (origin + 1 + random.nextInt(cities.length - 1)) % cities.length;
+                int booked = perFlight + (i < BOOKINGS % FLIGHTS ? 1 : 0);
+                Flight flight = BenchFixtures.flight("BM", i, cities[origin], cities[destination], booked * 2 + 200,
+                    booked, db.calculatePrice(origin, destination));
+                flightNumbers[i] = flight.getFlightNumber();
+                return flight;
+            });
+
+            userIds = BenchFixtures.insertCustomers(conn, "bench", BENCH_PASSWORD, USERS);
+            usernames = new String[USERS];
+            for (int i = 0; i < USERS; i++) {
+                usernames[i] = BenchFixtures.username("bench", i);
+            }
+
+            // Booking i goes to flight i % FLIGHTS, matching the booked_seats set above
+            BenchFixtures.insertBookings(conn, BOOKINGS,
+                i -> BenchFixtures.booking(userIds[random.nextInt(userIds.length)], flightIds[i % FLIGHTS], 1,
+                    "2025-01-01 00:00:00", random.nextInt(3) == 0 ? "Pending" : "Paid"));
+            conn.commit();
+            conn.setAutoCommit(true);
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM bookings")) {
+                maxBookingId = Math.max(1, rs.getInt(1));
+            }
+            BenchFixtures.analyze(conn);
+        } catch (SQLException e) {
+            throw new SQLException("Seeding the benchmark database failed", e);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * What load-factor repricing adds to a booking. Fare buckets are a load rule of
+ * the PricingEngine: a seat change moves the flight's live fare, and a flight
+ * whose fare changed is re-filed in the search index by the next search. Each
+ * booking also records the fare it was quoted. Two parts, each run with an
+ * engine without load rules (flat fares) and one with the default buckets:
+ *
+ * In memory, FlightInventory.adjustBookedSeats over bench.flights flights:
+ *
+ *   flat fares         no load rules, the cost of a seat change on its own
+ *   default buckets    seats swept up to capacity and back, so bucket
+ *                      crossings happen as often as they would in real bookings
+ *   every op reprices  each flight sits on a bucket threshold and every op
+ *                      crosses it, the worst case
+ *
+ * A route search runs every bench.searchEvery bookings and is timed apart, so
+ * the re-filing deferred to searches shows up in its own column.
+ *
+ * Through the database, BookingSystem.createBooking against a temporary SQLite
+ * file, one seat at a time until a flight is full and then cancelled back to
+ * empty, so the seat change, the fare quote and the booking insert with its
+ * fare are all timed.
+ *
+ * Build and run from the project root, with sqlite-jdbc on the classpath for
+ * the database part:
+ *   javac -d out *.java
+ *   javac -cp out -d out-bench bench/*.java
+ *   java -Djava.awt.headless=true -cp "out:out-bench:lib/*:sqlite-jdbc.jar" FarePricingBenchmark
+ *
+ * Options (system properties):
+ *   bench.flights (10000), bench.ops (5000000), bench.rounds (5), bench.searchEvery (1000),
+ *   bench.dbFlights (100), bench.dbOps (20000)
+ */
+public class FarePricingBenchmark {
+    private static final int FLIGHTS = Integer.getInteger("bench.flights", 10_000);
+    private static final int OPS = Integer.getInteger("bench.ops", 5_000_000);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 5);
+    private static final int SEARCH_EVERY = Integer.getInteger("bench.searchEvery", 1000);
+    private static final int DB_FLIGHTS = Integer.getInteger("bench.dbFlights", 100);
+    private static final int DB_OPS = Integer.getInteger("bench.dbOps", 20_000);
+    private static final int CAPACITY = 200;
+    private static final String[] CITIES = {"New York", "London", "Paris", "Tokyo", "Berlin", "Rome", "Madrid", "Dubai"};
+    private static final FareBuckets BUCKETS = FareBuckets.parse("0.5:1.15,0.75:1.35,0.9:1.6");
+    private static final FlightSearchCriteria ANY_LONDON_FLIGHT =
+        new FlightSearchCriteria("London", "", 0, FlightSearchCriteria.ANY_MAX_PRICE, 1);
+
+    // Keeps the JIT from discarding the results
+    private static double sink;
+
+    private interface Workload {
+        void run(FlightInventory inventory, int[] ids, int[] direction, int op);
+    }
+
+    public static void main(String[] args) throws Exception {
+        PricingEngine flatEngine = engine(FareBuckets.FLAT);
+        PricingEngine bucketEngine = engine(BUCKETS);
+
+        // Seats go up one at a time to capacity, then back down to zero
+        Workload sweep = (inventory, ids, direction, op) -> {
+            int slot = op % ids.length;
+            Flight flight = inventory.findById(ids[slot]);
+            int booked = flight.getBookedSeats();
+            if (booked == CAPACITY) {
+                direction[slot] = -1;
+            } else if (booked == 0) {
+                direction[slot] = 1;
+            }
+            inventory.adjustBookedSeats(ids[slot], direction[slot]);
+        };
+        // Seats go back and forth across a bucket threshold
+        Workload boundary = (inventory, ids, direction, op) -> {
+            int slot = op % ids.length;
+            // Same seat check as the sweep, as createBooking does before it books
+            if (inventory.findById(ids[slot]).getAvailableSeats() > 0) {
+                direction[slot] = -direction[slot];
+            }
+            inventory.adjustBookedSeats(ids[slot], direction[slot]);
+        };
+
+        System.out.printf("%d flights of %d seats, buckets %s, a search every %d bookings%n%n",
+            FLIGHTS, CAPACITY, BUCKETS.toSpec(), SEARCH_EVERY);
+        System.out.printf("%-20s %12s %14s %14s%n", "in memory", "ns/booking", "reprice ns", "us/search");
+        double flat = report("flat fares", flatEngine, 0, sweep, 0);
+        report("default buckets", bucketEngine, 0, sweep, flat);
+        // 0.75 * 200 = 150 seats: one more crosses into the next bucket, one less falls back
+        double worst = report("every op reprices", bucketEngine, 149, boundary, flat);
+        System.out.printf("%nWorst case adds %.0f ns per booking: %s the 1 us budget%n%n",
+            worst - flat, worst - flat < 1000 ? "within" : "OVER");
+
+        System.out.printf("%-20s %12s %14s%n", "through the db", "us/booking", "reprice us");
+        double flatDb = reportDatabase("flat fares", flatEngine, 0);
+        if (flatDb > 0) {
+            reportDatabase("default buckets", bucketEngine, flatDb);
+        }
+    }
+
+    // The hub route rules with no load rules besides the given buckets
+    private static PricingEngine engine(FareBuckets buckets) {
+        return DatabaseManager.newHubPricingEngine(PricingEngine.defaultRules(42), List.of(), buckets, 42);
+    }
+
+    // Best of ROUNDS; returns ns per booking
+    private static double report(String name, PricingEngine engine, int startSeats, Workload workload, double baseline) {
+        FlightInventory inventory = new FlightInventory(engine);
+        int[] ids = new int[FLIGHTS];
+        int[] direction = new int[FLIGHTS];
+        Random random = new Random(42);
+        for (int i = 0; i < FLIGHTS; i++) {
+            int origin = random.nextInt(CITIES.length);
+            int destination = (origin + 1 + random.nextInt(CITIES.length - 1)) % CITIES.length;
+            Flight flight = new Flight(String.format("FP%05d", i), CITIES[origin], CITIES[destination], CAPACITY,
+                100 + random.nextInt(900));
+            flight.setId(i + 1);
+            flight.setBookedSeats(startSeats);
+            inventory.put(flight);
+            ids[i] = i + 1;
+            direction[i] = -1;
+        }
+        long[] searchNanos = new long[1];
+        measure(inventory, ids, direction, workload, searchNanos); // Warmup
+        double best = Double.MAX_VALUE;
+        double bestSearch = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            searchNanos[0] = 0;
+            best = Math.min(best, measure(inventory, ids, direction, workload, searchNanos));
+            bestSearch = Math.min(bestSearch, searchNanos[0] / 1000.0 / (OPS / SEARCH_EVERY));
+        }
+        System.out.printf("%-20s %12.1f %14s %14.1f%n", name, best,
+            baseline == 0 ? "-" : String.format("%.1f", best - baseline), bestSearch);
+        return best;
+    }
+
+    // Returns ns per booking; time spent in searches is added to searchNanos[0] instead
+    private static double measure(FlightInventory inventory, int[] ids, int[] direction, Workload workload,
+                                  long[] searchNanos) {
+        long bookingNanos = 0;
+        long start = System.nanoTime();
+        for (int op = 0; op < OPS; op++) {
+            workload.run(inventory, ids, direction, op);
+            if ((op + 1) % SEARCH_EVERY == 0) {
+                long searchStart = System.nanoTime();
+                bookingNanos += searchStart - start;
+                sink += inventory.search(ANY_LONDON_FLIGHT, 10).size();
+                start = System.nanoTime();
+                searchNanos[0] += start - searchStart;
+            }
+        }
+        bookingNanos += System.nanoTime() - start;
+        return (double) bookingNanos / OPS;
+    }
+
+    // Best of ROUNDS over a fresh database; returns us per booking, or -1 if the database could not be opened
+    private static double reportDatabase(String name, PricingEngine engine, double baseline) throws Exception {
+        Path dbFile = BenchFixtures.createDatabaseFile("flight-fare-");
+        String url = BenchFixtures.jdbcUrl(dbFile);
+        PrintStream report = System.out;
+        DatabaseManager db = null;
+        try {
+            try {
+                db = new DatabaseManager(url, 4, ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE, engine);
+            } catch (DatabaseUnavailableException e) {
+                report.println("Could not open the benchmark database: " + e.getMessage());
+                return -1;
+            }
+            BookingSystem system = new BookingSystem(db);
+            // The operations log to stdout; keep that out of the timings and the report
+            BenchFixtures.silenceStdout();
+            int[] ids = new int[DB_FLIGHTS];
+            Random random = new Random(42);
+            for (int i = 0; i < DB_FLIGHTS; i++) {
+                Flight flight = new Flight(String.format("FD%05d", i), "London", "New York", CAPACITY,
+                    300 + random.nextInt(500));
+                if (!system.addFlight(flight)) {
+                    throw new IllegalStateException("Could not add flight " + flight.getFlightNumber());
+                }
+                ids[i] = flight.getId();
+            }
+            long userId = db.registerUser("fare_bench", "fare-password", "fare@example.com", "557-000-0000",
+                "FARE0", "Customer");
+            User user = new User((int) userId, "fare_bench", null, null, null, null, "Customer");
+
+            measureDatabase(system, user, ids); // Warmup
+            double best = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                best = Math.min(best, measureDatabase(system, user, ids));
+            }
+            System.setOut(report);
+            report.printf("%-20s %12.1f %14s%n", name, best,
+                baseline == 0 ? "-" : String.format("%.1f", best - baseline));
+            return best;
+        } finally {
+            System.setOut(report);
+            if (db != null) {
+                db.close();
+            }
+            BenchFixtures.deleteDatabase(dbFile);
+        }
+    }
+
+    // Each op books one seat on the next flight in turn; a full flight has its bookings cancelled,
+    // so seats sweep through every bucket. Only the bookings are timed; returns us per booking.
+    private static double measureDatabase(BookingSystem system, User user, int[] ids) {
+        List<List<Integer>> booked = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            booked.add(new ArrayList<>());
+        }
+        long bookingNanos = 0;
+        for (int op = 0; op < DB_OPS; op++) {
+            int slot = op % ids.length;
+            if (booked.get(slot).size() == CAPACITY) {
+                system.cancelBookings(booked.get(slot));
+                booked.get(slot).clear();
+            }
+            long start = System.nanoTime();
+            Booking booking = system.createBooking(user, ids[slot], 1);
+            bookingNanos += System.nanoTime() - start;
+            if (booking == null) {
+                throw new IllegalStateException("Booking failed on flight " + ids[slot]);
+            }
+            sink += booking.getFare();
+            booked.get(slot).add(booking.getBookingId());
+        }
+        for (List<Integer> bookingIds : booked) {
+            system.cancelBookings(bookingIds);
+        }
+        return bookingNanos / 1000.0 / DB_OPS;
+    }
+}
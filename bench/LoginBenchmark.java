@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Password verification throughput: logins per second, and per core, at the
+ * configured PBKDF2 cost.
+ *
+ * The first table calls PasswordHasher.verify directly on 1, 2, 4, ... threads
+ * up to the core count, to show the raw cost of one login and how it scales.
+ * The second runs a login storm (bench.callers threads, default 4x the cores)
+ * through CredentialService. There, throughput is capped by the credential
+ * pool, and whatever the queue cannot hold is turned away. The cores left
+ * over stay free for bookings. Needs no database.
+ *
+ * Build and run from the project root:
+ *   javac -d out *.java
+ *   javac -cp out -d out-bench bench/*.java
+ *   java -cp "out:out-bench" LoginBenchmark
+ *
+ * Options (system properties):
+ *   bench.seconds (3), bench.callers (4 x cores),
+ *   flight.auth.pbkdf2Iterations, flight.auth.threads, flight.auth.queueSize
+ */
+public class LoginBenchmark {
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 3);
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final int CALLERS = Integer.getInteger("bench.callers", 4 * CORES);
+    private static final String PASSWORD = "correct horse battery staple";
+
+    public static void main(String[] args) throws InterruptedException {
+        PasswordHasher hasher = new PasswordHasher();
+        String stored = hasher.hash(PASSWORD);
+        System.out.printf("PBKDF2-HMAC-SHA256, %,d iterations, %d cores%n%n", hasher.getIterations(), CORES);
+
+        // Warm up the JIT before measuring
+        run(1, 1, () -> hasher.verify(PASSWORD, stored));
+
+        System.out.printf("%-10s %12s %16s %12s%n", "threads", "logins/s", "logins/s/thread", "ms/login");
+        for (int threads = 1; threads <= CORES; threads = threads < CORES && threads * 2 > CORES ? CORES : threads * 2) {
+            long logins = run(threads, SECONDS, () -> hasher.verify(PASSWORD, stored));
+            double perSecond = (double) logins / SECONDS;
+            System.out.printf("%-10d %12.1f %16.1f %12.1f%n", threads, perSecond, perSecond / threads,
+                1000.0 * threads / perSecond);
+            if (threads == CORES) {
+                break;
+            }
+        }
+
+        CredentialService service = new CredentialService();
+        AtomicLong busy = new AtomicLong();
+        long accepted = run(CALLERS, SECONDS, () -> {
+            if (service.verify(PASSWORD, stored).isBusy()) {
+                busy.incrementAndGet();
+            }
+        }) - busy.get();
+        service.shutdown();
+        System.out.printf("%nLogin storm: %d callers through CredentialService (%d threads)%n", CALLERS, service.getThreads());
+        System.out.printf("  verified %.1f logins/s (%.1f per credential thread), turned away %,d%n",
+            (double) accepted / SECONDS, (double) accepted / SECONDS / service.getThreads(), busy.get());
+        System.out.printf("  %d of %d cores stay free for bookings%n", Math.max(0, CORES - service.getThreads()), CORES);
+    }
+
+    // Runs the action on the given number of threads for the given time; returns the total calls
+    private static long run(int threads, int seconds, Runnable action) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong calls = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                long mine = 0;
+                while (System.nanoTime() < deadline) {
+                    action.run();
+                    mine++;
+                }
+                calls.addAndGet(mine);
+            }, "login-bench-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return calls.get();
+    }
+}
@@ -0,0 +1,156 @@
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Oversell stress test for createBooking.
+ *
+ * Each round, bench.threads threads are released at once against one flight
+ * with only bench.capacity seats, and each tries bench.attempts bookings of 1
+ * or 2 seats, so demand is many times the seat limit. Afterwards the seats
+ * createBooking reported as booked must not exceed capacity, and must match
+ * flights.booked_seats, the sum over the flight's bookings and the in-memory
+ * inventory. Exits with status 1 if any round oversold or disagreed. Reports
+ * the booking requests per second the rounds applied.
+ *
+ * Build and run from the project root, with sqlite-jdbc on the classpath:
+ *   javac -d out *.java
+ *   javac -cp out -d out-bench bench/*.java
+ *   java -Djava.awt.headless=true -cp "out:out-bench:lib/*:sqlite-jdbc.jar" OversellStressTest
+ *
+ * Options (system properties):
+ *   bench.threads (32), bench.rounds (20), bench.capacity (10), bench.attempts (4)
+ */
+public class OversellStressTest {
+    private static final int THREADS = Integer.getInteger("bench.threads", 32);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 20);
+    private static final int CAPACITY = Integer.getInteger("bench.capacity", 10);
+    private static final int ATTEMPTS = Integer.getInteger("bench.attempts", 4);
+
+    private static int[] flightIds;
+    private static int[] userIds;
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = BenchFixtures.createDatabaseFile("flight-oversell-");
+        String url = BenchFixtures.jdbcUrl(dbFile);
+        PrintStream report = System.out;
+        DatabaseManager db = null;
+        boolean passed = true;
+        try {
+            try {
+                db = new DatabaseManager(url, 4);
+            } catch (DatabaseUnavailableException e) {
+                report.println("Could not open the test database: " + e.getMessage());
+                return;
+            }
+            seed(url);
+            BookingSystem system = new BookingSystem(db);
+
+            report.printf("%d rounds of %d threads x %d bookings against %d seats%n", ROUNDS, THREADS, ATTEMPTS, CAPACITY);
+            long requests = 0;
+            long[] elapsedNanos = new long[1];
+            for (int round = 0; round < ROUNDS; round++) {
+                BenchFixtures.silenceStdout();
+                int[] booked = runRound(system, flightIds[round], elapsedNanos);
+                requests += (long) THREADS * ATTEMPTS;
+                System.setOut(report);
+                passed &= verify(system, url, flightIds[round], booked, report);
+            }
+            report.printf("%,d booking requests in %.2f s: %,.0f requests/s%n",
+                requests, elapsedNanos[0] / 1e9, requests / (elapsedNanos[0] / 1e9));
+            report.println(passed ? "PASS" : "FAIL");
+        } finally {
+            System.setOut(report);
+            if (db != null) {
+                db.close();
+            }
+            BenchFixtures.deleteDatabase(dbFile);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    // Returns {seats booked, bookings made, errors}. Only the time from releasing the threads
+    // until the last one finishes is added to elapsedNanos[0], not thread start-up or the checks.
+    private static int[] runRound(BookingSystem system, int flightId, long[] elapsedNanos) throws InterruptedException {
+        AtomicInteger seats = new AtomicInteger();
+        AtomicInteger bookings = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            User user = new User(userIds[t % userIds.length], null, null, null, null, null, "Customer");
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < ATTEMPTS; i++) {
+                    int requested = 1 + random.nextInt(2);
+                    try {
+                        if (system.createBooking(user, flightId, requested) != null) {
+                            seats.addAndGet(requested);
+                            bookings.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            }, "oversell-" + t);
+            threads[t].start();
+        }
+        // Every thread is waiting; release them together so the bookings race
+        long released = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        elapsedNanos[0] += System.nanoTime() - released;
+        return new int[]{seats.get(), bookings.get(), errors.get()};
+    }
+
+    // Booked seats must be within capacity and agree with the database and the inventory
+    private static boolean verify(BookingSystem system, String url, int flightId, int[] booked, PrintStream report)
+            throws SQLException {
+        try (Connection conn = BenchFixtures.connect(url);
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "SELECT f.booked_seats, COALESCE((SELECT SUM(num_seats) FROM bookings b WHERE b.flight_id = f.id), 0) " +
+                 "FROM flights f WHERE f.id = ?")) {
+            pstmt.setInt(1, flightId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                int stored = rs.getInt(1);
+                int summed = rs.getInt(2);
+                int inMemory = system.findFlightById(flightId).getBookedSeats();
+                boolean ok = booked[0] <= CAPACITY && booked[0] == stored && stored == summed && summed == inMemory
+                    && booked[2] == 0;
+                report.printf("  flight %d: booked=%d in %d bookings, stored=%d bookings=%d inventory=%d errors=%d %s%n",
+                    flightId, booked[0], booked[1], stored, summed, inMemory, booked[2],
+                    ok ? "ok" : booked[0] > CAPACITY ? "OVERSOLD" : "MISMATCH");
+                return ok;
+            }
+        }
+    }
+
+    // One flight per round, so every round starts empty
+    private static void seed(String url) throws SQLException {
+        try (Connection conn = BenchFixtures.connect(url)) {
+            conn.setAutoCommit(false);
+            flightIds = BenchFixtures.insertFlights(conn, ROUNDS,
+                i -> BenchFixtures.flight("OS", i, "London", "Rome", CAPACITY, 0, 120));
+            userIds = BenchFixtures.insertCustomers(conn, "oversell", "oversell-password", THREADS);
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cost of pricing one route: the old per-call haversine (Math.pow, sin, cos,
+ * asin on every call, plus a shared Random) against PricingEngine's
+ * precomputed distance matrix, with the default rules and with a load-factor
+ * surcharge added. Needs no database.
+ *
+ * Build and run from the project root:
+ *   javac -d out *.java
+ *   javac -cp out -d out-bench bench/*.java
+ *   java -cp "out:out-bench" PricingBenchmark
+ *
+ * Options (system properties): bench.calls (20000000), bench.rounds (5)
+ */
+public class PricingBenchmark {
+    private static final int CALLS = Integer.getInteger("bench.calls", 20_000_000);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 5);
+
+    // Same hubs as DatabaseManager
+    private static final String[] CITIES = {
+        "New York", "London", "Paris", "Tokyo", "Berlin", "Rome", "Madrid", "Dubai",
+        "Singapore", "Sydney", "Toronto", "Moscow", "Beijing", "Mumbai", "Cairo"
+    };
+    private static final double[][] COORDINATES = {
+        {40.7128, -74.0060}, {51.5074, -0.1278}, {48.8566, 2.3522}, {35.6762, 139.6503},
+        {52.5200, 13.4050}, {41.9028, 12.4964}, {40.4168, -3.7038}, {25.2048, 55.2708},
+        {1.3521, 103.8198}, {-33.8688, 151.2093}, {43.6532, -79.3832}, {55.7558, 37.6173},
+        {39.9042, 116.4074}, {19.0760, 72.8777}, {30.0444, 31.2357}
+    };
+
+    private static final Random legacyRandom = new Random(42);
+    // Keeps the JIT from discarding the results
+    private static double sink;
+
+    private interface Pricer {
+        double price(int origin, int destination, double loadFactor);
+    }
+
+    public static void main(String[] args) {
+        PricingEngine defaults = new PricingEngine(CITIES, COORDINATES, PricingEngine.defaultRules(42), 42);
+        PricingEngine dynamic = new PricingEngine(CITIES, COORDINATES, List.of(
+            FareRule.perKm(0.15),
+            FareRule.routeVariation(0.20, 42),
+            FareRule.loadFactorSurcharge(0.7, 0.5)), 42);
+
+        System.out.printf("%-34s %10s%n", "pricer", "ns/price");
+        report("legacy haversine + shared Random", (o, d, load) -> legacyPrice(o, d));
+        report("engine, default rules", (o, d, load) -> defaults.price(o, d));
+        report("engine, + load factor surcharge", dynamic::price);
+    }
+
+    private static void report(String name, Pricer pricer) {
+        measure(pricer); // Warmup
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, measure(pricer));
+        }
+        System.out.printf("%-34s %10.1f%n", name, best);
+    }
+
+    // Prices CALLS routes, cycling through every city pair and a range of loads; returns ns per call
+    private static double measure(Pricer pricer) {
+        int n = CITIES.length;
+        double total = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            int origin = i % n;
+            int destination = (origin + 1 + (i / n) % (n - 1)) % n;
+            total += pricer.price(origin, destination, (i & 127) / 127.0);
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += total;
+        return (double) elapsed / CALLS;
+    }
+
+    // DatabaseManager.calculatePrice as it was before PricingEngine
+    private static double legacyPrice(int originIndex, int destinationIndex) {
+        double lat1 = Math.toRadians(COORDINATES[originIndex][0]);
+        double lon1 = Math.toRadians(COORDINATES[originIndex][1]);
+        double lat2 = Math.toRadians(COORDINATES[destinationIndex][0]);
+        double lon2 = Math.toRadians(COORDINATES[destinationIndex][1]);
+        double a = Math.pow(Math.sin((lat2 - lat1) / 2), 2)
+            + Math.cos(lat1) * Math.cos(lat2) * Math.pow(Math.sin((lon2 - lon1) / 2), 2);
+        double basePrice = 2 * Math.asin(Math.sqrt(a)) * 6371 * 0.15;
+        double variation = basePrice * 0.2;
+        return basePrice + (legacyRandom.nextDouble() * variation * 2 - variation);
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Side-by-side cost of DatabaseManager reads with and without the per-connection
+ * prepared-statement cache (see ConnectionPool).
+ *
+ * Seeds a temporary SQLite file, opens two DatabaseManagers on it (cache on,
+ * and cache size 0) and times getFlightById and getUserBookings on each. The
+ * two sides take turns over several rounds so drift (page cache, JIT, thermal)
+ * hits both equally. Reports the mean nanoseconds per call for each side and
+ * the saving per call.
+ *
+ * Build and run from the project root, with sqlite-jdbc on the classpath:
+ *   javac -d out *.java
+ *   javac -cp out -d out-bench bench/*.java
+ *   java -Djava.awt.headless=true -cp "out:out-bench:lib/*:sqlite-jdbc.jar" StatementCacheBenchmark
+ *
+ * Options (system properties):
+ *   bench.flights (10000), bench.users (2000), bench.bookings (100000),
+ *   bench.warmupSeconds (2), bench.seconds (2), bench.rounds (5)
+ */
+public class StatementCacheBenchmark {
+    private static final int FLIGHTS = Integer.getInteger("bench.flights", 10_000);
+    private static final int USERS = Integer.getInteger("bench.users", 2_000);
+    private static final int BOOKINGS = Integer.getInteger("bench.bookings", 100_000);
+    private static final int WARMUP_SECONDS = Integer.getInteger("bench.warmupSeconds", 2);
+    private static final int MEASURE_SECONDS = Integer.getInteger("bench.seconds", 2);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 5);
+
+    private static int[] flightIds;
+    private static int[] userIds;
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = BenchFixtures.createDatabaseFile("flight-stmt-cache-");
+        String url = BenchFixtures.jdbcUrl(dbFile);
+        PrintStream report = System.out;
+        DatabaseManager cached = null;
+        DatabaseManager uncached = null;
+        try {
+            try {
+                cached = new DatabaseManager(url, 1);
+                uncached = new DatabaseManager(url, 1, 0);
+            } catch (DatabaseUnavailableException e) {
+                report.println("Could not open the benchmark database: " + e.getMessage());
+                return;
+            }
+            report.printf("Seeding %,d flights, %,d users and %,d bookings...%n", FLIGHTS, USERS, BOOKINGS);
+            seed(url);
+
+            DatabaseManager withCache = cached;
+            DatabaseManager withoutCache = uncached;
+            report.printf("%n%-20s %14s %14s %14s %8s%n", "operation", "cached ns/op", "uncached ns/op", "saved ns/op", "saved");
+            BenchFixtures.silenceStdout();
+            compare(report, "getFlightById",
+                random -> withCache.getFlightById(pick(random, flightIds)),
+                random -> withoutCache.getFlightById(pick(random, flightIds)));
+            compare(report, "getUserBookings",
+                random -> withCache.getUserBookings(pick(random, userIds)),
+                random -> withoutCache.getUserBookings(pick(random, userIds)));
+            System.setOut(report);
+            report.println();
+            report.println("cached:   " + cached.getConnectionPool().getMetricsSummary());
+        } finally {
+            System.setOut(report);
+            if (cached != null) {
+                cached.close();
+            }
+            if (uncached != null) {
+                uncached.close();
+            }
+            BenchFixtures.deleteDatabase(dbFile);
+        }
+    }
+
+    // Alternates the two variants over ROUNDS rounds and reports their mean cost per call
+    private static void compare(PrintStream report, String name, Consumer<ThreadLocalRandom> withCache,
+                                Consumer<ThreadLocalRandom> withoutCache) {
+        run(withCache, WARMUP_SECONDS);
+        run(withoutCache, WARMUP_SECONDS);
+        long[] cachedTotals = new long[2];
+        long[] uncachedTotals = new long[2];
+        for (int round = 0; round < ROUNDS; round++) {
+            add(cachedTotals, run(withCache, MEASURE_SECONDS));
+            add(uncachedTotals, run(withoutCache, MEASURE_SECONDS));
+        }
+        double cachedNs = (double) cachedTotals[1] / cachedTotals[0];
+        double uncachedNs = (double) uncachedTotals[1] / uncachedTotals[0];
+        report.printf("%-20s %14.0f %14.0f %14.0f %7.1f%%%n", name, cachedNs, uncachedNs,
+            uncachedNs - cachedNs, 100.0 * (uncachedNs - cachedNs) / uncachedNs);
+    }
+
+    // Calls the operation for the given time on this thread; returns {calls, elapsed nanos}
+    private static long[] run(Consumer<ThreadLocalRandom> operation, int seconds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        long calls = 0;
+        long now;
+        do {
+            operation.accept(random);
+            calls++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return new long[]{calls, now - start};
+    }
+
+    private static void add(long[] totals, long[] sample) {
+        totals[0] += sample[0];
+        totals[1] += sample[1];
+    }
+
+    private static int pick(ThreadLocalRandom random, int[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static void seed(String url) throws SQLException {
+        Random random = new Random(42); // Same data set on every run
+        try (Connection conn = BenchFixtures.connect(url)) {
+            conn.setAutoCommit(false);
+            flightIds = BenchFixtures.insertFlights(conn, FLIGHTS,
+                i -> BenchFixtures.flight("SC", i, "London", "Paris", 500, 0, 150));
+            userIds = BenchFixtures.insertCustomers(conn, "cache", "bench-password", USERS);
+            BenchFixtures.insertBookings(conn, BOOKINGS,
+                i -> BenchFixtures.booking(userIds[random.nextInt(userIds.length)], flightIds[random.nextInt(flightIds.length)],
+                    1, "2024-01-01", "Confirmed"));
+            conn.commit();
+            conn.setAutoCommit(true);
+            BenchFixtures.analyze(conn);
+        }
+    }
+}